@@ -6,9 +6,8 @@ import android.text.InputType;
 import android.widget.EditText;
 import android.widget.Toast;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * App Utility
@@ -74,26 +73,28 @@ public class AppUtility {
 
     /**
      * Shows a DatePickerDialog and sets the selected date to the given EditText.
+     * The dialog opens on the date already entered, or on today.
      *
      * @param context The context in which the DatePickerDialog is shown.
      * @param editText The EditText to set the selected date.
      */
     public static void showDatePickerDialog(Context context, final EditText editText) {
-        final Calendar calendar = Calendar.getInstance();
-        int mYear = calendar.get(Calendar.YEAR);
-        int mMonth = calendar.get(Calendar.MONTH);
-        int mDay = calendar.get(Calendar.DAY_OF_MONTH);
+        EventDateCodec codec = EventDateCodec.getInstance();
+        LocalDate initial = LocalDate.now();
+        try {
+            initial = LocalDate.ofEpochDay(codec.parse(editText.getText().toString()));
+        } catch (DateTimeParseException ignored) {
+            // Nothing valid entered yet, start from today
+        }
 
         DatePickerDialog datePickerDialog = new DatePickerDialog(context,
                 (view, year, month, day) -> {
-                    // Set the selected date to the calendar
-                    calendar.set(year, month, day);
+                    // DatePicker months are zero based, LocalDate months are not
+                    LocalDate selected = LocalDate.of(year, month + 1, day);
                     // Format the date and set it to the EditText
-                    SimpleDateFormat sdf = new SimpleDateFormat("MMMM dd, yyyy", Locale.getDefault());
-                    String formattedDate = sdf.format(calendar.getTime());
-                    editText.setText(formattedDate);
+                    editText.setText(codec.format(selected.toEpochDay()));
                 },
-                mYear, mMonth, mDay);
+                initial.getYear(), initial.getMonthValue() - 1, initial.getDayOfMonth());
         datePickerDialog.show();
     }
 }
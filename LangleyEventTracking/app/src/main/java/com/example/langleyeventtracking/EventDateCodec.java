@@ -0,0 +1,120 @@
+package com.example.langleyeventtracking;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Event Date Codec
+ * <p>
+ * The EventDateCodec class converts between stored epoch days and the display text of event dates.
+ * It includes:
+ * - One immutable, thread-safe DateTimeFormatter per locale, built once and shared.
+ * - A small cache of formatted labels, so formatting a day that was shown recently allocates nothing.
+ * - Moving a date to its next anniversary, used for birthdays.
+ * <p>
+ * This class is used by the event list, the date picker and the edit screen instead of building
+ * a formatter per call.
+ *
+ * @author Joseph Langley
+ */
+public final class EventDateCodec {
+
+    public static final String DISPLAY_PATTERN = "MMMM dd, yyyy"; // Display format for event dates, e.g. "June 16, 2024"
+    private static final int LABEL_CACHE_SIZE = 1024; // Power of two, covers almost three years of consecutive days
+
+    private static final ConcurrentMap<Locale, EventDateCodec> CODECS = new ConcurrentHashMap<>(); // Codecs by locale
+
+    private final DateTimeFormatter formatter; // Immutable formatter for the locale
+    private final Label[] labels = new Label[LABEL_CACHE_SIZE]; // Direct-mapped cache of formatted days
+
+    /**
+     * Gets the codec for the current default locale.
+     *
+     * @return The shared codec.
+     */
+    public static EventDateCodec getInstance() {
+        return forLocale(Locale.getDefault());
+    }
+
+    /**
+     * Gets the codec for a locale, creating it on first use.
+     *
+     * @param locale The locale of the month names.
+     * @return The shared codec for the locale.
+     */
+    public static EventDateCodec forLocale(Locale locale) {
+        EventDateCodec codec = CODECS.get(locale);
+        if (codec == null) {
+            codec = CODECS.computeIfAbsent(locale, EventDateCodec::new);
+        }
+        return codec;
+    }
+
+    private EventDateCodec(Locale locale) {
+        this.formatter = DateTimeFormatter.ofPattern(DISPLAY_PATTERN, locale);
+    }
+
+    /**
+     * Formats an epoch day as display text. Recently formatted days are returned from the cache.
+     *
+     * @param epochDay The day to format.
+     * @return The formatted date.
+     */
+    public String format(long epochDay) {
+        int slot = (int) (epochDay & (LABEL_CACHE_SIZE - 1));
+        Label label = labels[slot];
+        if (label != null && label.epochDay == epochDay) {
+            return label.text;
+        }
+        String text = formatter.format(LocalDate.ofEpochDay(epochDay));
+        // Labels are immutable, so a racing thread sees either the old or the new label, both valid
+        labels[slot] = new Label(epochDay, text);
+        return text;
+    }
+
+    /**
+     * Parses display text produced by format back into an epoch day.
+     *
+     * @param text The date text to parse.
+     * @return The epoch day.
+     * @throws DateTimeParseException If the text is not a valid date.
+     */
+    public long parse(String text) {
+        return LocalDate.parse(text.trim(), formatter).toEpochDay();
+    }
+
+    /**
+     * Moves a date to its next anniversary on or after today, e.g. a birth date to the next birthday.
+     * February 29 falls on February 28 in years without it.
+     *
+     * @param epochDay The original date.
+     * @param today The current day.
+     * @return The epoch day of the next anniversary.
+     */
+    public static long nextAnniversary(long epochDay, LocalDate today) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        LocalDate next = date.withYear(today.getYear());
+        if (next.isBefore(today)) {
+            next = date.withYear(today.getYear() + 1);
+        }
+        return next.toEpochDay();
+    }
+
+    /**
+     * A formatted day in the label cache.
+     */
+    private static final class Label {
+
+        final long epochDay; // Day the text belongs to
+        final String text; // Formatted date
+
+        Label(long epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.langleyeventtracking;
+
+import android.app.Application;
+
+import com.example.langleyeventtracking.auth.SessionStore;
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.EventCache;
+import com.example.langleyeventtracking.data.TombstoneCompactionWorker;
+import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.diagnostics.StartupTimeline;
+
+import java.util.List;
+
+/**
+ * Event Tracking Application
+ * <p>
+ * The EventTrackingApplication class prepares the process before the first activity needs data.
+ * It includes:
+ * - Opening the database, running any migrations, on a background thread.
+ * - Registering the daily TombstoneCompactionWorker that purges deleted events.
+ * - Warming the logged in user's first page of events, and the EventCache for small lists.
+ * - Recording both steps in the StartupTimeline.
+ * <p>
+ * Activities that touch the database while the warm-up runs simply wait for the same open,
+ * instead of paying for it on the main thread.
+ *
+ * @author Joseph Langley
+ */
+public class EventTrackingApplication extends Application {
+
+    private static final int WARM_ROWS = 50; // One page of the paged list
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTimeline.mark("application created");
+        new Thread(this::warmUp, "startup-warmup").start();
+    }
+
+    private void warmUp() {
+        EventAppDatabase database;
+        try (StartupTimeline.Section ignored = StartupTimeline.begin("db open")) {
+            database = EventAppDatabase.getInstance(this);
+            database.getOpenHelper().getWritableDatabase();
+        }
+        TombstoneCompactionWorker.schedule(this);
+        SessionStore.Session session = SessionStore.getInstance(this).current();
+        if (session == null) {
+            return;
+        }
+        try (StartupTimeline.Section ignored = StartupTimeline.begin("first query")) {
+            List<Event> firstPage = database.eventDao().getFirstEvents(session.userId, WARM_ROWS);
+            if (firstPage.size() < WARM_ROWS) {
+                // The whole list fits in a page, so EventActivity will read it through the cache
+                EventCache.getInstance(database).get(session.userId);
+            }
+        }
+    }
+}
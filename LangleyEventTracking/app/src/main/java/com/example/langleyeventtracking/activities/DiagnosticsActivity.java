@@ -0,0 +1,96 @@
+package com.example.langleyeventtracking.activities;
+
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.auth.Authenticator;
+import com.example.langleyeventtracking.diagnostics.QueryTracer;
+import com.example.langleyeventtracking.diagnostics.StartupTimeline;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Diagnostics Activity
+ * <p>
+ * The DiagnosticsActivity class shows what the app has measured about itself, including:
+ * - Latency, row counts and threads of every DAO call and SQL statement, from QueryTracer.
+ * - The tail of the slow query log.
+ * - The cold start timeline and the login latency.
+ * <p>
+ * This screen is hidden; it is opened by tapping the version in SettingsActivity several times.
+ *
+ * @author Joseph Langley
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final int SLOW_QUERY_LINES = 50; // Lines of the slow query log shown
+
+    private TextView reportText; // Shows the report
+    private QueryTracer tracer; // Source of the query histograms
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.diagnostics_activity);
+        reportText = findViewById(R.id.diagnostics_report);
+        tracer = QueryTracer.getInstance(this);
+
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.diagnostics_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+
+        if (id == R.id.action_refresh_diagnostics) {
+            refresh();
+            return true;
+        }
+
+        if (id == R.id.action_reset_diagnostics) {
+            tracer.reset();
+            Authenticator.getInstance(this).getLoginLatency().reset();
+            refresh();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    /**
+     * Rebuilds the report off the main thread, since reading the slow query log touches the disk.
+     */
+    private void refresh() {
+        String loginLatency = Authenticator.getInstance(this).getLoginLatency().summary();
+        CompletableFuture.supplyAsync(() -> tracer.report()
+                        + "\n\nSlow queries (newest last)\n" + tracer.getSlowQueryLog().tail(SLOW_QUERY_LINES)
+                        + "\n\n" + StartupTimeline.dump()
+                        + "\n\n" + loginLatency)
+                .thenAcceptAsync(reportText::setText, getMainExecutor());
+    }
+}
@@ -2,24 +2,48 @@ package com.example.langleyeventtracking.activities;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.Button;
+import android.widget.TextView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
+import androidx.fragment.app.FragmentManager;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.langleyeventtracking.EventDateCodec;
 import com.example.langleyeventtracking.R;
 import com.example.langleyeventtracking.adapter.EventAdapter;
+import com.example.langleyeventtracking.adapter.EventPagingAdapter;
+import com.example.langleyeventtracking.adapter.StickyHeaderDecoration;
+import com.example.langleyeventtracking.auth.SessionStore;
+import com.example.langleyeventtracking.data.PendingEventWrites;
+import com.example.langleyeventtracking.data.RecurrenceRule;
+import com.example.langleyeventtracking.data.io.EventExporter;
+import com.example.langleyeventtracking.data.io.EventFileFormat;
+import com.example.langleyeventtracking.data.io.EventImporter;
 import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.diagnostics.StartupTimeline;
+import com.example.langleyeventtracking.fragments.EditEventFragment;
 import com.example.langleyeventtracking.fragments.SmsNotifyFragment;
 import com.example.langleyeventtracking.viewmodels.EventViewModel;
+import com.example.langleyeventtracking.viewmodels.ExportStatus;
+import com.example.langleyeventtracking.viewmodels.ImportStatus;
+import com.example.langleyeventtracking.views.MonthGridView;
+import com.google.android.material.snackbar.Snackbar;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 
 /**
@@ -27,9 +51,15 @@ import java.util.Locale;
  * <p>
  * The EventActivity class handles the display and management of events. It includes:
  * - Displaying a welcome message with the user's first name.
- * - Displaying a list of events for the logged-in user.
- * - Adding, editing, and deleting events.
+ * - Displaying a list of events for the logged-in user, paged once the user has many events.
+ * - Adding, editing, and deleting events in an EditEventFragment pushed over the list, so the list,
+ *   its ViewModel and its loaded events are reused however many events are edited.
+ * - Searching events by title and description from the app bar.
+ * - A month grid with the number of events on each day, swiped between months.
+ * - Importing events from a CSV or iCalendar file, with progress and cancellation.
+ * - Exporting events to a CSV or iCalendar file, reporting size and throughput.
  * - Handling first-time login logic, including showing the SMS notification prompt and creating a birthday event.
+ * - Returning to the LoginActivity when the stored session's user no longer exists.
  * <p>
  * This class serves as the main screen for users after logging in.
  *
@@ -37,25 +67,56 @@ import java.util.Locale;
  */
 public class EventActivity extends AppCompatActivity {
 
+    private static final int PAGING_THRESHOLD = 500; // Event count above which the list is loaded in pages
+    private static final String[] IMPORT_MIME_TYPES = {"text/csv", "text/comma-separated-values", "text/calendar", "text/plain"}; // Documents offered for import
+
     private final EventAdapter eventAdapter = new EventAdapter(this); // Adapter for the RecyclerView
+    private final EventPagingAdapter eventPagingAdapter = new EventPagingAdapter(this); // Adapter for the paged list
+    private final EventAdapter searchAdapter = new EventAdapter(this, false); // Adapter for search results, best match first
+    private RecyclerView recyclerView; // List showing the events or the search results
+    private RecyclerView.Adapter<?> listAdapter; // Adapter of the event list, restored when search closes
+    private boolean searching; // Whether the search results are shown
+    private View listContent; // Everything under the editor, hidden from accessibility while editing
+    private View monthPanel; // Month title and grid, hidden until chosen from the menu
+    private boolean monthGridObserved; // Whether the month counts are observed yet
     private EventViewModel eventViewModel; // ViewModel for event operations
     private int userId; // ID of the logged-in user
     private String firstName; // First name of the logged-in user
     private String birthday; // Birthday of the logged-in user
+    private Snackbar importSnackbar; // Shows import progress while an import runs
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::onImportDocumentPicked); // Picks the file to import
+    private Snackbar exportSnackbar; // Shows export progress while an export runs
+    private Snackbar undoSnackbar; // Offers to undo the last delete
+    private final ActivityResultLauncher<String> exportCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(EventFileFormat.CSV.mimeType),
+            uri -> onExportDocumentCreated(uri, EventFileFormat.CSV)); // Creates the CSV file to export to
+    private final ActivityResultLauncher<String> exportIcsLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(EventFileFormat.ICALENDAR.mimeType),
+            uri -> onExportDocumentCreated(uri, EventFileFormat.ICALENDAR)); // Creates the iCalendar file to export to
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.event_activity); // Set the layout for the activity
+        StartupTimeline.markFirstFrame(this);
 
         // RecyclerView for displaying events
-        RecyclerView recyclerView = findViewById(R.id.event_recycler_view);
+        recyclerView = findViewById(R.id.event_recycler_view);
         // Button for adding new events
         Button addEventButton = findViewById(R.id.add_event_button);
+        // Month grid, shown next to the list on request
+        monthPanel = findViewById(R.id.month_panel);
+        listContent = findViewById(R.id.container);
 
-        // Set layout manager and adapter for RecyclerView
+        // Set layout manager for RecyclerView, the adapter is chosen once the event count is known
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        recyclerView.setAdapter(eventAdapter);
+        // Its size comes from the constraints, so item changes never relayout the whole screen
+        recyclerView.setHasFixedSize(true);
+        // The list, paged and search adapters all recycle into one pool
+        recyclerView.setRecycledViewPool(EventAdapter.createViewPool(this));
+        // Pin the month of the topmost event while the grouped list is shown
+        recyclerView.addItemDecoration(new StickyHeaderDecoration(eventAdapter));
 
         // Initialize the ViewModel
         eventViewModel = new ViewModelProvider(this).get(EventViewModel.class);
@@ -65,35 +126,308 @@ public class EventActivity extends AppCompatActivity {
         userId = intent.getIntExtra("user id", -1);
         firstName = intent.getStringExtra("first name");
         birthday = intent.getStringExtra("birthday");
-
-        // Set welcome message as title
-        setTitle("Welcome " + firstName + "!");
+        if (firstName == null) {
+            // Screens returning here only pass the user ID; the session has the rest
+            SessionStore.Session session = SessionStore.getInstance(this).current();
+            if (session != null && session.userId == userId) {
+                firstName = session.firstName;
+                birthday = session.birthday;
+            }
+        }
 
         // Observe events for the user
-        eventViewModel.getEventsForUser(userId).observe(this, eventAdapter::submitList);
+        showEvents();
 
         // Set click listener for the add event button
-        addEventButton.setOnClickListener(v -> {
-            Intent intent1 = new Intent(EventActivity.this, EditEventActivity.class);
-            intent1.putExtra("user id", userId);
-            startActivity(intent1);
-        });
+        addEventButton.setOnClickListener(v -> openEditor(-1));
 
-        // Set item click listener for the event adapter
-        eventAdapter.setOnItemClickListener(event -> {
-            Intent i = new Intent(EventActivity.this, EditEventActivity.class);
-            i.putExtra("id", event.getId());
-            i.putExtra("title", event.getTitle());
-            i.putExtra("date", event.getDate());
-            i.putExtra("description", event.getDescription());
-            i.putExtra("user id", event.getUserId());
-            startActivity(i);
-        });
+        // Set item click listener for the event adapters; an occurrence shares its series' ID, so it edits the whole series.
+        // An event still being inserted has no row to edit until its save commits
+        EventAdapter.OnItemClickListener editListener = event -> {
+            if (!PendingEventWrites.isUnsaved(event)) {
+                openEditor(event.getId());
+            }
+        };
+        eventAdapter.setOnItemClickListener(editListener);
+        eventPagingAdapter.setOnItemClickListener(editListener);
+        searchAdapter.setOnItemClickListener(editListener);
+
+        // Show search results as they arrive
+        eventViewModel.getSearchResults().observe(this, searchAdapter::submitEvents);
+
+        // Show import progress and results
+        eventViewModel.getImportStatus().observe(this, this::showImportStatus);
+        eventViewModel.getExportStatus().observe(this, this::showExportStatus);
+
+        // Offer to undo deletes made in the editor
+        eventViewModel.getDeletedEvent().observe(this, this::showUndoDelete);
+
+        // Restore the title and menu when the editor is closed
+        getSupportFragmentManager().addOnBackStackChangedListener(this::onEditorChanged);
+        onEditorChanged();
+
+        // LaunchActivity trusts the stored session, so make sure its user still exists
+        checkUserExists();
 
         // Check if this is the user's first login
         checkFirstLogin();
     }
 
+    /**
+     * Looks the user up in the background and, if the account is gone, for example after it was
+     * merged away, clears the session and returns to the login screen. A failed lookup changes nothing.
+     */
+    private void checkUserExists() {
+        eventViewModel.userExists(userId).thenAcceptAsync(exists -> {
+            if (exists || isDestroyed()) {
+                return;
+            }
+            SessionStore.getInstance(this).clear();
+            Intent intent = new Intent(this, LoginActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(intent);
+            finish();
+        }, getMainExecutor());
+    }
+
+    /**
+     * Opens the editor over the list. Any editor already open is replaced, so the back stack
+     * never holds more than one.
+     *
+     * @param eventId The ID of the event to edit, or -1 for a new event.
+     */
+    private void openEditor(int eventId) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        fragmentManager.popBackStack(EditEventFragment.BACK_STACK_NAME, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+        fragmentManager.beginTransaction()
+                .setReorderingAllowed(true)
+                .replace(R.id.event_editor_container, EditEventFragment.newInstance(userId, eventId))
+                .addToBackStack(EditEventFragment.BACK_STACK_NAME)
+                .commit();
+    }
+
+    /**
+     * Updates the title, menu and accessibility of the list for whether the editor is open.
+     */
+    private void onEditorChanged() {
+        boolean editing = getSupportFragmentManager().getBackStackEntryCount() > 0;
+        listContent.setImportantForAccessibility(editing
+                ? View.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS : View.IMPORTANT_FOR_ACCESSIBILITY_AUTO);
+        if (!editing) {
+            // Set welcome message as title
+            setTitle("Welcome " + firstName + "!");
+        }
+        invalidateOptionsMenu();
+    }
+
+    /**
+     * Shows or hides the month grid. Counts are only queried once the grid is first shown.
+     */
+    private void setMonthGridVisible(boolean visible) {
+        monthPanel.setVisibility(visible ? View.VISIBLE : View.GONE);
+        if (!visible || monthGridObserved) {
+            return;
+        }
+        monthGridObserved = true;
+        TextView monthTitle = findViewById(R.id.month_title);
+        MonthGridView monthGrid = findViewById(R.id.month_grid);
+        DateTimeFormatter titleFormatter = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.getDefault());
+        monthGrid.setOnMonthSwipeListener(eventViewModel::moveShownMonth);
+        eventViewModel.getShownMonth().observe(this, month -> {
+            monthTitle.setText(titleFormatter.format(month));
+            monthGrid.setMonth(month);
+        });
+        eventViewModel.getMonthSummary(userId).observe(this, monthGrid::setSummary);
+    }
+
+    /**
+     * Sets the adapter of the event list, leaving the search results on screen while searching.
+     */
+    private void setListAdapter(RecyclerView.Adapter<?> adapter) {
+        listAdapter = adapter;
+        if (!searching) {
+            recyclerView.swapAdapter(adapter, true);
+        }
+    }
+
+    /**
+     * Wires the search action: typing searches as you go, closing the search restores the event list.
+     */
+    private void setUpSearch(MenuItem searchItem) {
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint("Search events");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                eventViewModel.search(userId, query);
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                eventViewModel.search(userId, query);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                searching = true;
+                searchAdapter.submitEvents(null);
+                // Swapping keeps the pool, so search results rebind the list's recycled items
+                recyclerView.swapAdapter(searchAdapter, true);
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                searching = false;
+                recyclerView.swapAdapter(listAdapter, true);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Starts importing the picked document, if the user picked one.
+     */
+    private void onImportDocumentPicked(Uri uri) {
+        if (uri != null) {
+            eventViewModel.importEvents(uri, userId);
+        }
+    }
+
+    /**
+     * Shows the progress of a running import with a cancel action, then its result once.
+     */
+    private void showImportStatus(ImportStatus status) {
+        if (status == null) {
+            return;
+        }
+        if (status.running) {
+            String progress = status.percent >= 0
+                    ? "Imported " + status.imported + " events (" + status.percent + "%)"
+                    : "Imported " + status.imported + " events";
+            if (importSnackbar == null) {
+                importSnackbar = Snackbar.make(findViewById(android.R.id.content), progress, Snackbar.LENGTH_INDEFINITE)
+                        .setAction("Cancel", v -> eventViewModel.cancelImport());
+                importSnackbar.show();
+            } else {
+                importSnackbar.setText(progress);
+            }
+            return;
+        }
+
+        if (importSnackbar != null) {
+            importSnackbar.dismiss();
+            importSnackbar = null;
+        }
+        String message;
+        if (status.error != null) {
+            message = "Import failed: " + status.error.getMessage();
+        } else {
+            EventImporter.Result result = status.result;
+            message = (result.cancelled ? "Import cancelled after " : "Imported ") + result.imported + " events"
+                    + (result.skipped > 0 ? ", skipped " + result.skipped + " invalid rows" : "");
+        }
+        Snackbar.make(findViewById(android.R.id.content), message, Snackbar.LENGTH_LONG).show();
+        eventViewModel.clearImportStatus();
+    }
+
+    /**
+     * Attaches the event list to the RecyclerView.
+     * Users with more than PAGING_THRESHOLD events get the paged list, so memory and time to
+     * first frame stay flat however many events they have; everyone else gets the full list.
+     */
+    private void showEvents() {
+        LiveData<Integer> countLiveData = eventViewModel.getEventCount(userId);
+        countLiveData.observe(this, new Observer<Integer>() {
+            @Override
+            public void onChanged(Integer count) {
+                countLiveData.removeObserver(this);
+                StartupTimeline.mark("event count delivered");
+                if (count != null && count > PAGING_THRESHOLD) {
+                    setListAdapter(eventPagingAdapter);
+                    eventViewModel.getPagedEventsForUser(userId)
+                            .observe(EventActivity.this, pagingData -> eventPagingAdapter.submitData(getLifecycle(), pagingData));
+                } else {
+                    setListAdapter(eventAdapter);
+                    eventViewModel.getEventsForUser(userId).observe(EventActivity.this, eventAdapter::submitEvents);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows an undo action for a deleted event. The offer survives configuration changes, and ends
+     * when the snackbar times out or is swiped away.
+     */
+    private void showUndoDelete(Event event) {
+        if (event == null) {
+            if (undoSnackbar != null) {
+                undoSnackbar.dismiss();
+                undoSnackbar = null;
+            }
+            return;
+        }
+        undoSnackbar = Snackbar.make(findViewById(android.R.id.content), "Event deleted", Snackbar.LENGTH_LONG)
+                .setAction("Undo", v -> eventViewModel.undoDelete())
+                .addCallback(new Snackbar.Callback() {
+                    @Override
+                    public void onDismissed(Snackbar snackbar, int dismissEvent) {
+                        if (dismissEvent == DISMISS_EVENT_TIMEOUT || dismissEvent == DISMISS_EVENT_SWIPE) {
+                            eventViewModel.dismissDeletedEvent(event);
+                        }
+                    }
+                });
+        undoSnackbar.show();
+    }
+
+    /**
+     * Starts exporting to the created document, if the user created one.
+     */
+    private void onExportDocumentCreated(Uri uri, EventFileFormat format) {
+        if (uri != null) {
+            eventViewModel.exportEvents(uri, format, userId);
+        }
+    }
+
+    /**
+     * Shows the progress of a running export with a cancel action, then its size and throughput once.
+     */
+    private void showExportStatus(ExportStatus status) {
+        if (status == null) {
+            return;
+        }
+        if (status.running) {
+            String progress = "Exported " + status.exported + " events (" + status.bytesWritten / 1024 + " KB)";
+            if (exportSnackbar == null) {
+                exportSnackbar = Snackbar.make(findViewById(android.R.id.content), progress, Snackbar.LENGTH_INDEFINITE)
+                        .setAction("Cancel", v -> eventViewModel.cancelExport());
+                exportSnackbar.show();
+            } else {
+                exportSnackbar.setText(progress);
+            }
+            return;
+        }
+
+        if (exportSnackbar != null) {
+            exportSnackbar.dismiss();
+            exportSnackbar = null;
+        }
+        String message;
+        if (status.error != null) {
+            message = "Export failed: " + status.error.getMessage();
+        } else {
+            EventExporter.Result result = status.result;
+            message = (result.cancelled ? "Export cancelled after " : "Exported ") + result.exported + " events, "
+                    + result.bytesWritten / 1024 + " KB at " + result.bytesPerSecond() / 1024 + " KB/s";
+        }
+        Snackbar.make(findViewById(android.R.id.content), message, Snackbar.LENGTH_LONG).show();
+        eventViewModel.clearExportStatus();
+    }
+
     /**
      * Checks if this is the user's first login and performs necessary actions.
      * Shows the SMS notification prompt and creates a birthday event if it's the first login.
@@ -107,10 +441,11 @@ public class EventActivity extends AppCompatActivity {
             SmsNotifyFragment dialogFragment = new SmsNotifyFragment();
             dialogFragment.show(getSupportFragmentManager(), "SmsPromptDialogFragment");
 
-            // Create a birthday event
+            // Create a birthday event, repeating every year from the next birthday on
             Event birthdayEvent = new Event();
             birthdayEvent.setTitle(firstName + "'s Birthday");
             birthdayEvent.setDate(createBirthday(birthday));
+            birthdayEvent.setRecurrence(RecurrenceRule.of(RecurrenceRule.Frequency.YEARLY));
             birthdayEvent.setDescription("Celebrate Myself!");
             birthdayEvent.setUserId(userId);
             eventViewModel.insert(birthdayEvent);
@@ -123,42 +458,67 @@ public class EventActivity extends AppCompatActivity {
     /**
      * Creates a birthday event for user if it's their first login.
      * Checks for birthday already having passed or not for current year.
+     *
+     * @return The epoch day of the user's next birthday.
      */
-    private String createBirthday(String birthday) {
-        SimpleDateFormat sdf = new SimpleDateFormat("MMMM dd, yyyy", Locale.getDefault());
-        Calendar birthdayCalendar = Calendar.getInstance();
-        Calendar today = Calendar.getInstance();
+    private long createBirthday(String birthday) {
+        LocalDate today = LocalDate.now();
 
         try {
-            // Parse the birthday string
-            birthdayCalendar.setTime(sdf.parse(birthday));
-
-            // Set the birthday year to this year
-            birthdayCalendar.set(Calendar.YEAR, today.get(Calendar.YEAR));
-
-            // If the birthday has already passed this year, set it for next year
-            if (birthdayCalendar.before(today)) {
-                birthdayCalendar.add(Calendar.YEAR, 1);
-            }
+            // Parse the birthday string and move it to its next occurrence, this year or next
+            return EventDateCodec.nextAnniversary(EventDateCodec.getInstance().parse(birthday), today);
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return sdf.format(birthdayCalendar.getTime());
+        return today.toEpochDay();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main_menu, menu);
+        setUpSearch(menu.findItem(R.id.action_search));
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        // The list actions do not apply to the editor
+        boolean editing = getSupportFragmentManager().getBackStackEntryCount() > 0;
+        for (int i = 0; i < menu.size(); i++) {
+            menu.getItem(i).setVisible(!editing);
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
 
+        if (id == R.id.action_month_view) {
+            item.setChecked(!item.isChecked());
+            setMonthGridVisible(item.isChecked());
+            return true;
+        }
+
+        if (id == R.id.action_import) {
+            importLauncher.launch(IMPORT_MIME_TYPES);
+            return true;
+        }
+
+        if (id == R.id.action_export_csv) {
+            exportCsvLauncher.launch("events" + EventFileFormat.CSV.extension);
+            return true;
+        }
+
+        if (id == R.id.action_export_ics) {
+            exportIcsLauncher.launch("events" + EventFileFormat.ICALENDAR.extension);
+            return true;
+        }
+
         if (id == R.id.action_settings) {
             Intent intent = new Intent(this, SettingsActivity.class);
+            intent.putExtra("user id", userId);
             startActivity(intent);
             return true;
         }
@@ -0,0 +1,42 @@
+package com.example.langleyeventtracking.activities;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+
+import com.example.langleyeventtracking.auth.SessionStore;
+import com.example.langleyeventtracking.diagnostics.StartupTimeline;
+
+/**
+ * Launch Activity
+ * <p>
+ * The LaunchActivity class decides where the app starts. It includes:
+ * - Going straight to the EventActivity when a valid session is stored.
+ * - Falling back to the LoginActivity otherwise.
+ * <p>
+ * It has no layout and finishes in onCreate, as its NoDisplay theme requires, so a returning user
+ * never waits for the login screen to inflate or for a login query. EventActivity checks in the
+ * background that the session's user still exists.
+ *
+ * @author Joseph Langley
+ */
+public class LaunchActivity extends Activity {
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        StartupTimeline.mark("launch activity created");
+        SessionStore.Session session = SessionStore.getInstance(this).current();
+        Intent intent;
+        if (session != null) {
+            intent = new Intent(this, EventActivity.class);
+            intent.putExtra("user id", session.userId);
+            intent.putExtra("first name", session.firstName);
+            intent.putExtra("birthday", session.birthday);
+        } else {
+            intent = new Intent(this, LoginActivity.class);
+        }
+        startActivity(intent);
+        finish();
+    }
+}
@@ -7,32 +7,38 @@ import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 
-import com.example.langleyeventtracking.data.EventAppRepository;
 import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.auth.SessionStore;
+import com.example.langleyeventtracking.data.models.User;
+import com.example.langleyeventtracking.diagnostics.StartupTimeline;
+import com.example.langleyeventtracking.viewmodels.LoginViewModel;
 
 /**
  * Login Activity
  * <p>
  * The LoginActivity class handles the login functionality. It includes:
  * - Verifying that the email and password fields are not empty.
- * - Authenticating the user input with the records in the database.
+ * - Authenticating the user input through the LoginViewModel, off the main thread.
  * - Navigating to the RegisterActivity for new users.
  * - Displaying appropriate messages for successful or failed login attempts.
  * <p>
- * This class serves as the starting point when the application is launched.
+ * A successful login starts a session in the SessionStore, so the LaunchActivity skips this
+ * screen on later launches.
  *
  * @author Joseph Langley
  */
 public class LoginActivity extends AppCompatActivity {
 
-    private EventAppRepository repository; // Repository for database interactions
+    private LoginViewModel loginViewModel; // ViewModel running the credential check
     private EditText emailEditText, passwordEditText; // EditTexts for user input
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.login_screen); // Set the layout for the activity
+        StartupTimeline.markFirstFrame(this);
 
         // Initialize EditTexts and Buttons
         emailEditText = findViewById(R.id.email);
@@ -42,8 +48,33 @@ public class LoginActivity extends AppCompatActivity {
         Button loginButton = findViewById(R.id.loginButton);
         Button registerButton = findViewById(R.id.registerButton);
 
-        // Initialize the repository
-        repository = new EventAppRepository(getApplication());
+        // Initialize the ViewModel and observe login attempts once, not per button press
+        loginViewModel = new ViewModelProvider(this).get(LoginViewModel.class);
+        loginViewModel.getLoginStatus().observe(this, status -> {
+            loginButton.setEnabled(!status.running);
+            if (status.running) {
+                return;
+            }
+            User user = status.user;
+            if (user != null) {
+                // If user is authenticated, show success message
+                Toast.makeText(LoginActivity.this, "Login Successful", Toast.LENGTH_SHORT).show();
+
+                // Remember the user so the next launch skips the login
+                SessionStore.Session session = SessionStore.getInstance(this).start(user);
+
+                // Create an intent to navigate to EventActivity
+                Intent intent = new Intent(LoginActivity.this, EventActivity.class);
+                intent.putExtra("user id", session.userId);
+                intent.putExtra("first name", session.firstName);
+                intent.putExtra("birthday", session.birthday);
+                startActivity(intent); // Start EventActivity
+                finish(); // Finish LoginActivity
+            } else {
+                // If authentication fails, show error message
+                Toast.makeText(LoginActivity.this, "Invalid Login", Toast.LENGTH_SHORT).show();
+            }
+        });
 
         // Set the login button click listener
         loginButton.setOnClickListener(v -> {
@@ -58,26 +89,7 @@ public class LoginActivity extends AppCompatActivity {
             }
 
             // Authenticate the user
-            repository.getUser(email, password).observe(this, user -> {
-                if (user != null) {
-                    // If user is authenticated, show success message
-                    Toast.makeText(LoginActivity.this, "Login Successful", Toast.LENGTH_SHORT).show();
-
-                    // Extract the first name from the user's full name
-                    String firstName = user.getName().split(" ")[0];
-
-                    // Create an intent to navigate to EventActivity
-                    Intent intent = new Intent(LoginActivity.this, EventActivity.class);
-                    intent.putExtra("user id", user.getId());
-                    intent.putExtra("first name", firstName);
-                    intent.putExtra("birthday", user.getBirthday());
-                    startActivity(intent); // Start EventActivity
-                    finish(); // Finish LoginActivity
-                } else {
-                    // If authentication fails, show error message
-                    Toast.makeText(LoginActivity.this, "Invalid Login", Toast.LENGTH_SHORT).show();
-                }
-            });
+            loginViewModel.login(email, password);
         });
 
         // Set the register button click listener to navigate to RegisterActivity
@@ -1,6 +1,7 @@
 package com.example.langleyeventtracking.activities;
 
 import android.content.Intent;
+import android.database.sqlite.SQLiteConstraintException;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.EditText;
@@ -14,6 +15,8 @@ import com.example.langleyeventtracking.R;
 import com.example.langleyeventtracking.data.EventAppRepository;
 import com.example.langleyeventtracking.data.models.User;
 
+import java.util.concurrent.CompletionException;
+
 /**
  * Register Activity
  * <p>
@@ -21,7 +24,7 @@ import com.example.langleyeventtracking.data.models.User;
  * - Input fields for user details (name, birthday, email, password).
  * - Validation of user inputs.
  * - Interaction with the repository to check for existing users and insert new users.
- * - Navigation to the LoginActivity upon successful registration.
+ * - Navigation to the LoginActivity upon successful registration, and an error message when it fails.
  * <p>
  * This class is used for creating new user accounts.
  *
@@ -101,13 +104,30 @@ public class RegisterActivity extends AppCompatActivity {
         newUser.setBirthday(birthday);
         newUser.setPhone(phone);
         newUser.setEmail(email);
-        newUser.setPassword(password);
 
-        // Insert the new user into the repository
-        repository.insertUser(newUser);
+        // Insert the new user into the repository; the password is hashed off the main thread first,
+        // so return to the login screen only once the account exists
+        repository.registerUser(newUser, password).whenCompleteAsync((id, error) -> {
+            if (error != null) {
+                showRegistrationError(error);
+                return;
+            }
+            AppUtility.showToast(this, "Registration Successful");
+            startActivity(new Intent(RegisterActivity.this, LoginActivity.class));
+            finish();
+        }, getMainExecutor());
+    }
 
-        AppUtility.showToast(this, "Registration Successful");
-        startActivity(new Intent(RegisterActivity.this, LoginActivity.class));
-        finish();
+    /**
+     * Tells the user why the account was not created. The email check above can race with another
+     * registration, in which case the unique index on users.email rejects the insert.
+     */
+    private void showRegistrationError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof SQLiteConstraintException) {
+            emailEditText.setError("Email already in system");
+        } else {
+            AppUtility.showToast(this, "Registration failed, please try again");
+        }
     }
 }
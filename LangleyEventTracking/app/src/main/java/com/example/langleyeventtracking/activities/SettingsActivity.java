@@ -3,21 +3,28 @@ package com.example.langleyeventtracking.activities;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.preference.ListPreference;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 import androidx.preference.SwitchPreferenceCompat;
 
 import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.auth.SessionStore;
+import com.example.langleyeventtracking.viewmodels.EventViewModel;
 
 /**
  * Settings Activity
  * <p>
  * The SettingsActivity class handles the application settings, including:
  * - SMS notifications toggle.
+ * - The time of day the user's daily digest is sent.
  * - User logout functionality.
+ * - The app version, which opens the hidden DiagnosticsActivity when tapped TAPS_TO_DIAGNOSTICS times.
  * <p>
  * This class is used to manage user preferences and settings.
  *
@@ -52,6 +59,10 @@ public class SettingsActivity extends AppCompatActivity {
      */
     public static class SettingsFragment extends PreferenceFragmentCompat {
 
+        private static final int TAPS_TO_DIAGNOSTICS = 5; // Taps on the version that open the diagnostics screen
+
+        private int versionTaps; // Taps on the version so far
+
         @Override
         public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
             // Load the preferences from an XML resource
@@ -74,12 +85,33 @@ public class SettingsActivity extends AppCompatActivity {
                 });
             }
 
+            // Initialize the daily digest time, stored on the user rather than in shared preferences
+            int userId = requireActivity().getIntent().getIntExtra("user id", -1);
+            ListPreference digestCutoffPreference = findPreference("digest_cutoff");
+            if (digestCutoffPreference != null) {
+                if (userId == -1) {
+                    digestCutoffPreference.setVisible(false);
+                } else {
+                    EventViewModel eventViewModel = new ViewModelProvider(requireActivity()).get(EventViewModel.class);
+                    eventViewModel.getDigestCutoff(userId).observe(this, minutes -> {
+                        if (minutes != null) {
+                            digestCutoffPreference.setValue(String.valueOf(minutes));
+                        }
+                    });
+                    digestCutoffPreference.setOnPreferenceChangeListener((preference, newValue) -> {
+                        eventViewModel.setDigestCutoff(userId, Integer.parseInt((String) newValue));
+                        return true;
+                    });
+                }
+            }
+
             // Initialize the logout preference
             Preference logoutPreference = findPreference("logout");
             if (logoutPreference != null) {
                 // Set the click listener for the logout preference
                 logoutPreference.setOnPreferenceClickListener(preference -> {
                     // Clear user session and navigate to login activity
+                    SessionStore.getInstance(requireContext()).clear();
                     Intent intent = new Intent(getActivity(), LoginActivity.class);
                     intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
                     startActivity(intent);
@@ -87,6 +119,24 @@ public class SettingsActivity extends AppCompatActivity {
                     return true;
                 });
             }
+
+            // Initialize the version preference, which also leads to the hidden diagnostics screen
+            Preference versionPreference = findPreference("version");
+            if (versionPreference != null) {
+                try {
+                    versionPreference.setSummary(requireContext().getPackageManager().getPackageInfo(
+                            requireContext().getPackageName(), PackageManager.PackageInfoFlags.of(0)).versionName);
+                } catch (PackageManager.NameNotFoundException e) {
+                    versionPreference.setSummary(null);
+                }
+                versionPreference.setOnPreferenceClickListener(preference -> {
+                    if (++versionTaps >= TAPS_TO_DIAGNOSTICS) {
+                        versionTaps = 0;
+                        startActivity(new Intent(getActivity(), DiagnosticsActivity.class));
+                    }
+                    return true;
+                });
+            }
         }
     }
 }
@@ -1,20 +1,34 @@
 package com.example.langleyeventtracking.adapter;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.cardview.widget.CardView;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.langleyeventtracking.EventDateCodec;
 import com.example.langleyeventtracking.R;
 import com.example.langleyeventtracking.data.models.Event;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 /**
  * Event Adapter
  * <p>
@@ -22,39 +36,148 @@ import com.example.langleyeventtracking.data.models.Event;
  * It includes:
  * - Setting up the view holder pattern for efficient view management.
  * - Handling click events on individual items.
+ * - Diffing new lists on a dedicated background thread, comparing row versions instead of every field.
+ * - Change payloads, so an edited item only rebinds the TextViews whose text changed.
+ * - Stable item IDs, and a view pool sized to hold a screenful of event items.
+ * - Laying out descriptions off the main thread while items are prefetched.
+ * - Month headers as their own view type, grouped on the diffing thread and regrouped only
+ *   around the events that changed.
  * <p>
  * This class is used for displaying a list of events in a RecyclerView.
  *
  * @author Joseph Langley
  */
-public class EventAdapter extends ListAdapter<Event, EventAdapter.EventViewHolder> {
+public class EventAdapter extends ListAdapter<EventSections.Item, RecyclerView.ViewHolder> {
+
+    // One diffing thread for every event list, so a large diff never competes with the paging queries
+    static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+    static final int CHANGED_TITLE = 1; // Payload bit: the title text changed
+    static final int CHANGED_DATE = 1 << 1; // Payload bit: the date text changed
+    static final int CHANGED_DESCRIPTION = 1 << 2; // Payload bit: the description text changed
+    static final int VIEW_TYPE_EVENT = 0; // View type of an event item
+    static final int VIEW_TYPE_HEADER = 1; // View type of a month header
+    private static final int POOLED_HEADERS = 4; // Month headers kept in the view pool
+    private static final int SHORTEST_ITEM_DP = 140; // Height of an item with one-line title and description, margins included
 
     private final Context context; // Context for inflating the layout
+    private final EventSections sections; // Groups submitted events, used on the diffing thread only
+    private final Handler mainHandler = new Handler(Looper.getMainLooper()); // Delivers grouped items back to the main thread
+    private int submitGeneration; // Incremented per submitted list, so stale groupings are dropped
     private OnItemClickListener listener; // Listener for handling item clicks
 
     /**
-     * Constructor for EventAdapter.
+     * Constructor for EventAdapter, grouping the events by month.
      *
      * @param context The context in which the adapter is used.
      */
     public EventAdapter(@NonNull Context context) {
-        super(DIFF_CALLBACK);
+        this(context, true);
+    }
+
+    /**
+     * Constructor for EventAdapter.
+     *
+     * @param context The context in which the adapter is used.
+     * @param grouped Whether to show month headers; only for events sorted by date.
+     */
+    public EventAdapter(@NonNull Context context, boolean grouped) {
+        super(new AsyncDifferConfig.Builder<>(ITEM_CALLBACK).setBackgroundThreadExecutor(DIFF_EXECUTOR).build());
         this.context = context;
+        this.sections = new EventSections(grouped);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Submits a new list of events. The month headers are worked out on the diffing thread,
+     * ahead of the diff itself, so the main thread only applies the result.
+     *
+     * @param events The events to show, or null for none.
+     */
+    public void submitEvents(List<Event> events) {
+        int generation = ++submitGeneration;
+        DIFF_EXECUTOR.execute(() -> {
+            List<EventSections.Item> items = sections.regroup(events);
+            mainHandler.post(() -> {
+                if (generation == submitGeneration) {
+                    submitList(items);
+                }
+            });
+        });
+    }
+
+    /**
+     * Gets the month of an item, used to pin its month header.
+     *
+     * @param position The adapter position of the item.
+     * @return The month of the event or header at that position.
+     */
+    public YearMonth getMonthAt(int position) {
+        return getItem(position).month;
+    }
+
+    /**
+     * Creates a view pool for the event lists of one screen. The event, paged and search adapters
+     * share its holders, and it keeps a whole screenful when the list swaps adapters instead of
+     * the default five, so swapping rebinds recycled items rather than inflating new ones.
+     *
+     * @param context The context of the screen.
+     * @return A new view pool.
+     */
+    public static RecyclerView.RecycledViewPool createViewPool(@NonNull Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int visibleItems = (int) Math.ceil(metrics.heightPixels / (SHORTEST_ITEM_DP * metrics.density));
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        // One extra for the item being scrolled in and one for the prefetched item
+        pool.setMaxRecycledViews(VIEW_TYPE_EVENT, visibleItems + 2);
+        pool.setMaxRecycledViews(VIEW_TYPE_HEADER, POOLED_HEADERS);
+        return pool;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).isHeader() ? VIEW_TYPE_HEADER : VIEW_TYPE_EVENT;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        EventSections.Item item = getItem(position);
+        return item.isHeader() ? headerIdOf(item.month) : stableIdOf(item.event);
     }
 
     @NonNull
     @Override
-    public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_HEADER) {
+            View headerView = LayoutInflater.from(context).inflate(R.layout.event_header_layout, parent, false);
+            return new HeaderViewHolder(headerView);
+        }
         // Inflate the event layout and create a new ViewHolder
         View itemView = LayoutInflater.from(context).inflate(R.layout.event_layout, parent, false);
-        return new EventViewHolder(itemView);
+        return new EventViewHolder(itemView, event -> {
+            if (listener != null) {
+                listener.onItemClick(event);
+            }
+        });
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        // Bind the data to the ViewHolder of its type
+        EventSections.Item item = getItem(position);
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).bind(item.month);
+        } else {
+            ((EventViewHolder) holder).bind(item.event);
+        }
     }
 
     @Override
-    public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        // Bind the data to the ViewHolder
-        Event currentEvent = getItem(position);
-        holder.bind(currentEvent);
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !(holder instanceof EventViewHolder)) {
+            onBindViewHolder(holder, position);
+        } else {
+            ((EventViewHolder) holder).bindChanges(getItem(position).event, changesOf(payloads));
+        }
     }
 
     /**
@@ -75,28 +198,32 @@ public class EventAdapter extends ListAdapter<Event, EventAdapter.EventViewHolde
 
     /**
      * ViewHolder class for event items.
+     * Shared by EventAdapter and EventPagingAdapter.
      */
-    public class EventViewHolder extends RecyclerView.ViewHolder {
+    public static class EventViewHolder extends RecyclerView.ViewHolder {
 
-        private final TextView title, date, description; // TextViews for event details
+        private final TextView title, date; // TextViews for event details
+        private final AppCompatTextView description; // Description, laid out off the main thread
+        private final PrecomputedTextCompat.Params descriptionParams; // Text metrics the description is laid out with
+        private Event boundEvent; // Event currently bound to this holder
 
         /**
          * Constructor for EventViewHolder.
          *
          * @param itemView The view of the event item.
+         * @param clickListener The listener notified when the item is clicked.
          */
-        public EventViewHolder(View itemView) {
+        public EventViewHolder(View itemView, OnItemClickListener clickListener) {
             super(itemView);
-            CardView eventContainer = itemView.findViewById(R.id.event_container);
             title = itemView.findViewById(R.id.eventTitle);
             date = itemView.findViewById(R.id.eventDate);
             description = itemView.findViewById(R.id.eventDescription);
+            descriptionParams = description.getTextMetricsParamsCompat();
 
-            // Set click listener for the event container
-            eventContainer.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onItemClick(getItem(position));
+            // Set click listener for the event container, which is the item view itself
+            itemView.setOnClickListener(v -> {
+                if (boundEvent != null && getBindingAdapterPosition() != RecyclerView.NO_POSITION) {
+                    clickListener.onItemClick(boundEvent);
                 }
             });
         }
@@ -107,22 +234,169 @@ public class EventAdapter extends ListAdapter<Event, EventAdapter.EventViewHolde
          * @param event The event to bind.
          */
         public void bind(Event event) {
+            boundEvent = event;
             title.setText(event.getTitle());
-            date.setText(event.getDate());
-            description.setText(event.getDescription());
+            date.setText(EventDateCodec.getInstance().format(event.getDate()));
+            setDescription(event.getDescription());
+        }
+
+        /**
+         * Rebinds only the views whose text changed.
+         *
+         * @param event The updated event.
+         * @param changes The CHANGED_ bits of the fields that differ from the bound event.
+         */
+        public void bindChanges(Event event, int changes) {
+            boundEvent = event;
+            if ((changes & CHANGED_TITLE) != 0) {
+                title.setText(event.getTitle());
+            }
+            if ((changes & CHANGED_DATE) != 0) {
+                date.setText(EventDateCodec.getInstance().format(event.getDate()));
+            }
+            if ((changes & CHANGED_DESCRIPTION) != 0) {
+                setDescription(event.getDescription());
+            }
+        }
+
+        /**
+         * Starts laying out the description on a background thread. Binding happens while the
+         * item is prefetched, so the layout is usually done by the time the item is measured.
+         */
+        private void setDescription(String text) {
+            if (text == null || text.isEmpty()) {
+                // Drop any future still pending from an earlier bind, or measuring would apply it
+                description.setTextFuture(null);
+                description.setText(text);
+            } else {
+                description.setTextFuture(PrecomputedTextCompat.getTextFuture(text, descriptionParams, null));
+            }
         }
     }
 
-    // DiffUtil callback for calculating the difference between old and new lists
-    private static final DiffUtil.ItemCallback<Event> DIFF_CALLBACK = new DiffUtil.ItemCallback<Event>() {
+    /**
+     * ViewHolder class for month headers.
+     */
+    public static class HeaderViewHolder extends RecyclerView.ViewHolder {
+
+        private static final String HEADER_PATTERN = "MMMM yyyy"; // Display format for months, e.g. "June 2024"
+
+        private final TextView label; // TextView for the month
+        private final DateTimeFormatter formatter; // Formatter for the month, in the current locale
+
+        /**
+         * Constructor for HeaderViewHolder.
+         *
+         * @param itemView The view of the header.
+         */
+        public HeaderViewHolder(View itemView) {
+            super(itemView);
+            label = itemView.findViewById(R.id.eventHeader);
+            formatter = DateTimeFormatter.ofPattern(HEADER_PATTERN, Locale.getDefault());
+        }
+
+        /**
+         * Binds a month to the header.
+         *
+         * @param month The month to show.
+         */
+        public void bind(YearMonth month) {
+            label.setText(formatter.format(month));
+        }
+    }
+
+    /**
+     * Gives each month header an ID. Event IDs are never negative, so header IDs are.
+     *
+     * @param month The month of the header.
+     * @return The stable ID of the header.
+     */
+    static long headerIdOf(YearMonth month) {
+        return -1L - (month.getYear() * 12L + month.getMonthValue() - 1);
+    }
+
+    /**
+     * Gives each list item an ID that stays the same across updates. Occurrences of a recurring
+     * series share its ID, so they also carry their date; series IDs are positive, which keeps
+     * them above every plain event ID.
+     *
+     * @param event The event of the item.
+     * @return The stable ID of the item.
+     */
+    static long stableIdOf(Event event) {
+        if (!event.isRecurring()) {
+            return event.getId();
+        }
+        return (long) event.getId() << 32 | (event.getDate() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Merges the payloads of several updates to one item, which RecyclerView delivers together.
+     *
+     * @param payloads The payloads from getChangePayload.
+     * @return The combined CHANGED_ bits.
+     */
+    static int changesOf(List<Object> payloads) {
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        return changes;
+    }
+
+    // DiffUtil callback for the grouped items: headers match by month, events as in DIFF_CALLBACK
+    static final DiffUtil.ItemCallback<EventSections.Item> ITEM_CALLBACK = new DiffUtil.ItemCallback<EventSections.Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull EventSections.Item oldItem, @NonNull EventSections.Item newItem) {
+            if (oldItem.isHeader() || newItem.isHeader()) {
+                return oldItem.isHeader() && newItem.isHeader() && oldItem.month.equals(newItem.month);
+            }
+            return DIFF_CALLBACK.areItemsTheSame(oldItem.event, newItem.event);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull EventSections.Item oldItem, @NonNull EventSections.Item newItem) {
+            // A header shows nothing but its month, which areItemsTheSame already compared
+            return oldItem.isHeader() || DIFF_CALLBACK.areContentsTheSame(oldItem.event, newItem.event);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull EventSections.Item oldItem, @NonNull EventSections.Item newItem) {
+            return oldItem.isHeader() ? null : DIFF_CALLBACK.getChangePayload(oldItem.event, newItem.event);
+        }
+    };
+
+    // DiffUtil callback for calculating the difference between old and new lists of events
+    static final DiffUtil.ItemCallback<Event> DIFF_CALLBACK = new DiffUtil.ItemCallback<Event>() {
         @Override
         public boolean areItemsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
-            return oldItem.getId() == newItem.getId();
+            // Occurrences of a recurring series share its ID, so the date tells them apart
+            return oldItem.getId() == newItem.getId()
+                    && (!oldItem.isRecurring() && !newItem.isRecurring() || oldItem.getDate() == newItem.getDate());
         }
 
         @Override
         public boolean areContentsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
-            return oldItem.equals(newItem);
+            // Every update bumps the row version, so equal versions mean equal rows
+            return oldItem.getVersion() == newItem.getVersion();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Event oldItem, @NonNull Event newItem) {
+            // Only called for changed items, so comparing the fields here stays off the common path
+            int changes = 0;
+            if (!Objects.equals(oldItem.getTitle(), newItem.getTitle())) {
+                changes |= CHANGED_TITLE;
+            }
+            if (oldItem.getDate() != newItem.getDate()) {
+                changes |= CHANGED_DATE;
+            }
+            if (!Objects.equals(oldItem.getDescription(), newItem.getDescription())) {
+                changes |= CHANGED_DESCRIPTION;
+            }
+            return changes;
         }
     };
 }
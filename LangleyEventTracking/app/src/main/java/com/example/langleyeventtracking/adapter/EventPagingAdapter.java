@@ -0,0 +1,88 @@
+package com.example.langleyeventtracking.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+
+import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.util.List;
+
+import kotlinx.coroutines.Dispatchers;
+import kotlinx.coroutines.ExecutorsKt;
+
+/**
+ * Event Paging Adapter
+ * <p>
+ * The EventPagingAdapter class is the paged counterpart of EventAdapter.
+ * It includes:
+ * - Binding pages of events delivered by the Paging library to the shared EventViewHolder.
+ * - Handling click events on individual items.
+ * - Diffing pages on the same background thread and with the same change payloads as EventAdapter.
+ * - Inflating into the view pool shared with EventAdapter; PagingDataAdapter does not support
+ *   stable IDs, so items are matched by the shared DiffUtil callback alone.
+ * <p>
+ * This class is used for users with many events, so only the loaded pages are kept in memory.
+ *
+ * @author Joseph Langley
+ */
+public class EventPagingAdapter extends PagingDataAdapter<Event, EventAdapter.EventViewHolder> {
+
+    private final Context context; // Context for inflating the layout
+    private EventAdapter.OnItemClickListener listener; // Listener for handling item clicks
+
+    /**
+     * Constructor for EventPagingAdapter.
+     *
+     * @param context The context in which the adapter is used.
+     */
+    public EventPagingAdapter(@NonNull Context context) {
+        super(EventAdapter.DIFF_CALLBACK, Dispatchers.getMain(), ExecutorsKt.from(EventAdapter.DIFF_EXECUTOR));
+        this.context = context;
+    }
+
+    @NonNull
+    @Override
+    public EventAdapter.EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // Inflate the event layout and create a new ViewHolder
+        View itemView = LayoutInflater.from(context).inflate(R.layout.event_layout, parent, false);
+        return new EventAdapter.EventViewHolder(itemView, event -> {
+            if (listener != null) {
+                listener.onItemClick(event);
+            }
+        });
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull EventAdapter.EventViewHolder holder, int position) {
+        // Placeholders are disabled, but guard against a page that is not loaded yet
+        Event currentEvent = getItem(position);
+        if (currentEvent != null) {
+            holder.bind(currentEvent);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull EventAdapter.EventViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Event currentEvent = getItem(position);
+        if (payloads.isEmpty() || currentEvent == null) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindChanges(currentEvent, EventAdapter.changesOf(payloads));
+        }
+    }
+
+    /**
+     * Sets the listener for item clicks.
+     *
+     * @param listener The listener to set.
+     */
+    public void setOnItemClickListener(EventAdapter.OnItemClickListener listener) {
+        this.listener = listener;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.langleyeventtracking.adapter;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event Sections
+ * <p>
+ * The EventSections class turns a date-sorted list of events into list items with a header before each month.
+ * It includes:
+ * - The list items, each an event or a month header, both knowing the month they belong to.
+ * - Regrouping a new list incrementally: the unchanged events at the start and the end keep their items,
+ *   and only the range in between is grouped again.
+ * - An ungrouped mode that wraps events without headers, for lists that are not sorted by date.
+ * <p>
+ * This class is used by EventAdapter on its diffing thread. It is not thread-safe, so every regroup
+ * must run on that one thread.
+ *
+ * @author Joseph Langley
+ */
+final class EventSections {
+
+    private final boolean grouped; // Whether month headers are inserted
+    private List<Event> events = Collections.emptyList(); // Events of the last regroup
+    private List<Item> items = Collections.emptyList(); // Items of the last regroup
+    private int[] positions = new int[0]; // Item position of each event of the last regroup
+    private int lastRegrouped; // Number of events the last regroup had to group again
+
+    /**
+     * Constructor for EventSections.
+     *
+     * @param grouped Whether to insert a header before each month.
+     */
+    EventSections(boolean grouped) {
+        this.grouped = grouped;
+    }
+
+    /**
+     * Groups a new list of events. Events equal to those at the start or the end of the previous
+     * list reuse their items, so a single edit only groups the events between its old and new place.
+     *
+     * @param next The new events, sorted by date when grouped; null for none.
+     * @return The list items, a new list whenever the events changed.
+     */
+    List<Item> regroup(List<Event> next) {
+        if (next == null) {
+            next = Collections.emptyList();
+        }
+        int oldSize = events.size();
+        int newSize = next.size();
+        int limit = Math.min(oldSize, newSize);
+        int prefix = 0;
+        while (prefix < limit && events.get(prefix).equals(next.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix && events.get(oldSize - 1 - suffix).equals(next.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        if (prefix == oldSize && oldSize == newSize) {
+            events = next;
+            lastRegrouped = 0;
+            return items;
+        }
+
+        int end = newSize - suffix; // First event of the unchanged end
+        List<Item> result = new ArrayList<>(Math.max(items.size() + newSize - oldSize + 1, 0));
+        int[] nextPositions = new int[newSize];
+        YearMonth previous = null;
+
+        // Unchanged start: its items, headers included, stay as they were
+        if (prefix > 0) {
+            int last = positions[prefix - 1];
+            result.addAll(items.subList(0, last + 1));
+            System.arraycopy(positions, 0, nextPositions, 0, prefix);
+            previous = items.get(last).month;
+        }
+
+        // Changed range: group again
+        for (int i = prefix; i < end; i++) {
+            Event event = next.get(i);
+            YearMonth month = monthOf(event);
+            if (grouped && !month.equals(previous)) {
+                result.add(new Item(null, month));
+            }
+            nextPositions[i] = result.size();
+            result.add(new Item(event, month));
+            previous = month;
+        }
+
+        // Unchanged end: only the header in front of it depends on the events before it
+        if (suffix > 0) {
+            int oldStart = oldSize - suffix;
+            int from = positions[oldStart];
+            YearMonth month = items.get(from).month;
+            if (grouped && !month.equals(previous)) {
+                result.add(new Item(null, month));
+            }
+            int shift = result.size() - from;
+            result.addAll(items.subList(from, items.size()));
+            for (int i = 0; i < suffix; i++) {
+                nextPositions[end + i] = positions[oldStart + i] + shift;
+            }
+        }
+
+        events = next;
+        items = result;
+        positions = nextPositions;
+        lastRegrouped = end - prefix;
+        return result;
+    }
+
+    /**
+     * Gets how many events the last regroup had to group again.
+     *
+     * @return The number of events outside the unchanged start and end.
+     */
+    int getLastRegrouped() {
+        return lastRegrouped;
+    }
+
+    /**
+     * Gets the month an event falls in.
+     *
+     * @param event The event.
+     * @return The month of its date.
+     */
+    static YearMonth monthOf(Event event) {
+        return YearMonth.from(LocalDate.ofEpochDay(event.getDate()));
+    }
+
+    /**
+     * List item: an event, or the header of a month when event is null.
+     */
+    static final class Item {
+
+        final Event event; // Event shown by the item, null for a header
+        final YearMonth month; // Month the item belongs to
+
+        Item(Event event, YearMonth month) {
+            this.event = event;
+            this.month = month;
+        }
+
+        /**
+         * Checks whether the item is a month header.
+         *
+         * @return True for a header, false for an event.
+         */
+        boolean isHeader() {
+            return event == null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.langleyeventtracking.adapter;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.time.YearMonth;
+
+/**
+ * Sticky Header Decoration
+ * <p>
+ * The StickyHeaderDecoration class pins the month header of the topmost event to the top of the list.
+ * It includes:
+ * - One header view of its own, bound again only when the top month changes.
+ * - Pushing the pinned header up as the next month's header scrolls into its place.
+ * - Drawing nothing while the RecyclerView shows another adapter, such as search results.
+ * <p>
+ * This class is used with the grouped EventAdapter.
+ *
+ * @author Joseph Langley
+ */
+public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final EventAdapter adapter; // Adapter whose month headers are pinned
+    private EventAdapter.HeaderViewHolder header; // Holder of the pinned header, created on first draw
+    private YearMonth boundMonth; // Month the pinned header shows
+    private int boundWidth; // List width the pinned header was measured for
+
+    /**
+     * Constructor for StickyHeaderDecoration.
+     *
+     * @param adapter The adapter whose month headers are pinned.
+     */
+    public StickyHeaderDecoration(@NonNull EventAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if (parent.getAdapter() != adapter || parent.getChildCount() == 0) {
+            return;
+        }
+        int topPosition = parent.getChildAdapterPosition(parent.getChildAt(0));
+        if (topPosition == RecyclerView.NO_POSITION || topPosition >= adapter.getItemCount()) {
+            return;
+        }
+        View headerView = headerFor(parent, adapter.getMonthAt(topPosition));
+        int height = headerView.getHeight();
+
+        // The next month's header pushes the pinned one up instead of sliding under it
+        int offset = 0;
+        for (int i = 1; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            if (child.getTop() >= height) {
+                break;
+            }
+            int position = parent.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION && adapter.getItemViewType(position) == EventAdapter.VIEW_TYPE_HEADER) {
+                offset = child.getTop() - height;
+                break;
+            }
+        }
+
+        int save = canvas.save();
+        canvas.translate(parent.getPaddingLeft(), parent.getPaddingTop() + offset);
+        headerView.draw(canvas);
+        canvas.restoreToCount(save);
+    }
+
+    /**
+     * Gets the pinned header view showing a month, measured for the list's width.
+     */
+    private View headerFor(RecyclerView parent, YearMonth month) {
+        if (header == null) {
+            header = (EventAdapter.HeaderViewHolder) adapter.onCreateViewHolder(parent, EventAdapter.VIEW_TYPE_HEADER);
+        }
+        View headerView = header.itemView;
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (!month.equals(boundMonth) || width != boundWidth) {
+            header.bind(month);
+            ViewGroup.LayoutParams params = headerView.getLayoutParams();
+            int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+            int heightSpec = ViewGroup.getChildMeasureSpec(
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED), 0, params.height);
+            headerView.measure(widthSpec, heightSpec);
+            headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
+            boundMonth = month;
+            boundWidth = width;
+        }
+        return headerView;
+    }
+}
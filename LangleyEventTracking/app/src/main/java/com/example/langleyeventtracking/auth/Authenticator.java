@@ -0,0 +1,156 @@
+package com.example.langleyeventtracking.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.EventWriteQueue;
+import com.example.langleyeventtracking.data.dao.UserDao;
+import com.example.langleyeventtracking.data.models.User;
+import com.example.langleyeventtracking.diagnostics.LatencyHistogram;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticator
+ * <p>
+ * The Authenticator class checks credentials and hashes new passwords off the main thread.
+ * It includes:
+ * - Logins that look the user up by the indexed email only, then verify the password hash.
+ * - A PBKDF2 work factor calibrated once per device build to about TARGET_MILLIS per hash.
+ * - Transparent rehashing after a successful login, which migrates legacy plaintext passwords
+ *   and raises the work factor of older hashes.
+ * - Login latency percentiles, logged every few logins.
+ * <p>
+ * Unknown emails are checked against a dummy hash, so a failed login takes as long either way.
+ * Hashing is CPU bound, so all of it runs on one background thread.
+ *
+ * @author Joseph Langley
+ */
+public class Authenticator {
+
+    private static final String TAG = "Authenticator";
+    private static final String PREFERENCES = "com.example.langleyeventtracking"; // Shared preferences file
+    private static final String KEY_ITERATIONS = "password_iterations"; // Calibrated work factor
+    private static final String KEY_CALIBRATED_FOR = "password_calibrated_for"; // Build the work factor was measured on
+    private static final long TARGET_MILLIS = 250; // Target time of one password check
+    private static final int SUMMARY_EVERY = 10; // Logins between latency log lines
+
+    private static Authenticator instance; // Singleton instance, one hashing thread per process
+
+    private final UserDao userDao; // Data Access Object for user lookups
+    private final EventWriteQueue writeQueue; // Commits rehashed passwords
+    private final SharedPreferences preferences; // Stores the calibrated work factor
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(); // Runs every hash and check
+    private final LatencyHistogram loginLatency = new LatencyHistogram("login"); // Time from lookup to verdict
+    private PasswordHasher hasher; // Calibrated on first use, only touched on the executor
+    private String dummyHash; // Checked for unknown emails, only touched on the executor
+
+    /**
+     * Gets the process-wide authenticator.
+     *
+     * @param context Any context; the application context is used.
+     * @return The singleton instance of the Authenticator.
+     */
+    public static synchronized Authenticator getInstance(Context context) {
+        if (instance == null) {
+            Context application = context.getApplicationContext();
+            EventAppDatabase database = EventAppDatabase.getInstance(application);
+            instance = new Authenticator(database.userDao(), EventWriteQueue.getInstance(database),
+                    application.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    private Authenticator(UserDao userDao, EventWriteQueue writeQueue, SharedPreferences preferences) {
+        this.userDao = userDao;
+        this.writeQueue = writeQueue;
+        this.preferences = preferences;
+        executor.execute(this::hasher); // Calibrate ahead of the first login
+    }
+
+    /**
+     * Checks an email and password.
+     *
+     * @param email The email typed by the user.
+     * @param password The password typed by the user.
+     * @return A future completed with the user, or with null if the credentials do not match.
+     */
+    public CompletableFuture<User> login(String email, String password) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            User user = userDao.findUserByEmail(email);
+            PasswordHasher hasher = hasher();
+            boolean matches;
+            if (user == null) {
+                hasher.verify(password, dummyHash);
+                matches = false;
+            } else {
+                matches = hasher.verify(password, user.getPassword());
+            }
+            loginLatency.record(System.nanoTime() - start);
+            if (loginLatency.count() % SUMMARY_EVERY == 0) {
+                Log.i(TAG, loginLatency.summary());
+            }
+            if (!matches) {
+                return null;
+            }
+            if (hasher.needsRehash(user.getPassword())) {
+                // Queued behind this login, so the user is not kept waiting for the second hash
+                int userId = user.getId();
+                executor.execute(() -> {
+                    String hash = hasher.hash(password);
+                    writeQueue.submit(() -> userDao.updatePassword(userId, hash));
+                });
+            }
+            return user;
+        }, executor);
+    }
+
+    /**
+     * Hashes a password for storage.
+     *
+     * @param password The password.
+     * @return A future completed with the value to store.
+     */
+    public CompletableFuture<String> hash(String password) {
+        return CompletableFuture.supplyAsync(() -> hasher().hash(password), executor);
+    }
+
+    /**
+     * Gets the login latency histogram.
+     *
+     * @return The histogram, updated on every login.
+     */
+    public LatencyHistogram getLoginLatency() {
+        return loginLatency;
+    }
+
+    /**
+     * Gets the hasher, calibrating the work factor if this build has not been measured yet.
+     * A restored backup or an OS update changes the build fingerprint and triggers a new calibration.
+     */
+    private PasswordHasher hasher() {
+        if (hasher == null) {
+            int iterations = preferences.getInt(KEY_ITERATIONS, 0);
+            if (iterations == 0 || !Build.FINGERPRINT.equals(preferences.getString(KEY_CALIBRATED_FOR, null))) {
+                long start = System.nanoTime();
+                iterations = PasswordHasher.calibrate(TimeUnit.MILLISECONDS.toNanos(TARGET_MILLIS));
+                preferences.edit()
+                        .putInt(KEY_ITERATIONS, iterations)
+                        .putString(KEY_CALIBRATED_FOR, Build.FINGERPRINT)
+                        .apply();
+                Log.i(TAG, "Calibrated " + iterations + " iterations in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            }
+            hasher = new PasswordHasher(iterations);
+            dummyHash = hasher.hash("dummy password");
+        }
+        return hasher;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.langleyeventtracking.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password Hasher
+ * <p>
+ * The PasswordHasher class turns passwords into salted PBKDF2-HMAC-SHA256 hashes and checks them.
+ * It includes:
+ * - Hashing with a random 16 byte salt and a configurable iteration count.
+ * - Self-describing stored values, "pbkdf2_sha256$iterations$salt$hash", so the work factor can change
+ *   without invalidating older hashes.
+ * - Constant-time verification, including of legacy plaintext values.
+ * - Deciding when a stored value should be rehashed, and calibrating the iteration count to a target time.
+ * <p>
+ * Hashing is deliberately slow; call it from a background thread.
+ *
+ * @author Joseph Langley
+ */
+public class PasswordHasher {
+
+    static final String PREFIX = "pbkdf2_sha256"; // Algorithm tag of stored values
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+    public static final int MIN_ITERATIONS = 50_000; // Floor even on slow devices
+    public static final int MAX_ITERATIONS = 2_000_000; // Ceiling so a fast calibration cannot lock users out on restore
+    private static final int CALIBRATION_ITERATIONS = 20_000; // Iterations timed per calibration round
+    private static final int CALIBRATION_ROUNDS = 3; // Fastest round is used, the first one also warms up the JIT
+
+    private final int iterations; // Work factor of new hashes
+    private final SecureRandom random = new SecureRandom(); // Salt source
+
+    /**
+     * Constructor for PasswordHasher.
+     *
+     * @param iterations The PBKDF2 iteration count of new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Gets the iteration count of new hashes.
+     *
+     * @return The iteration count.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The password.
+     * @return The value to store.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value. Values without the hash prefix are legacy
+     * plaintext passwords and are compared as they are.
+     *
+     * @param password The password typed by the user.
+     * @param stored The stored value.
+     * @return True if the password matches.
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            if (storedIterations < 1 || storedIterations > MAX_ITERATIONS * 4 || expected.length == 0) {
+                return false;
+            }
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations, expected.length * 8));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored value should be replaced after a successful login:
+     * it is plaintext, or hashed with fewer iterations than new hashes get.
+     *
+     * @param stored The stored value.
+     * @return True if the password should be hashed again.
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Checks whether a stored value is a hash rather than a legacy plaintext password.
+     *
+     * @param stored The stored value.
+     * @return True for hashes.
+     */
+    public static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * Finds the iteration count that makes one hash take about the target time on this device.
+     *
+     * @param targetNanos The target time of one hash in nanoseconds.
+     * @return The iteration count, rounded to a thousand and clamped to [MIN_ITERATIONS, MAX_ITERATIONS].
+     */
+    public static int calibrate(long targetNanos) {
+        byte[] salt = new byte[SALT_BYTES];
+        long fastest = Long.MAX_VALUE;
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", salt, CALIBRATION_ITERATIONS);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        double iterations = (double) CALIBRATION_ITERATIONS * targetNanos / Math.max(1, fastest);
+        long rounded = Math.round(iterations / 1000) * 1000;
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, rounded));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        return pbkdf2(password, salt, iterations, HASH_BYTES * 8);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int keyBits) {
+        char[] chars = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.langleyeventtracking.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.langleyeventtracking.data.models.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session Store
+ * <p>
+ * The SessionStore class remembers the logged in user between launches. It includes:
+ * - The user ID, first name and birthday that EventActivity needs, so no query runs before it starts.
+ * - A random session token and an expiry, extended every time the session is used.
+ * - Starting a session after login and clearing it on logout.
+ * <p>
+ * The session is kept in its own shared preferences file and cached in memory after the first read.
+ *
+ * @author Joseph Langley
+ */
+public class SessionStore {
+
+    private static final String PREFERENCES = "com.example.langleyeventtracking.session"; // Session preferences file
+    private static final String KEY_USER_ID = "user id";
+    private static final String KEY_FIRST_NAME = "first name";
+    private static final String KEY_BIRTHDAY = "birthday";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_EXPIRES_AT = "expires at";
+    private static final long LIFETIME_MILLIS = TimeUnit.DAYS.toMillis(30); // Idle time after which the user logs in again
+    private static final long REFRESH_MILLIS = TimeUnit.DAYS.toMillis(1); // Expiry is written at most this often
+
+    private static SessionStore instance; // Singleton instance
+
+    private final SharedPreferences preferences; // Backing store
+    private final SecureRandom random = new SecureRandom(); // Token source
+    private Session session; // Cached session, null when logged out
+    private boolean loaded; // Whether the preferences were read
+
+    /**
+     * Gets the process-wide session store.
+     *
+     * @param context Any context; the application context is used.
+     * @return The singleton instance of the SessionStore.
+     */
+    public static synchronized SessionStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionStore(context.getApplicationContext()
+                    .getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    private SessionStore(SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * Gets the current session, extending its expiry.
+     *
+     * @return The session, or null if nobody is logged in or the session expired.
+     */
+    public synchronized Session current() {
+        if (!loaded) {
+            session = read();
+            loaded = true;
+        }
+        long now = System.currentTimeMillis();
+        if (session == null) {
+            return null;
+        }
+        if (session.expiresAt <= now) {
+            clear();
+            return null;
+        }
+        if (session.expiresAt - now < LIFETIME_MILLIS - REFRESH_MILLIS) {
+            session = new Session(session.userId, session.firstName, session.birthday, session.token, now + LIFETIME_MILLIS);
+            preferences.edit().putLong(KEY_EXPIRES_AT, session.expiresAt).apply();
+        }
+        return session;
+    }
+
+    /**
+     * Starts a session for a user who just logged in, replacing any earlier one.
+     *
+     * @param user The user.
+     * @return The new session.
+     */
+    public synchronized Session start(User user) {
+        byte[] token = new byte[32];
+        random.nextBytes(token);
+        String firstName = user.getName() != null ? user.getName().split(" ")[0] : "";
+        session = new Session(user.getId(), firstName, user.getBirthday(),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(token),
+                System.currentTimeMillis() + LIFETIME_MILLIS);
+        loaded = true;
+        preferences.edit()
+                .putInt(KEY_USER_ID, session.userId)
+                .putString(KEY_FIRST_NAME, session.firstName)
+                .putString(KEY_BIRTHDAY, session.birthday)
+                .putString(KEY_TOKEN, session.token)
+                .putLong(KEY_EXPIRES_AT, session.expiresAt)
+                .apply();
+        return session;
+    }
+
+    /**
+     * Ends the current session.
+     */
+    public synchronized void clear() {
+        session = null;
+        loaded = true;
+        preferences.edit().clear().apply();
+    }
+
+    private Session read() {
+        String token = preferences.getString(KEY_TOKEN, null);
+        int userId = preferences.getInt(KEY_USER_ID, -1);
+        if (token == null || userId == -1) {
+            return null;
+        }
+        return new Session(userId, preferences.getString(KEY_FIRST_NAME, ""), preferences.getString(KEY_BIRTHDAY, null),
+                token, preferences.getLong(KEY_EXPIRES_AT, 0));
+    }
+
+    /**
+     * Session
+     * <p>
+     * Immutable details of a logged in user.
+     */
+    public static final class Session {
+
+        public final int userId; // ID of the logged in user
+        public final String firstName; // First name shown in the welcome title
+        public final String birthday; // Birthday used for the birthday event
+        public final String token; // Random token identifying this login
+        public final long expiresAt; // Epoch milliseconds after which the user has to log in again
+
+        Session(int userId, String firstName, String birthday, String token, long expiresAt) {
+            this.userId = userId;
+            this.firstName = firstName;
+            this.birthday = birthday;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.langleyeventtracking.data;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Cached Events LiveData
+ * <p>
+ * The CachedEventsLiveData class exposes one user's events from the EventCache as LiveData.
+ * It includes:
+ * - Keeping its value when an observer becomes active and the cached snapshot has not changed.
+ * - Loading on a background executor on a miss.
+ * - Reloading after every invalidation that changes the user's events while it has active observers.
+ * - Merging the writes still pending in PendingEventWrites, so saves and deletes show before they reach the disk.
+ * - Expanding recurring series into their occurrences for the coming year, merged with one-off events.
+ * <p>
+ * This class is returned by EventAppRepository.getEventsForUser.
+ *
+ * @author Joseph Langley
+ */
+public class CachedEventsLiveData extends LiveData<List<Event>> {
+
+    private static final int WINDOW_DAYS = 365; // Days ahead of today that series are expanded for
+
+    private final EventCache cache; // Shared per-user event cache
+    private final PendingEventWrites pendingWrites; // Writes merged over the cached snapshot
+    private final int userId; // ID of the user whose events are observed
+    private final Executor executor; // Executor that runs cache misses
+    private final OccurrenceExpander expander = OccurrenceExpander.getInstance(); // Shared occurrence cache
+    private final Runnable reload = this::load; // Invalidation listener, kept for removal
+    private volatile List<Event> source; // Cached snapshot the current value was expanded from
+    private volatile long mergedRevision = -1; // Pending writes revision the current value was merged with
+    private volatile long expandedOn; // Epoch day the current value was expanded on
+
+    /**
+     * Constructor for CachedEventsLiveData.
+     *
+     * @param cache The shared event cache.
+     * @param pendingWrites The shared overlay of pending writes.
+     * @param userId The ID of the user.
+     * @param executor The executor that runs database reads.
+     */
+    public CachedEventsLiveData(EventCache cache, PendingEventWrites pendingWrites, int userId, Executor executor) {
+        this.cache = cache;
+        this.pendingWrites = pendingWrites;
+        this.userId = userId;
+        this.executor = executor;
+    }
+
+    @Override
+    protected void onActive() {
+        cache.addInvalidationListener(userId, reload);
+        pendingWrites.addChangeListener(reload);
+        List<Event> cached = cache.peek(userId);
+        if (cached == null || cached != source || mergedRevision != pendingWrites.getRevision()
+                || expandedOn != LocalDate.now().toEpochDay()) {
+            load(); // Expansion allocates occurrences, so it stays off the main thread even on a hit
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        cache.removeInvalidationListener(userId, reload);
+        pendingWrites.removeChangeListener(reload);
+    }
+
+    private void load() {
+        executor.execute(() -> {
+            List<Event> events = cache.get(userId);
+            long revision = pendingWrites.getRevision();
+            // Merged before expansion, so a pending change to a series moves all of its occurrences
+            List<Event> merged = pendingWrites.apply(userId, events);
+            long today = LocalDate.now().toEpochDay();
+            List<Event> expanded = expander.expandForList(merged, today, today + WINDOW_DAYS);
+            source = events;
+            mergedRevision = revision;
+            expandedOn = today;
+            postValue(expanded);
+        });
+    }
+}
@@ -2,31 +2,58 @@ package com.example.langleyeventtracking.data;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.dao.OutboxDao;
 import com.example.langleyeventtracking.data.dao.UserDao;
 import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.data.models.EventFts;
+import com.example.langleyeventtracking.data.models.OutboxMessage;
 import com.example.langleyeventtracking.data.models.User;
+import com.example.langleyeventtracking.diagnostics.QueryTracer;
 
 /**
  * EventAppDatabase
  * <p>
  * The EventAppDatabase class is the main database for the application. It includes:
  * - Singleton pattern to ensure only one instance of the database is created.
- * - Abstract methods to get the DAO interfaces.
+ * - Methods to get the DAO interfaces, traced by QueryTracer in the app's database.
+ * - Schema migrations from EventAppMigrations so existing data is preserved on upgrade.
+ * - An open callback that gives new and recreated databases the same partial event indexes as migrated ones.
+ * - A query callback reporting each statement to QueryTracer on the thread that runs it.
  * <p>
  * This class is used by Room to create and manage the database.
  *
  * @author Joseph Langley
  */
-@Database(entities = {User.class, Event.class}, version = 1, exportSchema = false)
+@Database(entities = {User.class, Event.class, EventFts.class, OutboxMessage.class}, version = 10, exportSchema = false)
 public abstract class EventAppDatabase extends RoomDatabase {
 
     private static EventAppDatabase instance; // Singleton instance of the database
 
+    private QueryTracer tracer; // Traces the DAOs of the app's database, null for other instances
+    private volatile UserDao userDao; // Traced UserDao, created on first use
+    private volatile EventDao eventDao; // Traced EventDao, created on first use
+    private volatile OutboxDao outboxDao; // Traced OutboxDao, created on first use
+
+    /**
+     * Replaces the full event indexes Room creates with the partial ones a migrated database has.
+     * Checked on open, since a destructive migration recreates the tables without calling onCreate.
+     */
+    public static final Callback PARTIAL_INDEXES = new Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            if (!EventAppMigrations.hasPartialEventIndices(db)) {
+                EventAppMigrations.createPartialEventIndices(db);
+            }
+        }
+    };
+
     /**
      * Gets the singleton instance of the EventAppDatabase.
      *
@@ -35,10 +62,21 @@ public abstract class EventAppDatabase extends RoomDatabase {
      */
     public static synchronized EventAppDatabase getInstance(Context context) {
         if (instance == null) {
-            instance = Room.databaseBuilder(context.getApplicationContext(),
+            QueryTracer tracer = QueryTracer.getInstance(context);
+            EventAppDatabase database = Room.databaseBuilder(context.getApplicationContext(),
                             EventAppDatabase.class, "event_app_database")
+                    .addMigrations(EventAppMigrations.MIGRATION_1_2, EventAppMigrations.MIGRATION_2_3,
+                            EventAppMigrations.MIGRATION_3_4, EventAppMigrations.MIGRATION_4_5,
+                            EventAppMigrations.MIGRATION_5_6, EventAppMigrations.MIGRATION_6_7,
+                            EventAppMigrations.MIGRATION_7_8, EventAppMigrations.MIGRATION_8_9,
+                            EventAppMigrations.MIGRATION_9_10)
+                    .addCallback(PARTIAL_INDEXES)
+                    // Run on the calling thread, so each statement is seen by the DAO call that ran it
+                    .setQueryCallback((sql, bindArgs) -> tracer.onStatement(sql), Runnable::run)
                     .fallbackToDestructiveMigration()
                     .build();
+            database.tracer = tracer;
+            instance = database;
         }
         return instance;
     }
@@ -48,12 +86,69 @@ public abstract class EventAppDatabase extends RoomDatabase {
      *
      * @return The UserDao.
      */
-    public abstract UserDao userDao();
+    public UserDao userDao() {
+        UserDao dao = userDao;
+        if (dao == null) {
+            dao = trace(UserDao.class, createUserDao());
+            userDao = dao;
+        }
+        return dao;
+    }
 
     /**
      * Gets the EventDao.
      *
      * @return The EventDao.
      */
-    public abstract EventDao eventDao();
+    public EventDao eventDao() {
+        EventDao dao = eventDao;
+        if (dao == null) {
+            dao = trace(EventDao.class, createEventDao());
+            eventDao = dao;
+        }
+        return dao;
+    }
+
+    /**
+     * Gets the OutboxDao.
+     *
+     * @return The OutboxDao.
+     */
+    public OutboxDao outboxDao() {
+        OutboxDao dao = outboxDao;
+        if (dao == null) {
+            dao = trace(OutboxDao.class, createOutboxDao());
+            outboxDao = dao;
+        }
+        return dao;
+    }
+
+    /**
+     * Gets the UserDao generated by Room.
+     *
+     * @return The untraced UserDao.
+     */
+    protected abstract UserDao createUserDao();
+
+    /**
+     * Gets the EventDao generated by Room.
+     *
+     * @return The untraced EventDao.
+     */
+    protected abstract EventDao createEventDao();
+
+    /**
+     * Gets the OutboxDao generated by Room.
+     *
+     * @return The untraced OutboxDao.
+     */
+    protected abstract OutboxDao createOutboxDao();
+
+    /**
+     * Wraps a DAO in the tracer, if this database has one. Two threads racing here may both wrap it,
+     * which is harmless since the wrappers share the DAO and the tracer.
+     */
+    private <T> T trace(Class<T> daoType, T dao) {
+        return tracer != null ? tracer.wrap(daoType, dao) : dao;
+    }
 }
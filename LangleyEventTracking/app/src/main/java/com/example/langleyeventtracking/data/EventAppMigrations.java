@@ -0,0 +1,263 @@
+package com.example.langleyeventtracking.data;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * EventAppMigrations
+ * <p>
+ * The EventAppMigrations class holds the schema migrations for the EventAppDatabase.
+ * It includes:
+ * - Version 1 to 2: Converts event dates from "MMMM dd, yyyy" text to epoch days and
+ *   adds the (user id, date) index.
+ * - Version 2 to 3: Merges duplicate accounts into the oldest one and adds a unique index on users.email.
+ * - Version 3 to 4: Adds the events_fts full-text index and the triggers that keep it in sync.
+ * - Version 4 to 5: Adds the recurrence column and the (user id, recurrence) index.
+ * - Version 5 to 6: Adds the reminders column.
+ * - Version 6 to 7: Adds the sms_outbox table.
+ * - Version 7 to 8: Adds the users digest cutoff column.
+ * - Version 8 to 9: Adds the events version column.
+ * - Version 9 to 10: Adds the events deleted at column, and makes the event indexes partial so
+ *   tombstones stay out of the live ones.
+ * <p>
+ * This class is used by EventAppDatabase so existing user data survives schema changes.
+ *
+ * @author Joseph Langley
+ */
+public final class EventAppMigrations {
+
+    private static final String LEGACY_DATE_PATTERN = "MMMM dd, yyyy"; // Format used by version 1
+
+    private EventAppMigrations() {
+    }
+
+    /**
+     * Migration from version 1 to 2.
+     * Rebuilds the events table with an INTEGER date column, parsing each existing row.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `events_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`title` TEXT, `date` INTEGER NOT NULL, `description` TEXT, `user id` INTEGER NOT NULL)");
+
+            SupportSQLiteStatement insert = db.compileStatement(
+                    "INSERT INTO `events_new` (`id`, `title`, `date`, `description`, `user id`) VALUES (?, ?, ?, ?, ?)");
+            long today = LocalDate.now().toEpochDay();
+
+            try (Cursor cursor = db.query("SELECT `id`, `title`, `date`, `description`, `user id` FROM `events`")) {
+                while (cursor.moveToNext()) {
+                    insert.clearBindings();
+                    insert.bindLong(1, cursor.getLong(0));
+                    bindStringOrNull(insert, 2, cursor.getString(1));
+                    // Rows that cannot be parsed are kept and moved to today so the user can fix them
+                    insert.bindLong(3, parseLegacyDate(cursor.getString(2), today));
+                    bindStringOrNull(insert, 4, cursor.getString(3));
+                    insert.bindLong(5, cursor.getLong(4));
+                    insert.executeInsert();
+                }
+            }
+
+            db.execSQL("DROP TABLE `events`");
+            db.execSQL("ALTER TABLE `events_new` RENAME TO `events`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_user_id_date` ON `events` (`user id`, `date`)");
+        }
+    };
+
+    /**
+     * Migration from version 2 to 3.
+     * Drops duplicate accounts (keeping the oldest per email) so the unique email index can be created.
+     * Their events are moved to the kept account first, so none are left pointing at a dropped one.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE `events` SET `user id` = (SELECT MIN(`kept`.`id`) FROM `users` AS `kept` "
+                    + "JOIN `users` AS `duplicate` ON `kept`.`email` IS `duplicate`.`email` "
+                    + "WHERE `duplicate`.`id` = `events`.`user id`) "
+                    + "WHERE `user id` IN (SELECT `id` FROM `users` "
+                    + "WHERE `id` NOT IN (SELECT MIN(`id`) FROM `users` GROUP BY `email`))");
+            db.execSQL("DELETE FROM `users` WHERE `id` NOT IN (SELECT MIN(`id`) FROM `users` GROUP BY `email`)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+        }
+    };
+
+    /**
+     * Migration from version 3 to 4.
+     * Creates the external content FTS4 table with the same sync triggers Room creates for new
+     * databases, then builds the index from the existing events.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `events_fts` USING FTS4("
+                    + "`title` TEXT, `description` TEXT, tokenize=unicode61, content=`events`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_BEFORE_UPDATE BEFORE UPDATE ON `events` "
+                    + "BEGIN DELETE FROM `events_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_BEFORE_DELETE BEFORE DELETE ON `events` "
+                    + "BEGIN DELETE FROM `events_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_AFTER_UPDATE AFTER UPDATE ON `events` "
+                    + "BEGIN INSERT INTO `events_fts`(`docid`, `title`, `description`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_events_fts_AFTER_INSERT AFTER INSERT ON `events` "
+                    + "BEGIN INSERT INTO `events_fts`(`docid`, `title`, `description`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+            db.execSQL("INSERT INTO `events_fts`(`events_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Migration from version 4 to 5.
+     * Existing events become one-off events, with a NULL recurrence.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `events` ADD COLUMN `recurrence` TEXT");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_events_user_id_recurrence` ON `events` (`user id`, `recurrence`)");
+        }
+    };
+
+    /**
+     * Migration from version 5 to 6.
+     * Existing events keep the default reminder, with a NULL reminders value.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `events` ADD COLUMN `reminders` TEXT");
+        }
+    };
+
+    /**
+     * Migration from version 6 to 7.
+     * Creates the SMS outbox with the same table and indices Room creates for new databases.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sms_outbox` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`idempotency key` TEXT, `phone` TEXT, `body` TEXT, `status` INTEGER NOT NULL, "
+                    + "`attempts` INTEGER NOT NULL, `next attempt at` INTEGER NOT NULL, `created at` INTEGER NOT NULL, "
+                    + "`last error` TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_sms_outbox_idempotency_key` "
+                    + "ON `sms_outbox` (`idempotency key`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_sms_outbox_status_next_attempt_at` "
+                    + "ON `sms_outbox` (`status`, `next attempt at`)");
+        }
+    };
+
+    /**
+     * Migration from version 7 to 8.
+     * Adds the digest cutoff column; existing users get the 8:00 AM default.
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `users` ADD COLUMN `digest cutoff` INTEGER NOT NULL DEFAULT 480");
+        }
+    };
+
+    /**
+     * Migration from version 8 to 9.
+     * Adds the row version column; existing events start at version 0.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `events` ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Migration from version 9 to 10.
+     * Adds the deleted at column; existing events are live. The event indexes are rebuilt as partial indexes.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `events` ADD COLUMN `deleted at` INTEGER");
+            createPartialEventIndices(db);
+        }
+    };
+
+    /**
+     * Creates the event indexes as partial indexes: the (user id, date) and (user id, recurrence)
+     * indexes cover live events only, which every list query asks for, and the deleted at index
+     * covers tombstones only, for compaction. Room validates index names and columns but not their
+     * WHERE clause, so this also runs whenever EventAppDatabase opens a database Room created itself.
+     *
+     * @param db The database to index.
+     */
+    static void createPartialEventIndices(SupportSQLiteDatabase db) {
+        db.execSQL("DROP INDEX IF EXISTS `index_events_user_id_date`");
+        db.execSQL("DROP INDEX IF EXISTS `index_events_user_id_recurrence`");
+        db.execSQL("DROP INDEX IF EXISTS `index_events_deleted_at`");
+        db.execSQL("CREATE INDEX `index_events_user_id_date` ON `events` (`user id`, `date`) "
+                + "WHERE `deleted at` IS NULL");
+        db.execSQL("CREATE INDEX `index_events_user_id_recurrence` ON `events` (`user id`, `recurrence`) "
+                + "WHERE `deleted at` IS NULL");
+        db.execSQL("CREATE INDEX `index_events_deleted_at` ON `events` (`deleted at`) "
+                + "WHERE `deleted at` IS NOT NULL");
+    }
+
+    /**
+     * Checks whether the event indexes are already the partial ones.
+     *
+     * @param db The database to check.
+     * @return True if all three event indexes have a WHERE clause.
+     */
+    static boolean hasPartialEventIndices(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND tbl_name = 'events' "
+                + "AND name IN ('index_events_user_id_date', 'index_events_user_id_recurrence', 'index_events_deleted_at') "
+                + "AND sql LIKE '% WHERE %'")) {
+            return cursor.moveToFirst() && cursor.getInt(0) == 3;
+        }
+    }
+
+    /**
+     * Parses a version 1 date string into an epoch day.
+     * Tries the device locale first, then English, since the text was written with the locale at the time.
+     *
+     * @param text The stored date text.
+     * @param fallback The epoch day to use when the text cannot be parsed.
+     * @return The parsed epoch day, or the fallback.
+     */
+    static long parseLegacyDate(String text, long fallback) {
+        if (text == null) {
+            return fallback;
+        }
+        for (Locale locale : new Locale[]{Locale.getDefault(), Locale.US}) {
+            SimpleDateFormat sdf = new SimpleDateFormat(LEGACY_DATE_PATTERN, locale);
+            sdf.setLenient(false);
+            try {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTime(sdf.parse(text.trim()));
+                return LocalDate.of(calendar.get(Calendar.YEAR),
+                        calendar.get(Calendar.MONTH) + 1,
+                        calendar.get(Calendar.DAY_OF_MONTH)).toEpochDay();
+            } catch (ParseException ignored) {
+                // Try the next locale
+            }
+        }
+        return fallback;
+    }
+
+    private static void bindStringOrNull(SupportSQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -3,13 +3,29 @@ package com.example.langleyeventtracking.data;
 import android.app.Application;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.example.langleyeventtracking.auth.Authenticator;
 import com.example.langleyeventtracking.data.dao.EventDao;
 import com.example.langleyeventtracking.data.dao.UserDao;
+import com.example.langleyeventtracking.data.io.EventExporter;
+import com.example.langleyeventtracking.data.io.EventImporter;
 import com.example.langleyeventtracking.data.models.Event;
 import com.example.langleyeventtracking.data.models.User;
+import com.example.langleyeventtracking.reminders.ReminderScheduler;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * EventAppRepository
@@ -18,6 +34,13 @@ import java.util.List;
  * It includes:
  * - Methods for interacting with event and user data.
  * - Abstracted database operations to keep the UI code clean.
+ * - Writes funneled through the single-writer EventWriteQueue, which batches them into transactions.
+ * - Per-user event lists served from the process-wide EventCache.
+ * - Optimistic writes: each write is shown in those lists at once through PendingEventWrites, and rolled back if it fails.
+ * - Soft deletes that leave a tombstone behind, so a delete can be undone.
+ * - Per-day event counts of a month from the MonthSummaryCache, with the days each write touches invalidated.
+ * - Starting the ReminderScheduler, which follows event changes on its own.
+ * - Logins and registrations through the Authenticator, which hashes passwords off the main thread.
  * <p>
  * This class is used to manage data operations and provides a way to access the DAOs.
  *
@@ -25,8 +48,23 @@ import java.util.List;
  */
 public class EventAppRepository {
 
+    // Paging tuning: pages of 50 rows, prefetch two pages ahead and keep at most 300 rows in memory
+    private static final PagingConfig PAGING_CONFIG = new PagingConfig(50, 100, false, 100, 300);
+    // Page queries and cache misses are short index seeks, so a small shared pool is enough for every reader
+    private static final ListeningExecutorService PAGING_EXECUTOR =
+            MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+    // Searches run one at a time, a newer query simply queues behind the one in flight
+    private static final Executor SEARCH_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final int SEARCH_LIMIT = 100; // Maximum number of search results
+
+    private final EventAppDatabase database; // Database used by the paging sources
     private final UserDao userDao; // Data Access Object for user operations
     private final EventDao eventDao; // Data Access Object for event operations
+    private final EventWriteQueue writeQueue; // Single writer that commits mutations in batches
+    private final EventCache eventCache; // Shared per-user event snapshots
+    private final PendingEventWrites pendingWrites; // Writes shown in the event lists before they are committed
+    private final MonthSummaryCache monthSummaries; // Shared per-day counts of recent months
+    private final Authenticator authenticator; // Hashes and checks passwords
 
     /**
      * Constructor for EventAppRepository.
@@ -34,55 +72,241 @@ public class EventAppRepository {
      * @param application The application context.
      */
     public EventAppRepository(Application application) {
-        EventAppDatabase db = EventAppDatabase.getInstance(application); // Get the database instance
-        userDao = db.userDao();
-        eventDao = db.eventDao();
+        database = EventAppDatabase.getInstance(application); // Get the database instance
+        userDao = database.userDao();
+        eventDao = database.eventDao();
+        writeQueue = EventWriteQueue.getInstance(database);
+        eventCache = EventCache.getInstance(database);
+        pendingWrites = PendingEventWrites.getInstance();
+        monthSummaries = MonthSummaryCache.getInstance(database);
+        authenticator = Authenticator.getInstance(application);
+        ReminderScheduler.getInstance(application); // Keeps the reminder alarm in step with the events table
     }
 
     /**
-     * Gets events for a specific user.
+     * Gets events for a specific user, served from the shared EventCache and reloaded when events change.
+     * Writes made through this repository show in the list as soon as they are submitted.
      *
      * @param userId The ID of the user.
      * @return A LiveData list of events for the specified user.
      */
     public LiveData<List<Event>> getEventsForUser(int userId) {
-        return eventDao.getEventsForUser(userId);
+        return new CachedEventsLiveData(eventCache, pendingWrites, userId, PAGING_EXECUTOR);
+    }
+
+    /**
+     * Gets the counters of the shared event cache.
+     *
+     * @return The current cache statistics.
+     */
+    public EventCache.Stats getEventCacheStats() {
+        return eventCache.getStats();
+    }
+
+    /**
+     * Gets events for a specific user as a stream of pages, loaded with (date, id) keyset cursors.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData stream of paged events for the specified user.
+     */
+    public LiveData<PagingData<Event>> getPagedEventsForUser(int userId) {
+        Pager<EventKeysetPagingSource.Position, Event> pager = new Pager<>(PAGING_CONFIG,
+                () -> new EventKeysetPagingSource(database, userId, PAGING_EXECUTOR));
+        return PagingLiveData.getLiveData(pager);
+    }
+
+    /**
+     * Gets a single event by its ID, updated whenever it changes.
+     *
+     * @param id The ID of the event.
+     * @return A LiveData object containing the event, or null once it is deleted.
+     */
+    public LiveData<Event> getEventById(int id) {
+        return eventDao.getEventById(id);
+    }
+
+    /**
+     * Counts the events of a specific user.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData object containing the number of events.
+     */
+    public LiveData<Integer> countEventsForUser(int userId) {
+        return eventDao.countEventsForUser(userId);
+    }
+
+    /**
+     * Gets events for a specific user between two dates (inclusive), including the occurrences
+     * of recurring series, and recomputes them whenever the events table changes.
+     *
+     * @param userId The ID of the user.
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return A LiveData list of events within the range.
+     */
+    public LiveData<List<Event>> getEventsBetween(int userId, long from, long to) {
+        return database.getInvalidationTracker().createLiveData(new String[]{"events"}, true,
+                () -> eventDao.getEventsBetween(userId, from, to));
+    }
+
+    /**
+     * Gets the next events for a specific user, starting today, including the occurrences of recurring series.
+     *
+     * @param userId The ID of the user.
+     * @param limit The maximum number of events to return.
+     * @return A LiveData list of upcoming events.
+     */
+    public LiveData<List<Event>> getUpcoming(int userId, int limit) {
+        long today = LocalDate.now().toEpochDay();
+        return database.getInvalidationTracker().createLiveData(new String[]{"events"}, true,
+                () -> eventDao.getUpcoming(userId, today, limit));
+    }
+
+    /**
+     * Gets how many events a user has on each day of a month. Cached months are delivered at once,
+     * and the months on either side are counted in the background.
+     *
+     * @param userId The ID of the user.
+     * @param month The month to summarize.
+     * @return A LiveData summary, updated after each write to the month.
+     */
+    public LiveData<MonthSummary> getMonthSummary(int userId, YearMonth month) {
+        return new MonthSummaryLiveData(monthSummaries, userId, month, PAGING_EXECUTOR);
+    }
+
+    /**
+     * Drops a user's cached month summaries, after events were written without going through this repository.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidateMonthSummaries(int userId) {
+        monthSummaries.invalidateUser(userId);
+    }
+
+    /**
+     * Searches a user's events by title and description, off the main thread.
+     *
+     * @param userId The ID of the user.
+     * @param query The text typed by the user.
+     * @return A future completed with the best matching events, best first.
+     */
+    public CompletableFuture<List<Event>> searchEvents(int userId, String query) {
+        return CompletableFuture.supplyAsync(() -> eventDao.searchEvents(userId, query, SEARCH_LIMIT), SEARCH_EXECUTOR);
+    }
+
+    /**
+     * Creates an importer that bulk loads events into this repository's database.
+     *
+     * @return A new EventImporter.
+     */
+    public EventImporter createImporter() {
+        return new EventImporter(database, writeQueue);
+    }
+
+    /**
+     * Creates an exporter that streams events out of this repository's database.
+     *
+     * @return A new EventExporter.
+     */
+    public EventExporter createExporter() {
+        return new EventExporter(database);
     }
 
     /**
      * Inserts a new event.
      *
      * @param event The event to insert.
+     * @return A future completed with the new event's ID once the insert is committed.
      */
-    public void insertEvent(Event event) {
-        new Thread(() -> eventDao.insertEvent(event)).start();
+    public CompletableFuture<Long> insertEvent(Event event) {
+        PendingEventWrites.Write pending = pendingWrites.insert(event);
+        return writeQueue.submit(() -> eventDao.insertEvent(event))
+                .whenComplete((id, error) -> {
+                    monthSummaries.invalidateEvent(null, event);
+                    settle(pending, id != null ? id : 0, error);
+                });
     }
 
     /**
      * Updates an existing event.
      *
      * @param event The event to update.
+     * @return A future completed once the update is committed.
      */
-    public void updateEvent(Event event) {
-        new Thread(() -> eventDao.updateEvent(event)).start();
+    public CompletableFuture<Integer> updateEvent(Event event) {
+        // The stored row tells which day the event moves away from
+        AtomicReference<Event> before = new AtomicReference<>();
+        PendingEventWrites.Write pending = pendingWrites.update(event);
+        return writeQueue.submit(() -> {
+            before.set(eventDao.findEventById(event.getId()));
+            return eventDao.updateEvent(event);
+        }).whenComplete((rows, error) -> {
+            monthSummaries.invalidateEvent(before.get(), event);
+            settle(pending, 0, error);
+        });
     }
 
     /**
-     * Deletes an event.
+     * Deletes an event. The row stays as a tombstone that restoreEvent can bring back until
+     * TombstoneCompactionWorker purges it.
      *
      * @param event The event to delete.
+     * @return A future completed once the delete is committed.
      */
-    public void deleteEvent(Event event) {
-        new Thread(() -> eventDao.deleteEvent(event)).start();
+    public CompletableFuture<Integer> deleteEvent(Event event) {
+        AtomicReference<Event> before = new AtomicReference<>();
+        PendingEventWrites.Write pending = pendingWrites.delete(event);
+        return writeQueue.submit(() -> {
+            before.set(eventDao.findEventById(event.getId()));
+            return eventDao.deleteEvent(event);
+        }).whenComplete((rows, error) -> {
+            monthSummaries.invalidateEvent(before.get(), null);
+            settle(pending, 0, error);
+        });
     }
 
     /**
-     * Inserts a new user.
+     * Restores a deleted event, as long as its tombstone has not been purged yet.
      *
-     * @param user The user to insert.
+     * @param event The event as it was before it was deleted.
+     * @return A future completed with the number of rows restored once the restore is committed.
      */
-    public void insertUser(User user) {
-        new Thread(() -> userDao.insertUser(user)).start();
+    public CompletableFuture<Integer> restoreEvent(Event event) {
+        PendingEventWrites.Write pending = pendingWrites.restore(event);
+        return writeQueue.submit(() -> eventDao.restoreEvent(event.getId()))
+                .whenComplete((rows, error) -> {
+                    monthSummaries.invalidateEvent(null, event);
+                    if (rows != null && rows == 0) {
+                        pendingWrites.rollBack(pending); // Already purged, there is nothing to bring back
+                    } else {
+                        settle(pending, 0, error);
+                    }
+                });
+    }
+
+    /**
+     * Keeps a committed write in the overlay until the reloaded list shows it, or rolls a failed one back.
+     */
+    private void settle(PendingEventWrites.Write pending, long rowId, Throwable error) {
+        if (error != null) {
+            pendingWrites.rollBack(pending);
+        } else {
+            pendingWrites.commit(pending, rowId);
+        }
+    }
+
+    /**
+     * Registers a new user, hashing the password on the Authenticator thread before the insert.
+     *
+     * @param user The user to insert; its password field is ignored.
+     * @param password The password chosen by the user.
+     * @return A future completed with the new user's ID once the insert is committed.
+     */
+    public CompletableFuture<Long> registerUser(User user, String password) {
+        return authenticator.hash(password).thenCompose(hash -> {
+            user.setPassword(hash);
+            return writeQueue.submit(() -> userDao.insertUser(user));
+        });
     }
 
     /**
@@ -96,13 +320,44 @@ public class EventAppRepository {
     }
 
     /**
-     * Gets a user by email and password.
+     * Checks off the main thread whether a user still exists, for example after a stored session outlived it.
+     *
+     * @param userId The ID of the user.
+     * @return A future completed with true if the user exists.
+     */
+    public CompletableFuture<Boolean> userExists(int userId) {
+        return CompletableFuture.supplyAsync(() -> userDao.getUserById(userId) != null, PAGING_EXECUTOR);
+    }
+
+    /**
+     * Checks an email and password off the main thread.
      *
      * @param email The email of the user.
      * @param password The password of the user.
-     * @return A LiveData object containing the user with the specified email and password.
+     * @return A future completed with the user, or with null if the credentials do not match.
+     */
+    public CompletableFuture<User> login(String email, String password) {
+        return authenticator.login(email, password);
+    }
+
+    /**
+     * Gets the time of day a user's daily digest is sent.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData object containing minutes after midnight, or -1 for no digest.
+     */
+    public LiveData<Integer> getDigestCutoff(int userId) {
+        return userDao.getDigestCutoff(userId);
+    }
+
+    /**
+     * Sets the time of day a user's daily digest is sent.
+     *
+     * @param userId The ID of the user.
+     * @param minutes Minutes after midnight, or -1 for no digest.
+     * @return A future completed once the update is committed.
      */
-    public LiveData<User> getUser(String email, String password) {
-        return userDao.getUser(email, password);
+    public CompletableFuture<Integer> setDigestCutoff(int userId, int minutes) {
+        return writeQueue.submit(() -> userDao.setDigestCutoff(userId, minutes));
     }
 }
@@ -0,0 +1,297 @@
+package com.example.langleyeventtracking.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.data.models.EventsFingerprint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event Cache
+ * <p>
+ * The EventCache class keeps recent per-user event lists in memory for the whole process.
+ * It includes:
+ * - Read-only snapshots of each user's events, shared by every reader without locking or copying.
+ * - A size bound with least-recently-used eviction.
+ * - Invalidation through Room's InvalidationTracker whenever the events table changes, dropping and
+ *   reloading only the users whose events fingerprint changed.
+ * - Hit, miss, eviction and invalidation counters.
+ * <p>
+ * This class is used by EventAppRepository so each new EventActivity reuses the list the
+ * previous one loaded instead of querying the database again.
+ * <p>
+ * The lists cannot be changed, and the Event objects in them are read-only by contract: they are
+ * shared by every observer of the user, so a reader that needs a changed event makes a new one,
+ * as EditEventFragment and PendingEventWrites do.
+ *
+ * @author Joseph Langley
+ */
+public class EventCache {
+
+    public static final int DEFAULT_MAX_USERS = 8; // Users whose events are kept at once
+
+    private static EventCache instance; // Singleton instance, one cache per process
+
+    private final EventAppDatabase database; // Database for the invalidation tracker
+    private final EventDao eventDao; // Data Access Object used on a miss
+    private final int maxUsers; // Maximum number of cached users
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>(); // Snapshots by user ID
+    private final Object evictionLock = new Object(); // Serializes evictions, reads never take it
+    private final AtomicLong generation = new AtomicLong(); // Incremented on every invalidation
+    private final AtomicLong accessClock = new AtomicLong(); // Logical clock for least-recently-used order
+    private final AtomicLong hits = new AtomicLong(); // Reads answered from memory
+    private final AtomicLong misses = new AtomicLong(); // Reads that queried the database
+    private final AtomicLong evictions = new AtomicLong(); // Snapshots dropped to respect the size bound
+    private final AtomicLong invalidations = new AtomicLong(); // Times the events table changed
+    private final Map<Integer, Set<Runnable>> invalidationListeners = new ConcurrentHashMap<>(); // Notified when a user's events change
+    private final AtomicBoolean observerRegistered = new AtomicBoolean(); // Whether the table observer is registered
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("events") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidateChanged();
+        }
+    };
+
+    /**
+     * Gets the process-wide event cache for the given database, using the default size bound.
+     *
+     * @param database The database to cache events from.
+     * @return The singleton instance of the EventCache.
+     */
+    public static synchronized EventCache getInstance(EventAppDatabase database) {
+        if (instance == null) {
+            instance = new EventCache(database, DEFAULT_MAX_USERS);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for EventCache.
+     *
+     * @param database The database to cache events from.
+     * @param maxUsers The maximum number of users whose events are kept at once.
+     */
+    public EventCache(EventAppDatabase database, int maxUsers) {
+        if (maxUsers < 1) {
+            throw new IllegalArgumentException("maxUsers must be at least 1");
+        }
+        this.database = database;
+        this.eventDao = database.eventDao();
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Gets a user's events, querying the database on a miss. Call it from a background thread.
+     *
+     * @param userId The ID of the user.
+     * @return A read-only list of the user's events, ordered by date. Do not change the events in it.
+     */
+    public List<Event> get(int userId) {
+        // Register lazily so the tracker's trigger sync happens off the main thread
+        if (observerRegistered.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+        }
+        List<Event> cached = peek(userId);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        long loadedGeneration = generation.get();
+        // Fingerprinted first, so a write between the two reads makes the next invalidation reload
+        String fingerprint = fingerprints(Collections.singleton(userId)).get(userId);
+        List<Event> events = Collections.unmodifiableList(eventDao.getEventsForUser(userId));
+        if (generation.get() == loadedGeneration) {
+            Entry entry = new Entry(events, fingerprint, accessClock.incrementAndGet());
+            entries.put(userId, entry);
+            // An invalidation that raced with the put must not leave the stale snapshot behind
+            if (generation.get() != loadedGeneration) {
+                entries.remove(userId, entry);
+            }
+            evictIfNeeded();
+        }
+        return events;
+    }
+
+    /**
+     * Gets a user's events only if they are cached. Safe to call from the main thread.
+     *
+     * @param userId The ID of the user.
+     * @return The cached read-only list, or null on a miss (the miss is counted by get()).
+     */
+    public List<Event> peek(int userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = accessClock.incrementAndGet();
+        hits.incrementAndGet();
+        return entry.events;
+    }
+
+    /**
+     * Drops the snapshots of the users whose events changed and notifies their listeners. Called by
+     * the InvalidationTracker when the events table changes; the tracker does not say which rows
+     * changed, so the cached and observed users are fingerprinted with one aggregate query.
+     */
+    public void invalidateChanged() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        Set<Integer> userIds = new HashSet<>(entries.keySet());
+        userIds.addAll(invalidationListeners.keySet());
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> current = fingerprints(userIds);
+        for (Integer userId : userIds) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                if (entry.fingerprint.equals(current.get(userId))) {
+                    continue;
+                }
+                entries.remove(userId, entry);
+            }
+            // Observers of an evicted user are reloaded too, their snapshot is not here to compare
+            Set<Runnable> listeners = invalidationListeners.get(userId);
+            if (listeners != null) {
+                for (Runnable listener : listeners) {
+                    listener.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers a callback run after each invalidation that changes a user's events, on the tracker's thread.
+     *
+     * @param userId The ID of the user.
+     * @param listener The callback to run.
+     */
+    public void addInvalidationListener(int userId, Runnable listener) {
+        invalidationListeners.computeIfAbsent(userId, key -> new CopyOnWriteArraySet<>()).add(listener);
+    }
+
+    /**
+     * Unregisters a callback added with addInvalidationListener.
+     *
+     * @param userId The ID of the user.
+     * @param listener The callback to remove.
+     */
+    public void removeInvalidationListener(int userId, Runnable listener) {
+        invalidationListeners.computeIfPresent(userId, (key, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return The current statistics.
+     */
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size());
+    }
+
+    /**
+     * Fingerprints the live events of some users, with an empty fingerprint for users without any.
+     */
+    private Map<Integer, String> fingerprints(Set<Integer> userIds) {
+        Map<Integer, String> fingerprints = new HashMap<>();
+        for (Integer userId : userIds) {
+            fingerprints.put(userId, "");
+        }
+        for (EventsFingerprint row : eventDao.getEventsFingerprints(new ArrayList<>(userIds))) {
+            fingerprints.put(row.getUserId(), row.getFingerprint());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Removes least recently used snapshots until the cache fits its bound.
+     */
+    private void evictIfNeeded() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxUsers) {
+                Map.Entry<Integer, Entry> oldest = null;
+                for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+                    if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                        oldest = candidate;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * A cached snapshot with its last access time.
+     */
+    private static final class Entry {
+
+        final List<Event> events; // Read-only snapshot of the user's events
+        final String fingerprint; // Fingerprint of the user's events taken before the snapshot was loaded
+        volatile long lastAccess; // Access clock value of the last read
+
+        Entry(List<Event> events, String fingerprint, long lastAccess) {
+            this.events = events;
+            this.fingerprint = fingerprint;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Stats
+     * <p>
+     * A point-in-time copy of the cache counters.
+     */
+    public static final class Stats {
+
+        public final long hits; // Reads answered from memory
+        public final long misses; // Reads that queried the database
+        public final long evictions; // Snapshots dropped to respect the size bound
+        public final long invalidations; // Times the events table changed
+        public final int size; // Users currently cached
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        /**
+         * @return The fraction of reads answered from memory, between 0 and 1.
+         */
+        public double hitRate() {
+            long reads = hits + misses;
+            return reads == 0 ? 0 : (double) hits / reads;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                    + " invalidations=" + invalidations + " size=" + size;
+        }
+    }
+}
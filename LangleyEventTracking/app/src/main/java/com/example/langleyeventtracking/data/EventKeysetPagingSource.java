@@ -0,0 +1,153 @@
+package com.example.langleyeventtracking.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * Event Keyset PagingSource
+ * <p>
+ * The EventKeysetPagingSource class loads a user's events page by page for the Paging library.
+ * It includes:
+ * - Keyset pagination on (date, id), so every page is an index seek instead of an OFFSET skip.
+ * - Prepend and append loads around a refresh anchor.
+ * - Invalidation through Room's InvalidationTracker when the events table changes.
+ * <p>
+ * This class is used by EventAppRepository to back the paged event list.
+ *
+ * @author Joseph Langley
+ */
+public class EventKeysetPagingSource extends ListenableFuturePagingSource<EventKeysetPagingSource.Position, Event> {
+
+    private final EventAppDatabase database; // Database for the invalidation tracker
+    private final EventDao eventDao; // Data Access Object for event queries
+    private final int userId; // ID of the user whose events are paged
+    private final ListeningExecutorService executor; // Executor that runs the page queries
+    private final AtomicBoolean observerRegistered = new AtomicBoolean(); // Whether the table observer is registered
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("events") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidate();
+        }
+    };
+
+    /**
+     * Constructor for EventKeysetPagingSource.
+     *
+     * @param database The event database.
+     * @param userId The ID of the user.
+     * @param executor The executor that runs the page queries.
+     */
+    public EventKeysetPagingSource(EventAppDatabase database, int userId, ListeningExecutorService executor) {
+        this.database = database;
+        this.eventDao = database.eventDao();
+        this.userId = userId;
+        this.executor = executor;
+        registerInvalidatedCallback(() -> {
+            database.getInvalidationTracker().removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Position, Event>> loadFuture(@NonNull LoadParams<Position> params) {
+        return executor.submit(() -> load(params));
+    }
+
+    /**
+     * Loads one page on the executor thread.
+     */
+    private LoadResult<Position, Event> load(LoadParams<Position> params) {
+        // Register lazily so the tracker's trigger sync happens off the main thread
+        if (observerRegistered.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+        }
+        try {
+            Position key = params.getKey();
+            int loadSize = params.getLoadSize();
+
+            if (params instanceof LoadParams.Prepend && key != null) {
+                List<Event> page = eventDao.getEventsBefore(userId, key.date, key.id, loadSize);
+                Collections.reverse(page);
+                Position prevKey = page.size() < loadSize ? null : Position.of(page.get(0));
+                Position nextKey = page.isEmpty() ? null : Position.of(page.get(page.size() - 1));
+                return new LoadResult.Page<>(page, prevKey, nextKey);
+            }
+
+            List<Event> page = key == null
+                    ? eventDao.getFirstEvents(userId, loadSize)
+                    : eventDao.getEventsAfter(userId, key.date, key.id, loadSize);
+            // A null key means the page starts at the first event, so there is nothing to prepend
+            Position prevKey = key == null ? null : page.isEmpty() ? key : Position.of(page.get(0));
+            Position nextKey = page.size() < loadSize ? null : Position.of(page.get(page.size() - 1));
+            return new LoadResult.Page<>(page, prevKey, nextKey);
+        } catch (Exception e) {
+            return new LoadResult.Error<>(e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Position getRefreshKey(@NonNull PagingState<Position, Event> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        Event anchor = state.closestItemToPosition(anchorPosition);
+        if (anchor == null) {
+            return null;
+        }
+        // Start just before the anchor so the refreshed page begins with the anchor event itself
+        return new Position(anchor.getDate(), anchor.getId() - 1);
+    }
+
+    /**
+     * Position
+     * <p>
+     * A (date, id) keyset position in the event order. Loads return the events strictly after
+     * (or, when prepending, strictly before) this position.
+     */
+    public static final class Position {
+
+        final long date; // Epoch day of the position
+        final int id; // Event ID of the position, breaking ties between events on the same day
+
+        Position(long date, int id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        static Position of(Event event) {
+            return new Position(event.getDate(), event.getId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Position position = (Position) o;
+            return date == position.date && id == position.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, id);
+        }
+    }
+}
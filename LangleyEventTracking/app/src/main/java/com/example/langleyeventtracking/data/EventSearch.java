@@ -0,0 +1,121 @@
+package com.example.langleyeventtracking.data;
+
+import java.util.Locale;
+
+/**
+ * Event Search
+ * <p>
+ * The EventSearch class turns user input into FTS4 queries and ranks their matches.
+ * It includes:
+ * - Building a MATCH expression where every word must match, as a prefix once it has two or more characters.
+ * - Building a query that scores each match in SQL from its matchinfo('pcx') counts, weighting
+ *   title hits above description hits, and returns only the best ones.
+ * <p>
+ * This class is used by EventDao.searchEvents, since FTS4 has no built-in ranking function.
+ * Ranking in SQL keeps the matches that do not make the cut out of memory.
+ *
+ * @author Joseph Langley
+ */
+public final class EventSearch {
+
+    private static final int MIN_PREFIX_LENGTH = 2; // Shorter words match exactly, a one-letter prefix hits most of the index
+    private static final double[] COLUMN_WEIGHTS = {2.0, 1.0}; // Weights of the title and description columns
+    private static final int MAX_SCORED_PHRASES = 8; // Further words still filter the results but add nothing to the score
+    private static final byte[] BYTE_VALUES = new byte[256]; // Every byte value at its own position
+
+    static {
+        for (int i = 0; i < BYTE_VALUES.length; i++) {
+            BYTE_VALUES[i] = (byte) i;
+        }
+    }
+
+    private EventSearch() {
+    }
+
+    /**
+     * Builds an FTS4 MATCH expression from free text. Punctuation is dropped and words are
+     * lower-cased, so user input can never be read as query syntax (AND, OR, NEAR, quotes, ...).
+     *
+     * @param query The text typed by the user.
+     * @return The MATCH expression, or null when the text has no searchable words.
+     */
+    public static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word);
+            if (word.length() >= MIN_PREFIX_LENGTH) {
+                match.append('*');
+            }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    /**
+     * Builds the ranked search query for a MATCH expression, to be bound with bindArgs.
+     * The score of each row is computed in SQL from its matchinfo('pcx') blob: for every phrase and
+     * column, the row's hits divided by the hits across all rows, so rare words count for more than
+     * common ones. Rows are ordered best first, then by date, and only the top ones are returned.
+     * <p>
+     * SQLite cannot read integers out of a blob, so each byte is decoded as its position in a bound
+     * blob holding every byte value once, and the native byte order of matchinfo is taken to be
+     * little-endian, as it is on every Android ABI.
+     *
+     * @param match The MATCH expression built by toMatchExpression.
+     * @return The SQL, with ?1 the byte table, ?2 the MATCH expression, ?3 the user ID and ?4 the limit.
+     */
+    public static String rankedQuery(String match) {
+        int phrases = Math.min(MAX_SCORED_PHRASES, match.split(" ").length);
+        StringBuilder score = new StringBuilder();
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < COLUMN_WEIGHTS.length; column++) {
+                int hits = 2 + 3 * (phrase * COLUMN_WEIGHTS.length + column);
+                if (score.length() > 0) {
+                    score.append(" + ");
+                }
+                score.append(String.format(Locale.ROOT, "%.1f * ", COLUMN_WEIGHTS[column]))
+                        .append(matchInfoInt(hits)).append(" / max(").append(matchInfoInt(hits + 1)).append(", 1)");
+            }
+        }
+        // Materialized so matchinfo runs once per row rather than once per byte read from it
+        return "WITH matches AS MATERIALIZED (SELECT events.id AS id, matchinfo(events_fts, 'pcx') AS info "
+                + "FROM events_fts CROSS JOIN events ON events.id = events_fts.docid "
+                + "WHERE events_fts MATCH ?2 AND events.`user id` = ?3 AND events.`deleted at` IS NULL) "
+                + "SELECT events.* FROM matches CROSS JOIN events ON events.id = matches.id "
+                + "ORDER BY " + score + " DESC, events.date, events.id LIMIT ?4";
+    }
+
+    /**
+     * Gets the arguments of the query built by rankedQuery, in order.
+     *
+     * @param match The MATCH expression the query was built for.
+     * @param userId The ID of the user whose events are searched.
+     * @param limit The maximum number of events to return.
+     * @return The arguments to bind.
+     */
+    public static Object[] bindArgs(String match, int userId, int limit) {
+        return new Object[]{BYTE_VALUES.clone(), match, userId, limit};
+    }
+
+    /**
+     * Builds the SQL reading the 32-bit integer at an index of the matchinfo blob.
+     */
+    private static String matchInfoInt(int index) {
+        StringBuilder value = new StringBuilder("(");
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                value.append(" + ").append(1 << (8 * i)).append(" * ");
+            }
+            value.append("(instr(?1, substr(matches.info, ").append(4 * index + i + 1).append(", 1)) - 1)");
+        }
+        return value.append(')').toString();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.langleyeventtracking.data;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event Write Queue
+ * <p>
+ * The EventWriteQueue class serializes every database mutation onto a single writer thread.
+ * It includes:
+ * - A queue of pending mutations drained by one long-lived thread.
+ * - Coalescing of queued mutations into one transaction per batch, bounded by a maximum
+ *   batch size and a linger time, so a burst of edits costs one commit instead of one per edit.
+ * - A CompletableFuture per mutation that completes once its batch is committed.
+ * <p>
+ * This class is used by EventAppRepository in place of spawning a thread per write.
+ *
+ * @author Joseph Langley
+ */
+public class EventWriteQueue {
+
+    private static final String TAG = "EventWriteQueue";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64; // Maximum mutations committed in one transaction
+    public static final long DEFAULT_LINGER_MILLIS = 10; // How long to wait for more mutations after the first
+
+    private static EventWriteQueue instance; // Singleton instance, one writer per process
+
+    private final RoomDatabase database; // Database the mutations are committed to
+    private final int maxBatchSize; // Maximum mutations per transaction
+    private final long lingerNanos; // Time to wait for a batch to fill up
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>(); // Mutations waiting to be committed
+
+    /**
+     * Gets the process-wide write queue for the given database, using the default batch settings.
+     *
+     * @param database The database to write to.
+     * @return The singleton instance of the EventWriteQueue.
+     */
+    public static EventWriteQueue getInstance(RoomDatabase database) {
+        return getInstance(database, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS);
+    }
+
+    /**
+     * Gets the process-wide write queue for the given database. The batch settings only apply
+     * if this call creates the queue.
+     *
+     * @param database The database to write to.
+     * @param maxBatchSize The maximum number of mutations committed in one transaction.
+     * @param lingerMillis How long the writer waits for more mutations before committing a batch.
+     * @return The singleton instance of the EventWriteQueue.
+     */
+    public static synchronized EventWriteQueue getInstance(RoomDatabase database, int maxBatchSize, long lingerMillis) {
+        if (instance == null) {
+            instance = new EventWriteQueue(database, maxBatchSize, lingerMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the maximum number of mutations committed in one transaction.
+     *
+     * @return The maximum batch size.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Gets how long the writer waits for more mutations before committing a batch.
+     *
+     * @return The linger time in milliseconds.
+     */
+    public long getLingerMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lingerNanos);
+    }
+
+    /**
+     * Constructor for EventWriteQueue. Starts the writer thread.
+     *
+     * @param database The database to write to.
+     * @param maxBatchSize The maximum number of mutations committed in one transaction.
+     * @param lingerMillis How long the writer waits for more mutations before committing a batch.
+     */
+    public EventWriteQueue(RoomDatabase database, int maxBatchSize, long lingerMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.database = database;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+
+        Thread writer = new Thread(this::drainLoop, "event-db-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a mutation. It runs on the writer thread inside a transaction shared with the
+     * other mutations of its batch.
+     *
+     * @param mutation The database work to run.
+     * @return A future completed with the mutation's result once its transaction commits,
+     * or exceptionally if the mutation fails.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> mutation) {
+        PendingWrite<T> write = new PendingWrite<>(mutation);
+        queue.add(write);
+        return write.future;
+    }
+
+    /**
+     * Writer thread loop: waits for a mutation, lingers briefly to collect more, then commits them together.
+     */
+    private void drainLoop() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                for (PendingWrite<?> write : batch) {
+                    write.fail(e);
+                }
+                Log.w(TAG, "Writer thread interrupted", e);
+                return;
+            } catch (Throwable e) {
+                // Keep the only writer alive, or every queued and future write would wait forever
+                Log.e(TAG, "Batch of " + batch.size() + " failed unexpectedly", e);
+                for (PendingWrite<?> write : batch) {
+                    write.fail(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Commits a batch in one transaction. If any mutation fails, the batch is rolled back and
+     * replayed one mutation per transaction so only the failing mutation reports an error.
+     * Errors are handled like exceptions, so a mutation throwing one fails only its own future.
+     */
+    private void commit(List<PendingWrite<?>> batch) {
+        try {
+            database.runInTransaction(() -> {
+                for (PendingWrite<?> write : batch) {
+                    write.run();
+                }
+            });
+        } catch (Throwable batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(batchFailure);
+                return;
+            }
+            Log.w(TAG, "Batch of " + batch.size() + " failed, retrying individually", batchFailure);
+            for (PendingWrite<?> write : batch) {
+                try {
+                    database.runInTransaction(write::run);
+                } catch (Throwable e) {
+                    write.fail(e);
+                    continue;
+                }
+                write.complete();
+            }
+            return;
+        }
+        for (PendingWrite<?> write : batch) {
+            write.complete();
+        }
+    }
+
+    /**
+     * A queued mutation together with its future and result.
+     */
+    private static final class PendingWrite<T> {
+
+        private final Callable<T> mutation; // Database work to run
+        private final CompletableFuture<T> future = new CompletableFuture<>(); // Completed after commit
+        private T result; // Result of the last run, published once the transaction commits
+
+        PendingWrite(Callable<T> mutation) {
+            this.mutation = mutation;
+        }
+
+        void run() {
+            try {
+                result = mutation.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+
+        void fail(Throwable error) {
+            // Unwrap checked exceptions wrapped by run()
+            Throwable cause = error.getClass() == RuntimeException.class && error.getCause() != null ? error.getCause() : error;
+            future.completeExceptionally(cause);
+        }
+    }
+}
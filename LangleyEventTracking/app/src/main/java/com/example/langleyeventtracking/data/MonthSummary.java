@@ -0,0 +1,94 @@
+package com.example.langleyeventtracking.data;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Month Summary
+ * <p>
+ * The MonthSummary class holds how many events a user has on each day of one month.
+ * It includes:
+ * - The count of every day, recurring occurrences included.
+ * - The month's total.
+ * - Copies with some days recounted, so a summary never changes once published.
+ * <p>
+ * This class is produced by MonthSummaryCache and drawn by the month grid.
+ *
+ * @author Joseph Langley
+ */
+public final class MonthSummary {
+
+    private final int userId; // ID of the user the counts belong to
+    private final YearMonth month; // Month the counts cover
+    private final int[] counts; // Event count of each day, index 0 being the 1st
+
+    /**
+     * Constructor for MonthSummary.
+     *
+     * @param userId The ID of the user.
+     * @param month The month covered.
+     * @param counts The event count of each day of the month; not copied, so do not modify it afterwards.
+     */
+    MonthSummary(int userId, YearMonth month, int[] counts) {
+        if (counts.length != month.lengthOfMonth()) {
+            throw new IllegalArgumentException("Expected " + month.lengthOfMonth() + " days, got " + counts.length);
+        }
+        this.userId = userId;
+        this.month = month;
+        this.counts = counts;
+    }
+
+    /**
+     * @return The ID of the user the counts belong to.
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return The month the counts cover.
+     */
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * Gets the number of events on a day of the month.
+     *
+     * @param dayOfMonth The day, from 1.
+     * @return The number of events on that day.
+     */
+    public int getCount(int dayOfMonth) {
+        return counts[dayOfMonth - 1];
+    }
+
+    /**
+     * @return The number of events in the whole month.
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Copies the summary with a run of days recounted.
+     *
+     * @param firstDay The first recounted day of the month, from 1.
+     * @param recounted The new counts of firstDay and the days after it.
+     * @param days Bit i set when day i + 1 takes its new count; days outside the bits keep theirs.
+     * @return The updated copy.
+     */
+    MonthSummary withCounts(int firstDay, int[] recounted, int days) {
+        int[] updated = Arrays.copyOf(counts, counts.length);
+        for (int i = 0; i < recounted.length; i++) {
+            int index = firstDay - 1 + i;
+            if ((days & (1 << index)) != 0) {
+                updated[index] = recounted[i];
+            }
+        }
+        return new MonthSummary(userId, month, updated);
+    }
+}
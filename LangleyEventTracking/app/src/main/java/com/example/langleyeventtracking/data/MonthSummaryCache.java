@@ -0,0 +1,247 @@
+package com.example.langleyeventtracking.data;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+
+/**
+ * Month Summary Cache
+ * <p>
+ * The MonthSummaryCache class keeps the per-day event counts of recently shown months in memory.
+ * It includes:
+ * - A small least-recently-used map of month summaries, keyed by user and month.
+ * - Loading a month from one aggregate query, and prefetching the months on either side.
+ * - Day-level invalidation: a write marks only the days it touched, and the next read recounts
+ *   just those days instead of the whole month.
+ * - Dropping a user's months when a recurring series or an import changes them.
+ * <p>
+ * This class is used by EventAppRepository so swiping between months is answered from memory.
+ *
+ * @author Joseph Langley
+ */
+public class MonthSummaryCache {
+
+    public static final int DEFAULT_MAX_MONTHS = 12; // Months kept at once, across users
+
+    private static MonthSummaryCache instance; // Singleton instance, one cache per process
+
+    private final EventDao eventDao; // Data Access Object for the aggregate queries
+    private final int maxMonths; // Maximum number of cached months
+    private final Map<Long, Entry> entries; // Summaries by user and month, in access order; guarded by this
+    private long generation; // Incremented on every invalidation; guarded by this
+    private final Set<Runnable> invalidationListeners = new CopyOnWriteArraySet<>(); // Notified after each invalidation
+
+    /**
+     * Gets the process-wide month summary cache for the given database, using the default size bound.
+     *
+     * @param database The database to count events in.
+     * @return The singleton instance of the MonthSummaryCache.
+     */
+    public static synchronized MonthSummaryCache getInstance(EventAppDatabase database) {
+        if (instance == null) {
+            instance = new MonthSummaryCache(database.eventDao(), DEFAULT_MAX_MONTHS);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for MonthSummaryCache.
+     *
+     * @param eventDao The DAO to count events with.
+     * @param maxMonths The maximum number of months kept at once.
+     */
+    public MonthSummaryCache(EventDao eventDao, int maxMonths) {
+        if (maxMonths < 3) {
+            throw new IllegalArgumentException("maxMonths must hold a month and its two neighbours");
+        }
+        this.eventDao = eventDao;
+        this.maxMonths = maxMonths;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets a month's summary, counting on a miss and recounting invalidated days. Call it from a background thread.
+     *
+     * @param userId The ID of the user.
+     * @param month The month to summarize.
+     * @return The up-to-date summary.
+     */
+    public MonthSummary get(int userId, YearMonth month) {
+        long key = keyOf(userId, month);
+        Entry entry;
+        long loadedGeneration;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.dirtyDays == 0) {
+                return entry.summary;
+            }
+            loadedGeneration = generation;
+        }
+
+        MonthSummary summary;
+        if (entry == null) {
+            int[] counts = eventDao.countEventsByDay(userId, month.atDay(1).toEpochDay(), month.atEndOfMonth().toEpochDay());
+            summary = new MonthSummary(userId, month, counts);
+        } else {
+            // Recount only the span of the invalidated days, in one query
+            int dirtyDays = entry.dirtyDays;
+            int firstDay = Integer.numberOfTrailingZeros(dirtyDays) + 1;
+            int lastDay = 32 - Integer.numberOfLeadingZeros(dirtyDays);
+            int[] counts = eventDao.countEventsByDay(userId, month.atDay(firstDay).toEpochDay(), month.atDay(lastDay).toEpochDay());
+            summary = entry.summary.withCounts(firstDay, counts, dirtyDays);
+        }
+
+        synchronized (this) {
+            // A write that raced with the count may not be in it, so keep the days marked for the next read
+            if (generation == loadedGeneration) {
+                entries.put(key, new Entry(summary));
+                evictIfNeeded();
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Gets a month's summary only if it is cached and up to date. Safe to call from the main thread.
+     *
+     * @param userId The ID of the user.
+     * @param month The month to summarize.
+     * @return The cached summary, or null if it has to be counted.
+     */
+    public synchronized MonthSummary peek(int userId, YearMonth month) {
+        Entry entry = entries.get(keyOf(userId, month));
+        return entry != null && entry.dirtyDays == 0 ? entry.summary : null;
+    }
+
+    /**
+     * Counts the months before and after a month in the background, so swiping to them is instant.
+     *
+     * @param userId The ID of the user.
+     * @param month The month being shown.
+     * @param executor The executor that runs the queries.
+     */
+    public void prefetchAround(int userId, YearMonth month, Executor executor) {
+        for (YearMonth neighbour : new YearMonth[]{month.plusMonths(1), month.minusMonths(1)}) {
+            if (peek(userId, neighbour) == null) {
+                executor.execute(() -> get(userId, neighbour));
+            }
+        }
+    }
+
+    /**
+     * Marks the days an event was on before and after a write. One-off events only touch their own
+     * day; a recurring series can touch any day, so the user's months are dropped instead.
+     *
+     * @param before The event as it was, or null for an insert.
+     * @param after The event as written, or null for a delete.
+     */
+    public void invalidateEvent(Event before, Event after) {
+        Event any = before != null ? before : after;
+        if (any == null) {
+            return;
+        }
+        if (before != null && before.getRecurrence() != null || after != null && after.getRecurrence() != null) {
+            invalidateUser(any.getUserId());
+            return;
+        }
+        synchronized (this) {
+            if (before != null) {
+                markDirty(before.getUserId(), before.getDate());
+            }
+            if (after != null) {
+                markDirty(after.getUserId(), after.getDate());
+            }
+            generation++;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Drops every cached month of a user, after writes that did not go through invalidateEvent.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidateUser(int userId) {
+        synchronized (this) {
+            Iterator<Long> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if ((int) (keys.next() >> 32) == userId) {
+                    keys.remove();
+                }
+            }
+            generation++;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Registers a callback run after each invalidation, on the writing thread.
+     *
+     * @param listener The callback to run.
+     */
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a callback added with addInvalidationListener.
+     *
+     * @param listener The callback to remove.
+     */
+    public void removeInvalidationListener(Runnable listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    /**
+     * Marks one day of a cached month for recounting. Months that are not cached have nothing to mark.
+     */
+    private void markDirty(int userId, long epochDay) {
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        Entry entry = entries.get(keyOf(userId, YearMonth.from(day)));
+        if (entry != null) {
+            entry.dirtyDays |= 1 << (day.getDayOfMonth() - 1);
+        }
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : invalidationListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Removes least recently used months until the cache fits its bound. Called holding the lock.
+     */
+    private void evictIfNeeded() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (entries.size() > maxMonths && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private static long keyOf(int userId, YearMonth month) {
+        return (long) userId << 32 | (month.getYear() * 12L + month.getMonthValue() - 1);
+    }
+
+    /**
+     * A cached summary with the days written since it was counted.
+     */
+    private static final class Entry {
+
+        final MonthSummary summary; // Counts as of the last read
+        int dirtyDays; // Bit i set when day i + 1 must be recounted
+
+        Entry(MonthSummary summary) {
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.langleyeventtracking.data;
+
+import androidx.lifecycle.LiveData;
+
+import java.time.YearMonth;
+import java.util.concurrent.Executor;
+
+/**
+ * Month Summary LiveData
+ * <p>
+ * The MonthSummaryLiveData class exposes one month's per-day event counts from the MonthSummaryCache as LiveData.
+ * It includes:
+ * - Delivering a cached summary at once when an observer becomes active.
+ * - Counting on a background executor on a miss, then prefetching the neighbouring months.
+ * - Recounting the invalidated days after every write while it has active observers.
+ * <p>
+ * This class is returned by EventAppRepository.getMonthSummary.
+ *
+ * @author Joseph Langley
+ */
+public class MonthSummaryLiveData extends LiveData<MonthSummary> {
+
+    private final MonthSummaryCache cache; // Shared month summary cache
+    private final int userId; // ID of the user whose counts are observed
+    private final YearMonth month; // Month observed
+    private final Executor executor; // Executor that runs the aggregate queries
+    private final Runnable reload = this::load; // Invalidation listener, kept for removal
+
+    /**
+     * Constructor for MonthSummaryLiveData.
+     *
+     * @param cache The shared month summary cache.
+     * @param userId The ID of the user.
+     * @param month The month to observe.
+     * @param executor The executor that runs database reads.
+     */
+    public MonthSummaryLiveData(MonthSummaryCache cache, int userId, YearMonth month, Executor executor) {
+        this.cache = cache;
+        this.userId = userId;
+        this.month = month;
+        this.executor = executor;
+    }
+
+    @Override
+    protected void onActive() {
+        cache.addInvalidationListener(reload);
+        MonthSummary cached = cache.peek(userId, month);
+        if (cached != null) {
+            if (cached != getValue()) {
+                setValue(cached);
+            }
+            cache.prefetchAround(userId, month, executor);
+        } else {
+            load();
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        cache.removeInvalidationListener(reload);
+    }
+
+    private void load() {
+        executor.execute(() -> {
+            MonthSummary summary = cache.get(userId, month);
+            if (summary != getValue()) {
+                postValue(summary); // Writes to other days and months leave the summary as it was
+            }
+            cache.prefetchAround(userId, month, executor);
+        });
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.langleyeventtracking.data;
+
+import android.util.Log;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Occurrence Expander
+ * <p>
+ * The OccurrenceExpander class turns recurring series rows into the occurrences of a date window.
+ * It includes:
+ * - Expansion of one series over a window, seeking to the window instead of walking the series.
+ * - A bounded LRU cache of expanded windows, keyed by series, rule and window.
+ * - Merging of occurrences with one-off events in (date, id) order.
+ * - A lazy k-way merge for "next N events" queries that have no end date.
+ * <p>
+ * A yearly or weekly series is stored as a single row; its occurrences only exist in memory,
+ * for the windows someone is looking at.
+ *
+ * @author Joseph Langley
+ */
+public final class OccurrenceExpander {
+
+    private static final String TAG = "OccurrenceExpander";
+    private static final int MAX_CACHED_WINDOWS = 256; // Expanded windows kept in memory
+    private static final long[] NO_OCCURRENCES = new long[0];
+
+    /**
+     * Order of every merged event list: by date, then by ID.
+     */
+    public static final Comparator<Event> EVENT_ORDER = (a, b) -> {
+        int byDate = Long.compare(a.getDate(), b.getDate());
+        return byDate != 0 ? byDate : Integer.compare(a.getId(), b.getId());
+    };
+
+    private static final OccurrenceExpander INSTANCE = new OccurrenceExpander(MAX_CACHED_WINDOWS);
+
+    private final Map<WindowKey, long[]> windows; // Access-ordered LRU of expanded windows, guarded by itself
+
+    /**
+     * Gets the process-wide expander.
+     *
+     * @return The shared OccurrenceExpander.
+     */
+    public static OccurrenceExpander getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor for OccurrenceExpander.
+     *
+     * @param maxWindows The maximum number of expanded windows to cache.
+     */
+    OccurrenceExpander(int maxWindows) {
+        windows = new LinkedHashMap<WindowKey, long[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WindowKey, long[]> eldest) {
+                return size() > maxWindows;
+            }
+        };
+    }
+
+    /**
+     * Gets the occurrence days of a series within a window, from the cache when possible.
+     *
+     * @param series The series row, as stored in the database.
+     * @param from The first epoch day of the window.
+     * @param to The last epoch day of the window.
+     * @return The occurrence epoch days in ascending order; do not modify.
+     */
+    public long[] occurrences(Event series, long from, long to) {
+        WindowKey key = new WindowKey(series.getId(), series.getRecurrence(), series.getSeriesStart(), from, to);
+        synchronized (windows) {
+            long[] cached = windows.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long[] days = expand(series, from, to);
+        synchronized (windows) {
+            windows.put(key, days);
+        }
+        return days;
+    }
+
+    /**
+     * Merges one-off events with the occurrences of recurring series within a window.
+     *
+     * @param oneOffs One-off events in the window, in (date, id) order.
+     * @param series Recurring series rows of the same user.
+     * @param from The first epoch day of the window.
+     * @param to The last epoch day of the window.
+     * @return All events of the window in (date, id) order.
+     */
+    public List<Event> merge(List<Event> oneOffs, List<Event> series, long from, long to) {
+        if (series.isEmpty()) {
+            return oneOffs;
+        }
+        List<Event> occurrences = new ArrayList<>();
+        for (Event row : series) {
+            for (long day : occurrences(row, from, to)) {
+                occurrences.add(row.occurrenceOn(day));
+            }
+        }
+        Collections.sort(occurrences, EVENT_ORDER);
+        return mergeSorted(oneOffs, occurrences);
+    }
+
+    /**
+     * Expands a user's full event list for display: one-off events are kept as they are and every
+     * series is replaced by its occurrences within the window. A series without any occurrence in
+     * the window (it starts later or has already ended) is kept as its own row so it stays reachable.
+     *
+     * @param events The user's events, in (date, id) order, as stored in the database.
+     * @param from The first epoch day of the window.
+     * @param to The last epoch day of the window.
+     * @return The expanded list in (date, id) order.
+     */
+    public List<Event> expandForList(List<Event> events, long from, long to) {
+        List<Event> oneOffs = null;
+        List<Event> occurrences = null;
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            if (!event.isRecurring()) {
+                if (oneOffs != null) {
+                    oneOffs.add(event);
+                }
+                continue;
+            }
+            if (oneOffs == null) {
+                // First series: everything before it was a one-off
+                oneOffs = new ArrayList<>(events.subList(0, i));
+                occurrences = new ArrayList<>();
+            }
+            long[] days = occurrences(event, from, to);
+            if (days.length == 0) {
+                occurrences.add(event);
+            }
+            for (long day : days) {
+                occurrences.add(event.occurrenceOn(day));
+            }
+        }
+        if (oneOffs == null) {
+            return events; // Nothing recurring, keep the cached list itself
+        }
+        Collections.sort(occurrences, EVENT_ORDER);
+        return mergeSorted(oneOffs, occurrences);
+    }
+
+    /**
+     * Gets the next events starting on a given day, pulling occurrences lazily from each series
+     * so no window has to be chosen up front.
+     *
+     * @param oneOffs The first one-off events on or after the day, in (date, id) order.
+     * @param series Recurring series rows of the same user.
+     * @param fromDay The first epoch day of interest.
+     * @param limit The maximum number of events to return.
+     * @return Up to limit events in (date, id) order.
+     */
+    public List<Event> upcoming(List<Event> oneOffs, List<Event> series, long fromDay, int limit) {
+        if (series.isEmpty()) {
+            return oneOffs;
+        }
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(series.size() + 1,
+                (a, b) -> EVENT_ORDER.compare(a.current, b.current));
+        for (Event row : series) {
+            RecurrenceRule rule = parseRule(row);
+            PrimitiveIterator.OfLong days = rule != null
+                    ? rule.occurrencesFrom(row.getSeriesStart(), fromDay)
+                    : singleDay(row.getSeriesStart(), fromDay);
+            Cursor cursor = new Cursor(row, days);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        List<Event> merged = new ArrayList<>(limit);
+        int nextOneOff = 0;
+        while (merged.size() < limit && (nextOneOff < oneOffs.size() || !cursors.isEmpty())) {
+            Cursor cursor = cursors.peek();
+            if (cursor == null || (nextOneOff < oneOffs.size()
+                    && EVENT_ORDER.compare(oneOffs.get(nextOneOff), cursor.current) <= 0)) {
+                merged.add(oneOffs.get(nextOneOff++));
+            } else {
+                cursors.poll();
+                merged.add(cursor.current);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Expands one series over a window.
+     */
+    private static long[] expand(Event series, long from, long to) {
+        RecurrenceRule rule = parseRule(series);
+        if (rule == null) {
+            long start = series.getSeriesStart();
+            return start >= from && start <= to ? new long[]{start} : NO_OCCURRENCES;
+        }
+        if (series.getSeriesStart() > to) {
+            return NO_OCCURRENCES;
+        }
+        long[] days = new long[8];
+        int size = 0;
+        PrimitiveIterator.OfLong iterator = rule.occurrencesFrom(series.getSeriesStart(), from);
+        while (iterator.hasNext()) {
+            long day = iterator.nextLong();
+            if (day > to) {
+                break;
+            }
+            if (size == days.length) {
+                long[] grown = new long[size * 2];
+                System.arraycopy(days, 0, grown, 0, size);
+                days = grown;
+            }
+            days[size++] = day;
+        }
+        if (size == 0) {
+            return NO_OCCURRENCES;
+        }
+        if (size == days.length) {
+            return days;
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(days, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Parses the rule of a series, treating an unreadable rule as a one-off event.
+     */
+    private static RecurrenceRule parseRule(Event series) {
+        try {
+            return RecurrenceRule.parse(series.getRecurrence());
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Ignoring recurrence of event " + series.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static PrimitiveIterator.OfLong singleDay(long day, long fromDay) {
+        return (day >= fromDay ? Collections.singletonList(day) : Collections.<Long>emptyList())
+                .stream().mapToLong(Long::longValue).iterator();
+    }
+
+    private static List<Event> mergeSorted(List<Event> first, List<Event> second) {
+        List<Event> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            if (EVENT_ORDER.compare(first.get(i), second.get(j)) <= 0) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        merged.addAll(first.subList(i, first.size()));
+        merged.addAll(second.subList(j, second.size()));
+        return merged;
+    }
+
+    /**
+     * Position of the lazy merge within one series.
+     */
+    private static final class Cursor {
+
+        private final Event series; // Series row the occurrences are copied from
+        private final PrimitiveIterator.OfLong days; // Remaining occurrence days
+        private Event current; // Occurrence at the head of this cursor
+
+        Cursor(Event series, PrimitiveIterator.OfLong days) {
+            this.series = series;
+            this.days = days;
+        }
+
+        boolean advance() {
+            if (!days.hasNext()) {
+                return false;
+            }
+            current = series.occurrenceOn(days.nextLong());
+            return true;
+        }
+    }
+
+    /**
+     * Cache key of one expanded window. The rule and start are part of the key, so editing a
+     * series simply stops hitting its old windows, which then age out of the LRU.
+     */
+    private static final class WindowKey {
+
+        private final int eventId; // ID of the series row
+        private final String rule; // RRULE of the series
+        private final long start; // First occurrence of the series
+        private final long from; // First day of the window
+        private final long to; // Last day of the window
+
+        WindowKey(int eventId, String rule, long start, long from, long to) {
+            this.eventId = eventId;
+            this.rule = rule;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof WindowKey)) return false;
+            WindowKey other = (WindowKey) o;
+            return eventId == other.eventId && start == other.start && from == other.from
+                    && to == other.to && Objects.equals(rule, other.rule);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventId, rule, start, from, to);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.langleyeventtracking.data;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pending Event Writes
+ * <p>
+ * The PendingEventWrites class keeps the event inserts, updates, deletes and restores that were submitted
+ * but are not yet in the cached event lists. It includes:
+ * - Recording each write the moment it is submitted, so the list can show it before the disk is touched.
+ * - Merging the pending writes of a user into a cached snapshot of their events.
+ * - Reconciling: a committed write is dropped, with every earlier write to the same row, once a
+ *   snapshot loaded from the database shows it, and the lists reload if no snapshot shows it in time.
+ * - Rolling a write back when its transaction fails, so the list returns to what is stored.
+ * <p>
+ * This class is used by EventAppRepository, which records its writes here, and by CachedEventsLiveData,
+ * which merges them into the list EventAdapter displays.
+ *
+ * @author Joseph Langley
+ */
+public class PendingEventWrites {
+
+    public static final long DEFAULT_RECONCILE_TIMEOUT_MILLIS = 5000; // How long a committed write may wait for its snapshot
+    private static final int FIRST_PLACEHOLDER_ID = Integer.MIN_VALUE; // IDs of unsaved inserts count up from here
+
+    private static final ScheduledExecutorService TIMEOUT_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pending-event-writes");
+        thread.setDaemon(true);
+        return thread;
+    }); // Runs the reload of writes that outlived their reconcile timeout
+
+    private static PendingEventWrites instance; // Singleton instance, one overlay per process
+
+    private final long reconcileTimeoutNanos; // Committed writes older than this are dropped even if never seen
+    private final List<Write> writes = new ArrayList<>(); // Pending writes in submission order; guarded by this
+    private int nextPlaceholderId = FIRST_PLACEHOLDER_ID; // Next ID for an unsaved insert; guarded by this
+    private long revision; // Incremented on every visible change; guarded by this
+    private final Set<Runnable> changeListeners = new CopyOnWriteArraySet<>(); // Notified after each visible change
+
+    /**
+     * Gets the process-wide overlay, using the default reconcile timeout.
+     *
+     * @return The singleton instance of PendingEventWrites.
+     */
+    public static synchronized PendingEventWrites getInstance() {
+        if (instance == null) {
+            instance = new PendingEventWrites(DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for PendingEventWrites.
+     *
+     * @param reconcileTimeoutMillis How long a committed write is merged while no snapshot shows it,
+     *                               for example after another write replaced it.
+     */
+    public PendingEventWrites(long reconcileTimeoutMillis) {
+        if (reconcileTimeoutMillis < 0) {
+            throw new IllegalArgumentException("reconcileTimeoutMillis must not be negative");
+        }
+        this.reconcileTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(reconcileTimeoutMillis);
+    }
+
+    /**
+     * Checks whether an event is an insert that has not been saved yet. Such events have no row to edit.
+     *
+     * @param event The event to check.
+     * @return True if the event carries a placeholder ID.
+     */
+    public static boolean isUnsaved(Event event) {
+        return event.getId() < 0;
+    }
+
+    /**
+     * Records an insert before it is submitted. The event is shown with a placeholder ID until it is committed.
+     *
+     * @param event The event being inserted.
+     * @return The pending write, to pass to commit or rollBack.
+     */
+    public Write insert(Event event) {
+        Write write;
+        synchronized (this) {
+            write = new Write(Write.INSERT, copyOf(event), nextPlaceholderId++);
+        }
+        return add(write);
+    }
+
+    /**
+     * Records an update before it is submitted.
+     *
+     * @param event The event with its new values.
+     * @return The pending write, to pass to commit or rollBack.
+     */
+    public Write update(Event event) {
+        return add(new Write(Write.UPDATE, copyOf(event), event.getId()));
+    }
+
+    /**
+     * Records a delete before it is submitted.
+     *
+     * @param event The event being deleted.
+     * @return The pending write, to pass to commit or rollBack.
+     */
+    public Write delete(Event event) {
+        return add(new Write(Write.DELETE, copyOf(event), event.getId()));
+    }
+
+    /**
+     * Records the restore of a deleted event before it is submitted.
+     *
+     * @param event The event as it was before it was deleted.
+     * @return The pending write, to pass to commit or rollBack.
+     */
+    public Write restore(Event event) {
+        return add(new Write(Write.RESTORE, copyOf(event), event.getId()));
+    }
+
+    /**
+     * Marks a write as committed. It keeps being merged until a snapshot shows it, or until the
+     * reconcile timeout, when the listeners are told to reload so it stops being merged.
+     *
+     * @param write The write returned when it was recorded.
+     * @param rowId The ID of the inserted row, ignored for other writes.
+     */
+    public void commit(Write write, long rowId) {
+        boolean changed;
+        synchronized (this) {
+            if (!writes.contains(write)) {
+                return;
+            }
+            write.committedAt = System.nanoTime();
+            // An insert now shows under its real ID; other writes already look committed
+            changed = write.kind == Write.INSERT;
+            if (changed) {
+                write.id = (int) rowId;
+                revision++;
+            }
+        }
+        TIMEOUT_EXECUTOR.schedule(() -> expire(write), reconcileTimeoutNanos + 1, TimeUnit.NANOSECONDS);
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Forgets a write whose transaction failed, so the list shows the stored events again.
+     *
+     * @param write The write returned when it was recorded.
+     */
+    public void rollBack(Write write) {
+        synchronized (this) {
+            if (!writes.remove(write)) {
+                return;
+            }
+            revision++;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Merges a user's pending writes into a snapshot of their stored events, dropping the committed
+     * writes the snapshot already shows. Pending inserts get placeholder IDs, and pending updates get
+     * the next row version so lists that compare versions rebind them.
+     *
+     * @param userId The ID of the user.
+     * @param rows The user's events, in (date, id) order, as loaded from the database.
+     * @return The merged list in (date, id) order, or rows itself when nothing is pending.
+     */
+    public List<Event> apply(int userId, List<Event> rows) {
+        List<Write> pending = reconcile(userId, rows);
+        if (pending.isEmpty()) {
+            return rows;
+        }
+
+        Map<Integer, Event> byId = new LinkedHashMap<>();
+        for (Event row : rows) {
+            byId.put(row.getId(), row);
+        }
+        for (Write write : pending) {
+            if (write.kind == Write.DELETE) {
+                byId.remove(write.id);
+                continue;
+            }
+            Event merged = copyOf(write.event);
+            merged.setId(write.id);
+            if (write.kind == Write.UPDATE) {
+                Event stored = byId.get(write.id);
+                if (stored == null) {
+                    continue; // Deleted meanwhile, the update has nothing left to change
+                }
+                merged.setVersion(stored.getVersion() + 1);
+            } else if (write.kind == Write.RESTORE) {
+                merged.setVersion(write.event.getVersion() + 2); // Bumped once by the delete and once by the restore
+            }
+            byId.put(write.id, merged);
+        }
+        List<Event> merged = new ArrayList<>(byId.values());
+        Collections.sort(merged, OccurrenceExpander.EVENT_ORDER);
+        return merged;
+    }
+
+    /**
+     * Gets a counter that changes whenever the merged lists would, so a stale merge can be detected.
+     *
+     * @return The current revision.
+     */
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Gets the number of writes still merged, committed or not.
+     *
+     * @return The number of pending writes.
+     */
+    public synchronized int size() {
+        return writes.size();
+    }
+
+    /**
+     * Registers a callback run after each change to the merged lists, on the thread that made it.
+     *
+     * @param listener The callback to run.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a callback added with addChangeListener.
+     *
+     * @param listener The callback to remove.
+     */
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    private Write add(Write write) {
+        synchronized (this) {
+            writes.add(write);
+            revision++;
+        }
+        notifyListeners();
+        return write;
+    }
+
+    /**
+     * Tells the listeners to reload once a committed write has outlived its reconcile timeout, so the
+     * next merge drops it even if no invalidation brings a new snapshot.
+     */
+    private void expire(Write write) {
+        synchronized (this) {
+            if (!writes.contains(write)) {
+                return;
+            }
+            revision++;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Drops the user's committed writes that the snapshot shows, together with every earlier write to
+     * the same row, and those that waited too long for it. Returns the ones left in submission order.
+     */
+    private synchronized List<Write> reconcile(int userId, List<Event> rows) {
+        // Writes run in submission order, so a row showing one write has seen all earlier writes to it
+        Map<Integer, Integer> lastShown = null;
+        Map<Integer, Event> byId = null;
+        for (int i = 0; i < writes.size(); i++) {
+            Write write = writes.get(i);
+            if (write.event.getUserId() != userId || write.committedAt == Write.NOT_COMMITTED) {
+                continue;
+            }
+            if (byId == null) {
+                byId = new HashMap<>();
+                for (Event row : rows) {
+                    byId.put(row.getId(), row);
+                }
+            }
+            if (write.isShownBy(byId.get(write.id))) {
+                if (lastShown == null) {
+                    lastShown = new HashMap<>();
+                }
+                lastShown.put(write.id, i);
+            }
+        }
+
+        List<Write> pending = null;
+        long now = System.nanoTime();
+        List<Write> kept = new ArrayList<>(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            Write write = writes.get(i);
+            if (write.event.getUserId() == userId) {
+                Integer shownAt = lastShown != null ? lastShown.get(write.id) : null;
+                if (shownAt != null && i <= shownAt || write.committedAt != Write.NOT_COMMITTED
+                        && now - write.committedAt > reconcileTimeoutNanos) {
+                    continue; // Merging it changes nothing, so the revision stays
+                }
+                if (pending == null) {
+                    pending = new ArrayList<>();
+                }
+                pending.add(write);
+            }
+            kept.add(write);
+        }
+        if (kept.size() != writes.size()) {
+            writes.clear();
+            writes.addAll(kept);
+        }
+        return pending != null ? pending : Collections.emptyList();
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Copies the stored fields of an event, so later changes by the caller do not reach the overlay.
+     */
+    private static Event copyOf(Event event) {
+        Event copy = new Event();
+        copy.setId(event.getId());
+        copy.setTitle(event.getTitle());
+        copy.setDate(event.getDate());
+        copy.setDescription(event.getDescription());
+        copy.setUserId(event.getUserId());
+        copy.setRecurrence(event.getRecurrence());
+        copy.setReminders(event.getReminders());
+        copy.setVersion(event.getVersion());
+        return copy;
+    }
+
+    /**
+     * A write recorded in the overlay.
+     */
+    public static final class Write {
+
+        static final int INSERT = 0; // Kind of a new row
+        static final int UPDATE = 1; // Kind of a changed row
+        static final int DELETE = 2; // Kind of a removed row
+        static final int RESTORE = 3; // Kind of a removed row brought back
+        static final long NOT_COMMITTED = Long.MIN_VALUE; // committedAt of a write still in flight
+
+        final int kind; // INSERT, UPDATE, DELETE or RESTORE
+        final Event event; // Values written, copied when the write was recorded
+        volatile int id; // Row ID; a placeholder for an insert until it is committed
+        volatile long committedAt = NOT_COMMITTED; // System.nanoTime() of the commit
+
+        Write(int kind, Event event, int id) {
+            this.kind = kind;
+            this.event = event;
+            this.id = id;
+        }
+
+        /**
+         * Checks whether a snapshot row shows this committed write.
+         *
+         * @param stored The row with this write's ID in the snapshot, or null if there is none.
+         */
+        boolean isShownBy(Event stored) {
+            if (kind == DELETE) {
+                return stored == null;
+            }
+            if (stored == null) {
+                return false;
+            }
+            return kind == INSERT || kind == RESTORE || stored.getDate() == event.getDate()
+                    && Objects.equals(stored.getTitle(), event.getTitle())
+                    && Objects.equals(stored.getDescription(), event.getDescription())
+                    && Objects.equals(stored.getRecurrence(), event.getRecurrence())
+                    && Objects.equals(stored.getReminders(), event.getReminders());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.langleyeventtracking.data;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Recurrence Rule
+ * <p>
+ * The RecurrenceRule class is the parsed form of the RRULE stored in the recurrence column of an event.
+ * It includes:
+ * - FREQ=DAILY, WEEKLY, MONTHLY or YEARLY, with optional INTERVAL, COUNT and UNTIL parts.
+ * - A lazy iterator over the occurrences of a series from any day onward.
+ * - Seeking straight to the first occurrence of a window, so the cost does not grow with the age of the series.
+ * <p>
+ * As in RFC 5545, occurrences that do not exist (the 31st in a 30 day month, February 29th
+ * in a common year) are skipped rather than moved, and do not count towards COUNT.
+ *
+ * @author Joseph Langley
+ */
+public final class RecurrenceRule {
+
+    /**
+     * Supported recurrence frequencies.
+     */
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    private final Frequency frequency; // Unit the series repeats in
+    private final int interval; // Number of units between occurrences
+    private final int count; // Maximum number of occurrences, or 0 for no limit
+    private final long until; // Last epoch day an occurrence may fall on, or Long.MAX_VALUE
+
+    private RecurrenceRule(Frequency frequency, int interval, int count, long until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+    }
+
+    /**
+     * Builds the rule text for a plain series repeating every unit.
+     *
+     * @param frequency The frequency of the series.
+     * @return The RRULE value, for example "FREQ=YEARLY".
+     */
+    public static String of(Frequency frequency) {
+        return "FREQ=" + frequency.name();
+    }
+
+    /**
+     * Parses an RRULE value such as "FREQ=WEEKLY;INTERVAL=2;UNTIL=20251231".
+     *
+     * @param rule The RRULE value, with or without the "RRULE:" prefix.
+     * @return The parsed rule.
+     * @throws IllegalArgumentException If the rule is malformed or uses parts this app does not support.
+     */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("No recurrence rule");
+        }
+        String text = rule.trim();
+        if (text.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            text = text.substring(6);
+        }
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        long until = Long.MAX_VALUE;
+        for (String part : text.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Malformed recurrence rule part: " + part);
+            }
+            String name = part.substring(0, equals).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(equals + 1).trim();
+            try {
+                switch (name) {
+                    case "FREQ":
+                        frequency = Frequency.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "INTERVAL":
+                        interval = Integer.parseInt(value);
+                        break;
+                    case "COUNT":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "UNTIL":
+                        // DATE or DATE-TIME, only the day matters for all-day events
+                        until = LocalDate.of(Integer.parseInt(value.substring(0, 4)),
+                                Integer.parseInt(value.substring(4, 6)),
+                                Integer.parseInt(value.substring(6, 8))).toEpochDay();
+                        break;
+                    case "WKST":
+                        break; // Only matters together with BYDAY
+                    default:
+                        throw new IllegalArgumentException("Unsupported recurrence rule part: " + name);
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException | DateTimeException e) {
+                throw new IllegalArgumentException("Malformed recurrence rule part: " + part, e);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Recurrence rule without FREQ: " + rule);
+        }
+        if (interval < 1 || count < 0) {
+            throw new IllegalArgumentException("Invalid INTERVAL or COUNT: " + rule);
+        }
+        return new RecurrenceRule(frequency, interval, count, until);
+    }
+
+    /**
+     * Gets the frequency of the rule.
+     *
+     * @return The frequency.
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Iterates over the occurrences of a series that fall on or after a given day, in order.
+     * The iterator is unbounded unless the rule has COUNT or UNTIL, so callers stop at the end of their window.
+     *
+     * @param startDay The epoch day of the first occurrence of the series.
+     * @param fromDay The first epoch day of interest.
+     * @return A lazy iterator over occurrence epoch days.
+     */
+    public PrimitiveIterator.OfLong occurrencesFrom(long startDay, long fromDay) {
+        return new OccurrenceIterator(LocalDate.ofEpochDay(startDay), fromDay);
+    }
+
+    /**
+     * Computes the candidate date of an occurrence index, or null when that date does not exist.
+     */
+    private LocalDate candidate(LocalDate start, long index) {
+        long units = index * interval;
+        switch (frequency) {
+            case DAILY:
+                return start.plusDays(units);
+            case WEEKLY:
+                return start.plusWeeks(units);
+            case MONTHLY: {
+                LocalDate date = start.plusMonths(units);
+                return date.getDayOfMonth() == start.getDayOfMonth() ? date : null;
+            }
+            default: {
+                LocalDate date = start.plusYears(units);
+                return date.getDayOfMonth() == start.getDayOfMonth() ? date : null;
+            }
+        }
+    }
+
+    /**
+     * Whether some candidates of a series starting on this day do not exist.
+     */
+    private boolean skipsCandidates(LocalDate start) {
+        return (frequency == Frequency.MONTHLY && start.getDayOfMonth() > 28)
+                || (frequency == Frequency.YEARLY && start.getMonthValue() == 2 && start.getDayOfMonth() == 29);
+    }
+
+    /**
+     * Finds the index of the first candidate on or after the given day without walking the series.
+     */
+    private long firstIndexFrom(LocalDate start, LocalDate from) {
+        if (!from.isAfter(start)) {
+            return 0;
+        }
+        long units;
+        switch (frequency) {
+            case DAILY:
+                units = ChronoUnit.DAYS.between(start, from);
+                break;
+            case WEEKLY:
+                units = ChronoUnit.DAYS.between(start, from) / 7;
+                break;
+            case MONTHLY:
+                units = ChronoUnit.MONTHS.between(start, from);
+                break;
+            default:
+                units = ChronoUnit.YEARS.between(start, from);
+                break;
+        }
+        long index = units / interval;
+        // Month and year arithmetic clamps to the end of the month, which never moves a date past "from"
+        while (clamped(start, index).isBefore(from)) {
+            index++;
+        }
+        return index;
+    }
+
+    private LocalDate clamped(LocalDate start, long index) {
+        long units = index * interval;
+        switch (frequency) {
+            case DAILY:
+                return start.plusDays(units);
+            case WEEKLY:
+                return start.plusWeeks(units);
+            case MONTHLY:
+                return start.plusMonths(units);
+            default:
+                return start.plusYears(units);
+        }
+    }
+
+    /**
+     * Lazily produces the occurrences of one series, honoring COUNT and UNTIL.
+     */
+    private final class OccurrenceIterator implements PrimitiveIterator.OfLong {
+
+        private final LocalDate start; // First occurrence of the series
+        private final long fromDay; // Occurrences before this day are not returned
+        private long index; // Next candidate index
+        private long counted; // Occurrences before the next candidate, for COUNT
+        private long next; // Next occurrence to return, valid when ready
+        private boolean ready; // Whether next has been computed
+        private boolean done; // Whether the series has ended
+
+        OccurrenceIterator(LocalDate start, long fromDay) {
+            this.start = start;
+            this.fromDay = fromDay;
+            if (count == 0 || !skipsCandidates(start)) {
+                // Every candidate exists, so the index is also the number of earlier occurrences
+                index = firstIndexFrom(start, LocalDate.ofEpochDay(fromDay));
+                counted = index;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && !done) {
+                if (count > 0 && counted >= count) {
+                    done = true;
+                    break;
+                }
+                LocalDate date;
+                try {
+                    date = candidate(start, index++);
+                } catch (DateTimeException | ArithmeticException e) {
+                    done = true; // Past the supported date range
+                    break;
+                }
+                if (date == null) {
+                    continue;
+                }
+                long day = date.toEpochDay();
+                if (day > until) {
+                    done = true;
+                    break;
+                }
+                counted++;
+                if (day >= fromDay) {
+                    next = day;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return next;
+        }
+    }
+}
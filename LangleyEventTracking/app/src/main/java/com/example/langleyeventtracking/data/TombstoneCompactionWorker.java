@@ -0,0 +1,131 @@
+package com.example.langleyeventtracking.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tombstone Compaction Worker
+ * <p>
+ * The TombstoneCompactionWorker class removes deleted events for good once they can no longer be restored.
+ * It includes:
+ * - A daily schedule, registered once with WorkManager, that only runs while the device is idle.
+ * - Purging tombstones older than RETENTION_MILLIS in bounded batches, each its own short
+ *   transaction on the EventWriteQueue, so edits made meanwhile never wait long.
+ * - Returning the freed pages to the file system with an incremental vacuum, after switching the
+ *   database to incremental auto-vacuum with one full VACUUM the first time.
+ * <p>
+ * Tombstones never show in event lists or month counts, so purging them invalidates nothing.
+ *
+ * @author Joseph Langley
+ */
+public class TombstoneCompactionWorker extends Worker {
+
+    private static final String TAG = "TombstoneCompaction";
+    private static final String WORK_NAME = "tombstone_compaction"; // Unique periodic work name
+    // Well past the undo offer, which only lasts while its snackbar is shown
+    public static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    static final int BATCH_SIZE = 200; // Tombstones purged per transaction
+    private static final int MAX_BATCHES = 50; // Batches per run; the rest waits for the next run
+    private static final int AUTO_VACUUM_INCREMENTAL = 2; // PRAGMA auto_vacuum value for INCREMENTAL
+
+    /**
+     * Constructor for TombstoneCompactionWorker, called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params Parameters of this run.
+     */
+    public TombstoneCompactionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Registers the daily compaction, keeping the existing schedule if there is one.
+     *
+     * @param context Any context.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(TombstoneCompactionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        EventAppDatabase database = EventAppDatabase.getInstance(getApplicationContext());
+        EventDao eventDao = database.eventDao();
+        EventWriteQueue writeQueue = EventWriteQueue.getInstance(database);
+        long cutoff = System.currentTimeMillis() - RETENTION_MILLIS;
+        int purged = 0;
+        try {
+            for (int batch = 0; batch < MAX_BATCHES && !isStopped(); batch++) {
+                int removed = writeQueue.submit(() -> eventDao.purgeDeletedEvents(cutoff, BATCH_SIZE)).get();
+                purged += removed;
+                if (removed < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Purging tombstones failed", e.getCause());
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        if (purged > 0 && !isStopped()) {
+            try {
+                reclaimFreePages(database.getOpenHelper().getWritableDatabase());
+            } catch (SQLException e) {
+                Log.w(TAG, "Vacuum failed, the free pages are reused until the next run", e);
+            }
+        }
+        return Result.success();
+    }
+
+    /**
+     * Truncates the free pages left by the purge. A database created without incremental
+     * auto-vacuum is switched to it once, which only takes effect through a full VACUUM.
+     *
+     * @param db The database to vacuum, outside of any transaction.
+     */
+    static void reclaimFreePages(SupportSQLiteDatabase db) {
+        int autoVacuum;
+        try (Cursor cursor = db.query("PRAGMA auto_vacuum")) {
+            autoVacuum = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+        if (autoVacuum != AUTO_VACUUM_INCREMENTAL) {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+            return;
+        }
+        // The pragma frees pages one step at a time, so the cursor is drained to run it to the end
+        try (Cursor cursor = db.query("PRAGMA incremental_vacuum")) {
+            while (cursor.moveToNext()) {
+                // Nothing to read
+            }
+        }
+    }
+}
@@ -2,25 +2,42 @@ package com.example.langleyeventtracking.data.dao;
 
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
-import androidx.room.Update;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.langleyeventtracking.data.EventSearch;
+import com.example.langleyeventtracking.data.OccurrenceExpander;
+import com.example.langleyeventtracking.data.models.DayCount;
 import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.data.models.EventsFingerprint;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Event Data Access Object (DAO)
  * <p>
  * The EventDao interface provides methods for interacting with the events table in the database.
  * It includes:
- * - Inserting new events.
- * - Retrieving all events.
- * - Retrieving events for a specific user.
- * - Deleting events.
- * - Updating events.
+ * - Inserting new events, one at a time or in bulk.
+ * - Retrieving events for a specific user, or a single event by its ID.
+ * - Fingerprinting users' events, so caches can tell whose events a change touched.
+ * - Retrieving events for a user within a date range or from a given day onward, with
+ *   recurring series expanded into occurrences and merged with one-off events.
+ * - Retrieving the events of every user within a date range, grouped by user, for the daily digest.
+ * - Counting a user's events per day over a date range, for the month grid.
+ * - Keyset (date, id) page queries used by the paged event list.
+ * - Ranked full-text search over event titles and descriptions.
+ * - Deleting events as tombstones, restoring them, and purging old tombstones in bounded batches.
+ *   Every other query only sees live events, through the partial indexes on the events table.
+ * - Updating events, bumping their row version.
  * <p>
  * This interface is used by Room to generate the necessary code for database operations.
  *
@@ -33,40 +50,370 @@ public interface EventDao {
      * Inserts a new event into the database.
      *
      * @param event The event to insert.
+     * @return The row ID of the new event.
      */
     @Insert
-    void insertEvent(Event event);
+    long insertEvent(Event event);
 
     /**
-     * Retrieves all events from the database, ordered by date in ascending order.
+     * Inserts several events with one compiled statement. Callers wrap it in a transaction
+     * so a whole chunk is committed at once.
      *
-     * @return A LiveData list of all events.
+     * @param events The events to insert.
      */
-    @Query("SELECT * FROM events ORDER BY date ASC")
-    LiveData<List<Event>> getAllEvents();
+    @Insert
+    void insertEvents(List<Event> events);
 
     /**
      * Retrieves events for a specific user, ordered by date in ascending order.
+     * Observers go through EventCache, which calls this on a miss.
+     *
+     * @param userId The ID of the user.
+     * @return A list of events for the specified user.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND `deleted at` IS NULL ORDER BY date ASC, id ASC")
+    List<Event> getEventsForUser(int userId);
+
+    /**
+     * Retrieves the one-off events of a specific user between two dates (inclusive), in (date, id) order.
+     *
+     * @param userId The ID of the user.
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return The non-recurring events within the range.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND recurrence IS NULL AND date BETWEEN :from AND :to "
+            + "AND `deleted at` IS NULL ORDER BY date ASC, id ASC")
+    List<Event> getOneOffEventsBetween(int userId, long from, long to);
+
+    /**
+     * Retrieves the next one-off events of a specific user starting on or after the given day.
+     *
+     * @param userId The ID of the user.
+     * @param fromDay The epoch day to start from, usually today.
+     * @param limit The maximum number of events to return.
+     * @return The next non-recurring events, in (date, id) order.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND recurrence IS NULL AND date >= :fromDay "
+            + "AND `deleted at` IS NULL ORDER BY date ASC, id ASC LIMIT :limit")
+    List<Event> getUpcomingOneOffs(int userId, long fromDay, int limit);
+
+    /**
+     * Retrieves the recurring series of a specific user. There is deliberately no date bound:
+     * a series starting years ago can still occur today, and with one row per series the set is small.
+     *
+     * @param userId The ID of the user.
+     * @return The series rows, one per recurring event.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND recurrence IS NOT NULL AND `deleted at` IS NULL")
+    List<Event> getRecurringEvents(int userId);
+
+    /**
+     * Retrieves the events of a specific user between two dates (inclusive), with recurring series
+     * expanded into their occurrences and merged with one-off events in date order.
      *
      * @param userId The ID of the user.
-     * @return A LiveData list of events for the specified user.
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return The events and occurrences within the range.
      */
-    @Query("SELECT * FROM events WHERE `user id` = :userId ORDER BY date ASC")
-    LiveData<List<Event>> getEventsForUser(int userId);
+    @Transaction
+    default List<Event> getEventsBetween(int userId, long from, long to) {
+        return OccurrenceExpander.getInstance()
+                .merge(getOneOffEventsBetween(userId, from, to), getRecurringEvents(userId), from, to);
+    }
 
     /**
-     * Deletes an event from the database.
+     * Retrieves the next events of a specific user starting on or after the given day,
+     * with the occurrences of recurring series included.
+     *
+     * @param userId The ID of the user.
+     * @param fromDay The epoch day to start from, usually today.
+     * @param limit The maximum number of events to return.
+     * @return The upcoming events and occurrences in date order.
+     */
+    @Transaction
+    default List<Event> getUpcoming(int userId, long fromDay, int limit) {
+        return OccurrenceExpander.getInstance()
+                .upcoming(getUpcomingOneOffs(userId, fromDay, limit), getRecurringEvents(userId), fromDay, limit);
+    }
+
+    /**
+     * Counts the one-off events of a specific user per day between two dates (inclusive).
+     * SQLite groups along the (user id, date) index, so no event row is turned into an object.
+     *
+     * @param userId The ID of the user.
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return One row per day with any one-off event, in date order.
+     */
+    @Query("SELECT date AS day, COUNT(*) AS count FROM events WHERE `user id` = :userId AND recurrence IS NULL "
+            + "AND date BETWEEN :from AND :to AND `deleted at` IS NULL GROUP BY date")
+    List<DayCount> getOneOffCountsByDay(int userId, long from, long to);
+
+    /**
+     * Counts the events of a specific user per day between two dates (inclusive), occurrences of
+     * recurring series included. Series are expanded to occurrence days only, never to events.
+     *
+     * @param userId The ID of the user.
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return The number of events on each day, indexed by days since from.
+     */
+    @Transaction
+    default int[] countEventsByDay(int userId, long from, long to) {
+        int[] counts = new int[(int) (to - from + 1)];
+        for (DayCount dayCount : getOneOffCountsByDay(userId, from, to)) {
+            counts[(int) (dayCount.getDay() - from)] += dayCount.getCount();
+        }
+        for (Event series : getRecurringEvents(userId)) {
+            for (long day : OccurrenceExpander.getInstance().occurrences(series, from, to)) {
+                counts[(int) (day - from)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Retrieves the one-off events of every user between two dates (inclusive), in (user id, date, id) order.
+     * The users subquery lets SQLite seek the (user id, date) index once per user instead of scanning events.
+     *
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return The non-recurring events within the range.
+     */
+    @Query("SELECT * FROM events WHERE `user id` IN (SELECT id FROM users) AND recurrence IS NULL "
+            + "AND date BETWEEN :from AND :to AND `deleted at` IS NULL ORDER BY `user id` ASC, date ASC, id ASC")
+    List<Event> getAllOneOffEventsBetween(long from, long to);
+
+    /**
+     * Retrieves the recurring series of every user, in user order.
+     *
+     * @return The series rows, one per recurring event.
+     */
+    @Query("SELECT * FROM events WHERE `user id` IN (SELECT id FROM users) AND recurrence IS NOT NULL "
+            + "AND `deleted at` IS NULL ORDER BY `user id` ASC")
+    List<Event> getAllRecurringEvents();
+
+    /**
+     * Retrieves the events of every user between two dates (inclusive), with recurring series
+     * expanded, grouped by user. Two queries cover all users, however many there are.
+     *
+     * @param from The first epoch day of the range.
+     * @param to The last epoch day of the range.
+     * @return The events and occurrences of each user with any in the range, in date order, keyed by user ID.
+     */
+    @Transaction
+    default Map<Integer, List<Event>> getEventsByUserBetween(long from, long to) {
+        Map<Integer, List<Event>> oneOffs = groupByUser(getAllOneOffEventsBetween(from, to));
+        Map<Integer, List<Event>> series = groupByUser(getAllRecurringEvents());
+        Map<Integer, List<Event>> byUser = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<Event>> entry : oneOffs.entrySet()) {
+            List<Event> userSeries = series.remove(entry.getKey());
+            byUser.put(entry.getKey(), OccurrenceExpander.getInstance().merge(entry.getValue(),
+                    userSeries != null ? userSeries : Collections.emptyList(), from, to));
+        }
+        for (Map.Entry<Integer, List<Event>> entry : series.entrySet()) {
+            List<Event> events = OccurrenceExpander.getInstance()
+                    .merge(Collections.emptyList(), entry.getValue(), from, to);
+            if (!events.isEmpty()) {
+                byUser.put(entry.getKey(), events);
+            }
+        }
+        return byUser;
+    }
+
+    /**
+     * Splits rows sorted by user into one list per user, keeping their order.
+     *
+     * @param events The rows, sorted by user ID.
+     * @return The rows of each user, keyed by user ID.
+     */
+    static Map<Integer, List<Event>> groupByUser(List<Event> events) {
+        Map<Integer, List<Event>> byUser = new LinkedHashMap<>();
+        for (Event event : events) {
+            List<Event> group = byUser.get(event.getUserId());
+            if (group == null) {
+                group = new ArrayList<>();
+                byUser.put(event.getUserId(), group);
+            }
+            group.add(event);
+        }
+        return byUser;
+    }
+
+    /**
+     * Observes an event by its ID, for the edit screen.
+     *
+     * @param id The ID of the event.
+     * @return A LiveData object containing the event, or null once it is deleted.
+     */
+    @Query("SELECT * FROM events WHERE id = :id AND `deleted at` IS NULL")
+    LiveData<Event> getEventById(int id);
+
+    /**
+     * Retrieves an event by its ID. Writers use it to learn which day an event is moved away from.
+     *
+     * @param id The ID of the event.
+     * @return The event, or null if it does not exist.
+     */
+    @Query("SELECT * FROM events WHERE id = :id AND `deleted at` IS NULL")
+    Event findEventById(int id);
+
+    /**
+     * Counts the events of a specific user.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData object containing the number of events.
+     */
+    @Query("SELECT COUNT(*) FROM events WHERE `user id` = :userId AND `deleted at` IS NULL")
+    LiveData<Integer> countEventsForUser(int userId);
+
+    /**
+     * Fingerprints the live events of some users. Every insert, update, delete and restore changes
+     * the count, a row version or the highest ID, so an unchanged fingerprint means unchanged events.
+     *
+     * @param userIds The IDs of the users.
+     * @return One row per user with any live event; users without one are left out.
+     */
+    @Query("SELECT `user id` AS userId, COUNT(*) || ':' || TOTAL(version) || ':' || MAX(id) AS fingerprint "
+            + "FROM events WHERE `user id` IN (:userIds) AND `deleted at` IS NULL GROUP BY `user id`")
+    List<EventsFingerprint> getEventsFingerprints(List<Integer> userIds);
+
+    /**
+     * Retrieves the first page of a user's events in (date, id) order.
+     *
+     * @param userId The ID of the user.
+     * @param limit The page size.
+     * @return The first events of the user.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND `deleted at` IS NULL ORDER BY date ASC, id ASC LIMIT :limit")
+    List<Event> getFirstEvents(int userId, int limit);
+
+    /**
+     * Retrieves the page of a user's events that follows the (date, id) position, in ascending order.
+     * The date bound is repeated outside the OR so SQLite seeks into the index instead of filtering.
+     *
+     * @param userId The ID of the user.
+     * @param date The epoch day of the last event already loaded.
+     * @param id The ID of the last event already loaded.
+     * @param limit The page size.
+     * @return The next events of the user.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND date >= :date AND (date > :date OR id > :id) "
+            + "AND `deleted at` IS NULL ORDER BY date ASC, id ASC LIMIT :limit")
+    List<Event> getEventsAfter(int userId, long date, int id, int limit);
+
+    /**
+     * Retrieves the page of a user's events that precedes the (date, id) position, in descending order.
+     *
+     * @param userId The ID of the user.
+     * @param date The epoch day of the first event already loaded.
+     * @param id The ID of the first event already loaded.
+     * @param limit The page size.
+     * @return The previous events of the user, closest first.
+     */
+    @Query("SELECT * FROM events WHERE `user id` = :userId AND date <= :date AND (date < :date OR id < :id) "
+            + "AND `deleted at` IS NULL ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Event> getEventsBefore(int userId, long date, int id, int limit);
+
+    /**
+     * Runs a ranked full-text search built by EventSearch.rankedQuery.
+     * The CROSS JOIN in it keeps the full-text index as the outer loop; otherwise SQLite walks the
+     * user's events and re-runs the MATCH for each of them.
+     *
+     * @param query The query with its arguments bound.
+     * @return The best matching events, best first.
+     */
+    @RawQuery
+    List<Event> getRankedSearchResults(SupportSQLiteQuery query);
+
+    /**
+     * Searches a user's events by title and description. Every word must match, as a prefix,
+     * and results are ranked with title hits and rare words counting the most.
+     *
+     * @param userId The ID of the user.
+     * @param query The text typed by the user.
+     * @param limit The maximum number of events to return.
+     * @return The matching events, best first.
+     */
+    default List<Event> searchEvents(int userId, String query, int limit) {
+        String match = EventSearch.toMatchExpression(query);
+        if (match == null) {
+            return Collections.emptyList();
+        }
+        return getRankedSearchResults(new SimpleSQLiteQuery(EventSearch.rankedQuery(match),
+                EventSearch.bindArgs(match, userId, limit)));
+    }
+
+    /**
+     * Deletes an event by turning it into a tombstone, a single-column update that
+     * restoreEvent can undo. Tombstones are removed for good by purgeDeletedEvents.
      *
      * @param event The event to delete.
+     * @return The number of rows deleted.
      */
-    @Delete
-    void deleteEvent(Event event);
+    default int deleteEvent(Event event) {
+        return markEventDeleted(event.getId(), System.currentTimeMillis());
+    }
 
     /**
-     * Updates an existing event in the database.
+     * Marks a live event as deleted and increments its row version.
+     *
+     * @param id The ID of the event.
+     * @param deletedAt The deletion time in epoch milliseconds.
+     * @return The number of rows marked.
+     */
+    @Query("UPDATE events SET `deleted at` = :deletedAt, version = version + 1 WHERE id = :id AND `deleted at` IS NULL")
+    int markEventDeleted(int id, long deletedAt);
+
+    /**
+     * Brings a deleted event back, as long as it has not been purged yet.
+     *
+     * @param id The ID of the event.
+     * @return The number of rows restored.
+     */
+    @Query("UPDATE events SET `deleted at` = NULL, version = version + 1 WHERE id = :id AND `deleted at` IS NOT NULL")
+    int restoreEvent(int id);
+
+    /**
+     * Removes up to limit tombstones deleted before the cutoff, oldest first. The bound keeps each
+     * transaction short, so compaction never holds the writer for long.
+     *
+     * @param cutoff Tombstones deleted before this time, in epoch milliseconds, are removed.
+     * @param limit The maximum number of rows to remove.
+     * @return The number of rows removed.
+     */
+    @Query("DELETE FROM events WHERE id IN (SELECT id FROM events WHERE `deleted at` IS NOT NULL "
+            + "AND `deleted at` < :cutoff ORDER BY `deleted at` ASC LIMIT :limit)")
+    int purgeDeletedEvents(long cutoff, int limit);
+
+    /**
+     * Updates an existing event in the database. The stored row version is incremented,
+     * whatever version the given event carries.
      *
      * @param event The event to update.
+     * @return The number of rows updated.
+     */
+    default int updateEvent(Event event) {
+        return updateEventFields(event.getId(), event.getTitle(), event.getDate(), event.getDescription(),
+                event.getUserId(), event.getRecurrence(), event.getReminders());
+    }
+
+    /**
+     * Updates the fields of an existing event and increments its row version.
+     *
+     * @param id The ID of the event.
+     * @param title The new title.
+     * @param date The new epoch day.
+     * @param description The new description.
+     * @param userId The ID of the user owning the event.
+     * @param recurrence The new RRULE, or null for a one-off event.
+     * @param reminders The new reminder offsets.
+     * @return The number of rows updated.
      */
-    @Update
-    void updateEvent(Event event);
+    @Query("UPDATE events SET title = :title, date = :date, description = :description, `user id` = :userId, "
+            + "recurrence = :recurrence, reminders = :reminders, version = version + 1 WHERE id = :id AND `deleted at` IS NULL")
+    int updateEventFields(int id, String title, long date, String description, int userId,
+                          String recurrence, String reminders);
 }
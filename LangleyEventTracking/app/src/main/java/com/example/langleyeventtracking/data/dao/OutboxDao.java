@@ -0,0 +1,120 @@
+package com.example.langleyeventtracking.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.langleyeventtracking.data.models.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Outbox Data Access Object (DAO)
+ * <p>
+ * The OutboxDao interface provides methods for interacting with the sms_outbox table in the database.
+ * It includes:
+ * - Enqueuing messages, ignoring any whose idempotency key is already stored.
+ * - Retrieving the pending messages that are due, oldest deadline first.
+ * - Recording the outcome of each attempt.
+ * - Finding when the next pending message becomes due.
+ * - Retrieving the messages sent recently, for the rate limit.
+ * - Purging finished messages.
+ * <p>
+ * This interface is used by Room to generate the necessary code for database operations.
+ *
+ * @author Joseph Langley
+ */
+@Dao
+public interface OutboxDao {
+
+    /**
+     * Enqueues a message unless one with the same idempotency key exists.
+     *
+     * @param message The message to enqueue.
+     * @return The row ID of the new message, or -1 if it was a duplicate.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long enqueue(OutboxMessage message);
+
+    /**
+     * Retrieves the pending messages whose next attempt is due.
+     *
+     * @param now The current time in epoch milliseconds.
+     * @param limit The maximum number of messages to return.
+     * @return The due messages, oldest deadline first.
+     */
+    @Query("SELECT * FROM sms_outbox WHERE status = 0 AND `next attempt at` <= :now "
+            + "ORDER BY `next attempt at` ASC, id ASC LIMIT :limit")
+    List<OutboxMessage> getDueMessages(long now, int limit);
+
+    /**
+     * Pushes back the next attempt of messages about to be sent, so a dispatcher killed
+     * mid-batch retries them later instead of never.
+     *
+     * @param ids The IDs of the messages.
+     * @param until The time in epoch milliseconds before which they are not picked again.
+     * @return The number of rows updated.
+     */
+    @Query("UPDATE sms_outbox SET attempts = attempts + 1, `next attempt at` = :until WHERE id IN (:ids)")
+    int claim(List<Long> ids, long until);
+
+    /**
+     * Marks a message as sent.
+     *
+     * @param id The ID of the message.
+     * @param sentAt The time in epoch milliseconds it was sent.
+     * @return The number of rows updated.
+     */
+    @Query("UPDATE sms_outbox SET status = 1, `next attempt at` = :sentAt, `last error` = NULL WHERE id = :id")
+    int markSent(long id, long sentAt);
+
+    /**
+     * Schedules another attempt for a message that failed.
+     *
+     * @param id The ID of the message.
+     * @param nextAttemptAt The time in epoch milliseconds of the next attempt.
+     * @param error The error of this attempt.
+     * @return The number of rows updated.
+     */
+    @Query("UPDATE sms_outbox SET `next attempt at` = :nextAttemptAt, `last error` = :error WHERE id = :id")
+    int markRetry(long id, long nextAttemptAt, String error);
+
+    /**
+     * Gives up on a message.
+     *
+     * @param id The ID of the message.
+     * @param failedAt The time in epoch milliseconds it was given up on.
+     * @param error The error of the last attempt.
+     * @return The number of rows updated.
+     */
+    @Query("UPDATE sms_outbox SET status = 2, `next attempt at` = :failedAt, `last error` = :error WHERE id = :id")
+    int markFailed(long id, long failedAt, String error);
+
+    /**
+     * Finds when the next pending message becomes due.
+     *
+     * @return The earliest next attempt time in epoch milliseconds, or null when nothing is pending.
+     */
+    @Query("SELECT MIN(`next attempt at`) FROM sms_outbox WHERE status = 0")
+    Long getNextAttemptAt();
+
+    /**
+     * Retrieves the messages sent after the given time; a sent message keeps its send time in `next attempt at`.
+     *
+     * @param since The time in epoch milliseconds.
+     * @return The messages, oldest send first.
+     */
+    @Query("SELECT * FROM sms_outbox WHERE status = 1 AND `next attempt at` > :since ORDER BY `next attempt at` ASC")
+    List<OutboxMessage> getSentSince(long since);
+
+    /**
+     * Deletes sent and failed messages that finished before the given time.
+     * Their idempotency keys are released, so keep this well behind the reminder horizon.
+     *
+     * @param before The time in epoch milliseconds.
+     * @return The number of rows deleted.
+     */
+    @Query("DELETE FROM sms_outbox WHERE status IN (1, 2) AND `next attempt at` < :before")
+    int deleteFinishedBefore(long before);
+}
@@ -15,8 +15,10 @@ import java.util.List;
  * The UserDao interface provides methods for interacting with the users table in the database.
  * It includes:
  * - Inserting new users.
- * - Retrieving users by email and password.
- * - Retrieving all users.
+ * - Retrieving users by email; the Authenticator checks the password hash afterwards.
+ * - Retrieving users by ID from background jobs, one at a time or several in one query.
+ * - Reading and setting the daily digest cutoff.
+ * - Replacing a user's password hash.
  * <p>
  * This interface is used by Room to generate the necessary code for database operations.
  *
@@ -29,9 +31,10 @@ public interface UserDao {
      * Inserts a new user into the database.
      *
      * @param user The user to insert.
+     * @return The row ID of the new user.
      */
     @Insert
-    void insertUser(User user);
+    long insertUser(User user);
 
     /**
      * Retrieves a user by email.
@@ -43,20 +46,66 @@ public interface UserDao {
     LiveData<User> getUserByEmail(String email);
 
     /**
-     * Retrieves a user by email and password.
+     * Retrieves a user by ID.
+     *
+     * @param id The ID of the user.
+     * @return The user, or null if there is none.
+     */
+    @Query("SELECT * FROM users WHERE id = :id")
+    User getUserById(int id);
+
+    /**
+     * Retrieves several users by ID in one query.
+     *
+     * @param ids The IDs of the users.
+     * @return The users that exist, in no particular order.
+     */
+    @Query("SELECT * FROM users WHERE id IN (:ids)")
+    List<User> getUsersByIds(List<Integer> ids);
+
+    /**
+     * Retrieves the IDs of every user, for background jobs that run across accounts.
+     *
+     * @return The user IDs.
+     */
+    @Query("SELECT id FROM users")
+    List<Integer> getUserIds();
+
+    /**
+     * Retrieves the time of day a user's daily digest is sent.
+     *
+     * @param id The ID of the user.
+     * @return A LiveData object containing minutes after midnight, or -1 for no digest.
+     */
+    @Query("SELECT `digest cutoff` FROM users WHERE id = :id")
+    LiveData<Integer> getDigestCutoff(int id);
+
+    /**
+     * Sets the time of day a user's daily digest is sent.
+     *
+     * @param id The ID of the user.
+     * @param minutes Minutes after midnight, or -1 for no digest.
+     * @return The number of rows updated.
+     */
+    @Query("UPDATE users SET `digest cutoff` = :minutes WHERE id = :id")
+    int setDigestCutoff(int id, int minutes);
+
+    /**
+     * Retrieves a user by email, for credential checks on a background thread.
      *
      * @param email The email of the user.
-     * @param password The password of the user.
-     * @return A LiveData object containing the user with the specified email and password.
+     * @return The user, or null if there is none.
      */
-    @Query("SELECT * FROM users WHERE email = :email AND password = :password")
-    LiveData<User> getUser(String email, String password);
+    @Query("SELECT * FROM users WHERE email = :email")
+    User findUserByEmail(String email);
 
     /**
-     * Retrieves all users from the database, ordered by ID in descending order.
+     * Replaces the stored password of a user.
      *
-     * @return A LiveData list of all users.
+     * @param id The ID of the user.
+     * @param password The new password hash.
+     * @return The number of rows updated.
      */
-    @Query("SELECT * FROM users ORDER BY id DESC")
-    LiveData<List<User>> getAllUsers();
+    @Query("UPDATE users SET password = :password WHERE id = :id")
+    int updatePassword(int id, String password);
 }
@@ -0,0 +1,207 @@
+package com.example.langleyeventtracking.data.io;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Event CSV Format
+ * <p>
+ * The EventCsvFormat class reads, parses and writes events stored as RFC 4180 CSV.
+ * It includes:
+ * - A streaming record reader that joins physical lines while a quoted field is still open.
+ * - A stateless record parser that maps "title,date,description" rows to events.
+ * - A record writer that appends one row per event, quoting fields only where needed.
+ * <p>
+ * Dates are written as ISO "yyyy-MM-dd". They are read as ISO too, with "MMMM d, yyyy"
+ * (English) accepted for files written by hand against the old display format.
+ *
+ * @author Joseph Langley
+ */
+public final class EventCsvFormat {
+
+    public static final String HEADER = "title,date,description\r\n"; // First row of exported files
+    private static final DateTimeFormatter LEGACY_DATE = DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.US);
+
+    private EventCsvFormat() {
+    }
+
+    /**
+     * Reads raw CSV records one at a time, keeping quoted line breaks inside their record.
+     * A header row at the start of the file is dropped, so it is not counted as a skipped row.
+     */
+    public static final class RecordReader implements EventImporter.RecordReader {
+
+        private final BufferedReader reader; // Source of physical lines
+        private boolean first = true; // Whether the next record is the first of the file
+
+        /**
+         * Constructor for RecordReader.
+         *
+         * @param reader The buffered reader to read from.
+         */
+        public RecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() throws IOException {
+            String record = nextRecord();
+            if (first) {
+                first = false;
+                if (record != null && isHeader(record)) {
+                    record = nextRecord();
+                }
+            }
+            return record;
+        }
+
+        private String nextRecord() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isEmpty()); // Skip blank lines
+            if (line == null || quoteCount(line) % 2 == 0) {
+                return line;
+            }
+            // An odd number of quotes means a quoted field continues on the next line
+            StringBuilder record = new StringBuilder(line);
+            int quotes = quoteCount(line);
+            while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+                record.append('\n').append(line);
+                quotes += quoteCount(line);
+            }
+            return record.toString();
+        }
+
+        private static boolean isHeader(String record) {
+            // Files saved by some editors start with a byte order mark
+            String text = record.startsWith("\uFEFF") ? record.substring(1) : record;
+            return text.trim().equalsIgnoreCase(HEADER.trim());
+        }
+
+        private static int quoteCount(String line) {
+            int count = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Parses one CSV record into an event.
+     *
+     * @param record The raw record, without its line terminator.
+     * @param userId The ID of the user the event belongs to.
+     * @return The parsed event, or null for the header row and rows without a title or valid date.
+     */
+    public static Event parse(String record, int userId) {
+        List<String> fields = split(record);
+        if (fields.size() < 2 || fields.get(0).isEmpty()) {
+            return null;
+        }
+        Long date = parseDate(fields.get(1));
+        if (date == null) {
+            return null; // Also skips the header row
+        }
+        Event event = new Event();
+        event.setTitle(fields.get(0));
+        event.setDate(date);
+        event.setDescription(fields.size() > 2 ? fields.get(2) : "");
+        event.setUserId(userId);
+        return event;
+    }
+
+    /**
+     * Appends one CSV row for an event, terminated by CRLF.
+     *
+     * @param out The buffer to append to.
+     * @param event The event to write.
+     */
+    public static void append(StringBuilder out, Event event) {
+        appendField(out, event.getTitle());
+        out.append(',').append(LocalDate.ofEpochDay(event.getDate())).append(',');
+        appendField(out, event.getDescription());
+        out.append("\r\n");
+    }
+
+    /**
+     * Appends a field, quoting it only when it contains a separator, quote or line break.
+     */
+    private static void appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static Long parseDate(String text) {
+        String trimmed = text.trim();
+        try {
+            return LocalDate.parse(trimmed).toEpochDay();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(trimmed, LEGACY_DATE).toEpochDay();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static List<String> split(String record) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"'); // Escaped quote
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.langleyeventtracking.data.io;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Event Exporter
+ * <p>
+ * The EventExporter class streams a user's events to a CSV or iCalendar stream.
+ * It includes:
+ * - Reading the events in (date, id) keyset chunks, so only one chunk is ever held in memory.
+ * - Encoding each chunk into a reused buffer and writing it through one buffered writer.
+ * - Progress reporting, throughput statistics and cooperative cancellation between chunks.
+ * <p>
+ * Keyset chunks are used instead of one long-lived Cursor because every CursorWindow refill
+ * re-runs the query and steps past all earlier rows, which grows quadratically with the export.
+ *
+ * @author Joseph Langley
+ */
+public class EventExporter {
+
+    private static final int CHUNK_SIZE = 500; // Events read per keyset query
+    private static final int BUFFER_SIZE = 64 * 1024; // Write buffer size in characters
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final EventDao eventDao; // Data Access Object for the keyset queries
+    private final AtomicBoolean cancelled = new AtomicBoolean(); // Set by cancel()
+
+    /**
+     * Receives progress updates on the exporting thread.
+     */
+    public interface ProgressListener {
+        void onProgress(long eventsExported, long bytesWritten);
+    }
+
+    /**
+     * Result of an export run.
+     */
+    public static final class Result {
+
+        public final long exported; // Events written
+        public final long bytesWritten; // Bytes written to the output stream
+        public final boolean cancelled; // Whether the run stopped early because of cancel()
+        public final long elapsedMillis; // Wall time of the run
+
+        Result(long exported, long bytesWritten, boolean cancelled, long elapsedMillis) {
+            this.exported = exported;
+            this.bytesWritten = bytesWritten;
+            this.cancelled = cancelled;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return The average write throughput in bytes per second.
+         */
+        public long bytesPerSecond() {
+            return bytesWritten * 1000 / Math.max(1, elapsedMillis);
+        }
+
+        /**
+         * @return The average number of events written per second.
+         */
+        public long eventsPerSecond() {
+            return exported * 1000 / Math.max(1, elapsedMillis);
+        }
+    }
+
+    /**
+     * Constructor for EventExporter.
+     *
+     * @param database The database to export from.
+     */
+    public EventExporter(EventAppDatabase database) {
+        this.eventDao = database.eventDao();
+    }
+
+    /**
+     * Requests cancellation. The export stops after the chunk currently being written.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Writes all events of a user to the stream. Blocks until done, so call it from a background thread.
+     *
+     * @param output The stream to write; it is closed when the export ends.
+     * @param format The format to write.
+     * @param userId The ID of the user whose events are exported.
+     * @param listener Receives progress after each chunk, may be null.
+     * @return The result of the export.
+     * @throws IOException If writing the stream fails.
+     */
+    public Result exportEvents(OutputStream output, EventFileFormat format, int userId,
+                               ProgressListener listener) throws IOException {
+        long startNanos = System.nanoTime();
+        boolean calendar = format == EventFileFormat.ICALENDAR;
+        String timestamp = ZonedDateTime.now(ZoneOffset.UTC).format(TIMESTAMP);
+        StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+        long exported = 0;
+
+        CountingOutputStream counting = new CountingOutputStream(output);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writer.write(calendar ? EventIcsFormat.HEADER : EventCsvFormat.HEADER);
+
+            List<Event> chunk = eventDao.getFirstEvents(userId, CHUNK_SIZE);
+            while (!chunk.isEmpty() && !cancelled.get()) {
+                buffer.setLength(0);
+                for (Event event : chunk) {
+                    if (calendar) {
+                        EventIcsFormat.append(buffer, event, timestamp);
+                    } else {
+                        EventCsvFormat.append(buffer, event);
+                    }
+                }
+                writer.append(buffer);
+                exported += chunk.size();
+                if (listener != null) {
+                    listener.onProgress(exported, counting.count);
+                }
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                Event last = chunk.get(chunk.size() - 1);
+                chunk = eventDao.getEventsAfter(userId, last.getDate(), last.getId(), CHUNK_SIZE);
+            }
+
+            if (calendar) {
+                writer.write(EventIcsFormat.FOOTER);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return new Result(exported, counting.count, cancelled.get(), elapsedMillis);
+    }
+
+    /**
+     * Output stream that counts the bytes written through it, for progress and throughput.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        volatile long count; // Bytes written so far
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            // FilterOutputStream writes arrays one byte at a time, so forward them whole
+            out.write(buffer, offset, length);
+            count += length;
+        }
+    }
+}
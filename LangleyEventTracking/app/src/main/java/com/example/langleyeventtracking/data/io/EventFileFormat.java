@@ -0,0 +1,48 @@
+package com.example.langleyeventtracking.data.io;
+
+import java.util.Locale;
+
+/**
+ * Event File Format
+ * <p>
+ * The EventFileFormat enum lists the file formats events can be imported from and exported to.
+ * It includes:
+ * - The MIME type and file extension of each format.
+ * - Detection of the format of a picked document from its MIME type or name.
+ * <p>
+ * This enum is used by EventImporter and EventExporter.
+ *
+ * @author Joseph Langley
+ */
+public enum EventFileFormat {
+    CSV("text/csv", ".csv"),
+    ICALENDAR("text/calendar", ".ics");
+
+    public final String mimeType; // MIME type used when creating documents
+    public final String extension; // File extension, including the dot
+
+    EventFileFormat(String mimeType, String extension) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+    }
+
+    /**
+     * Picks the format from a MIME type, falling back to the file name.
+     *
+     * @param mimeType The MIME type reported for the document, may be null.
+     * @param fileName The display name of the document, may be null.
+     * @return The detected format, CSV when nothing matches.
+     */
+    public static EventFileFormat detect(String mimeType, String fileName) {
+        if (ICALENDAR.mimeType.equals(mimeType)) {
+            return ICALENDAR;
+        }
+        if (fileName != null) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".ics") || lower.endsWith(".ical") || lower.endsWith(".ifb")) {
+                return ICALENDAR;
+            }
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.langleyeventtracking.data.io;
+
+import com.example.langleyeventtracking.data.RecurrenceRule;
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Event iCalendar Format
+ * <p>
+ * The EventIcsFormat class reads, parses and writes events stored as iCalendar (RFC 5545).
+ * It includes:
+ * - A streaming record reader that unfolds continuation lines and returns one VEVENT at a time.
+ * - A stateless record parser that maps SUMMARY, DTSTART, DESCRIPTION and RRULE to an event.
+ * - A record writer that appends one folded all-day VEVENT per event, used by the exporter.
+ * <p>
+ * A recurring event is written once, as its series, with its RRULE; readers expand it themselves.
+ * <p>
+ * Components other than VEVENT (VTIMEZONE, VTODO, ...) are skipped when reading.
+ *
+ * @author Joseph Langley
+ */
+public final class EventIcsFormat {
+
+    public static final String HEADER = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Langley Events//EN\r\n"; // Opens an exported calendar
+    public static final String FOOTER = "END:VCALENDAR\r\n"; // Closes an exported calendar
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int MAX_LINE_OCTETS = 75; // Content lines longer than this are folded
+
+    private EventIcsFormat() {
+    }
+
+    /**
+     * Reads unfolded VEVENT blocks one at a time.
+     */
+    public static final class RecordReader implements EventImporter.RecordReader {
+
+        private final BufferedReader reader; // Source of physical lines
+        private final StringBuilder record = new StringBuilder(); // Reused record buffer
+        private String pendingLine; // Physical line read ahead while unfolding
+
+        /**
+         * Constructor for RecordReader.
+         *
+         * @param reader The buffered reader to read from.
+         */
+        public RecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() throws IOException {
+            record.setLength(0);
+            boolean inEvent = false;
+            String line;
+            while ((line = nextContentLine()) != null) {
+                if (line.equalsIgnoreCase("BEGIN:VEVENT")) {
+                    inEvent = true;
+                    record.setLength(0);
+                } else if (line.equalsIgnoreCase("END:VEVENT")) {
+                    if (inEvent) {
+                        return record.toString();
+                    }
+                } else if (inEvent) {
+                    record.append(line).append('\n');
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Reads one logical content line, joining folded continuation lines (those starting with a space or tab).
+         */
+        private String nextContentLine() throws IOException {
+            String line = pendingLine != null ? pendingLine : reader.readLine();
+            pendingLine = null;
+            if (line == null) {
+                return null;
+            }
+            StringBuilder unfolded = null;
+            String next;
+            while ((next = reader.readLine()) != null && !next.isEmpty()
+                    && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+                if (unfolded == null) {
+                    unfolded = new StringBuilder(line);
+                }
+                unfolded.append(next, 1, next.length());
+            }
+            pendingLine = next;
+            return unfolded == null ? line : unfolded.toString();
+        }
+    }
+
+    /**
+     * Parses one unfolded VEVENT body into an event.
+     *
+     * @param record The content lines between BEGIN:VEVENT and END:VEVENT, separated by '\n'.
+     * @param userId The ID of the user the event belongs to.
+     * @return The parsed event, or null when it has no SUMMARY or no valid DTSTART.
+     */
+    public static Event parse(String record, int userId) {
+        String summary = null;
+        String description = "";
+        Long date = null;
+        String recurrence = null;
+
+        int start = 0;
+        while (start < record.length()) {
+            int end = record.indexOf('\n', start);
+            if (end < 0) {
+                end = record.length();
+            }
+            String line = record.substring(start, end);
+            start = end + 1;
+
+            int colon = valueSeparator(line);
+            if (colon < 0) {
+                continue;
+            }
+            int semicolon = line.indexOf(';');
+            String name = line.substring(0, semicolon >= 0 && semicolon < colon ? semicolon : colon).toUpperCase();
+            String value = line.substring(colon + 1);
+            switch (name) {
+                case "SUMMARY":
+                    summary = unescape(value);
+                    break;
+                case "DESCRIPTION":
+                    description = unescape(value);
+                    break;
+                case "DTSTART":
+                    date = parseDate(value);
+                    break;
+                case "RRULE":
+                    recurrence = parseRecurrence(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (summary == null || summary.isEmpty() || date == null) {
+            return null;
+        }
+        Event event = new Event();
+        event.setTitle(summary);
+        event.setDate(date);
+        event.setDescription(description);
+        event.setUserId(userId);
+        event.setRecurrence(recurrence);
+        return event;
+    }
+
+    /**
+     * Appends one all-day VEVENT for an event.
+     *
+     * @param out The buffer to append to.
+     * @param event The event to write.
+     * @param timestamp The DTSTAMP value shared by the whole export, in UTC ("yyyyMMdd'T'HHmmss'Z'").
+     */
+    public static void append(StringBuilder out, Event event, String timestamp) {
+        out.append("BEGIN:VEVENT\r\n");
+        out.append("UID:").append(event.getId()).append("@langleyevents\r\n");
+        out.append("DTSTAMP:").append(timestamp).append("\r\n");
+        out.append("DTSTART;VALUE=DATE:").append(LocalDate.ofEpochDay(event.getSeriesStart()).format(DATE)).append("\r\n");
+        if (event.getRecurrence() != null) {
+            out.append("RRULE:").append(event.getRecurrence()).append("\r\n");
+        }
+        appendText(out, "SUMMARY:", event.getTitle());
+        if (event.getDescription() != null && !event.getDescription().isEmpty()) {
+            appendText(out, "DESCRIPTION:", event.getDescription());
+        }
+        out.append("END:VEVENT\r\n");
+    }
+
+    /**
+     * Appends an escaped TEXT property, folding it at 75 octets without splitting surrogate pairs.
+     */
+    private static void appendText(StringBuilder out, String name, String value) {
+        out.append(name);
+        int octets = name.length();
+        String text = value == null ? "" : value;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String escaped;
+            switch (c) {
+                case '\\':
+                    escaped = "\\\\";
+                    break;
+                case ';':
+                    escaped = "\\;";
+                    break;
+                case ',':
+                    escaped = "\\,";
+                    break;
+                case '\n':
+                    escaped = "\\n";
+                    break;
+                case '\r':
+                    continue;
+                default:
+                    escaped = null;
+                    break;
+            }
+            boolean pair = escaped == null && Character.isHighSurrogate(c) && i + 1 < text.length();
+            int size = escaped != null ? escaped.length() : pair ? 4 : c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            if (escaped != null) {
+                out.append(escaped);
+            } else if (pair) {
+                out.append(c).append(text.charAt(++i));
+            } else {
+                out.append(c);
+            }
+            octets += size;
+        }
+        out.append("\r\n");
+    }
+
+    /**
+     * Finds the colon separating name and parameters from the value, skipping colons inside quoted parameter values.
+     */
+    private static int valueSeparator(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a DATE ("20240616") or DATE-TIME ("20240616T090000", optionally UTC with a trailing 'Z')
+     * value into the local epoch day.
+     */
+    private static Long parseDate(String value) {
+        try {
+            if (value.length() == 8) {
+                return LocalDate.of(Integer.parseInt(value.substring(0, 4)),
+                        Integer.parseInt(value.substring(4, 6)),
+                        Integer.parseInt(value.substring(6, 8))).toEpochDay();
+            }
+            if (value.endsWith("Z")) {
+                return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME)
+                        .atOffset(ZoneOffset.UTC)
+                        .atZoneSameInstant(ZoneId.systemDefault())
+                        .toLocalDate().toEpochDay();
+            }
+            return LocalDateTime.parse(value, DATE_TIME).toLocalDate().toEpochDay();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Keeps an RRULE only when the app can expand it, so unsupported rules import as one-off events.
+     */
+    private static String parseRecurrence(String value) {
+        try {
+            RecurrenceRule.parse(value);
+            return value.trim();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder text = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                text.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.langleyeventtracking.data.io;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.EventWriteQueue;
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event Importer
+ * <p>
+ * The EventImporter class bulk imports events from CSV or iCalendar streams.
+ * It includes:
+ * - Incremental reading, so the file is never held in memory as a whole.
+ * - Parsing of record chunks in parallel, with a bounded number of chunks in flight.
+ * - Insertion of each chunk, in file order, through a multi-row insert submitted to the EventWriteQueue,
+ *   so imports share the single writer with every other write instead of contending with it.
+ * - Progress reporting and cooperative cancellation between chunks.
+ * <p>
+ * Chunks committed before a cancellation or an error stay imported.
+ *
+ * @author Joseph Langley
+ */
+public class EventImporter {
+
+    private static final int CHUNK_SIZE = 1000; // Records parsed and inserted together
+    private static final int BUFFER_SIZE = 64 * 1024; // Read buffer size in characters
+
+    private final EventDao eventDao; // Data Access Object for the multi-row insert
+    private final EventWriteQueue writeQueue; // Single writer the chunks are inserted through
+    private final AtomicBoolean cancelled = new AtomicBoolean(); // Set by cancel()
+
+    /**
+     * Reads raw records from a stream, one at a time.
+     */
+    public interface RecordReader {
+        /**
+         * @return The next raw record, or null at the end of the stream.
+         */
+        String next() throws IOException;
+    }
+
+    /**
+     * Parses a raw record into an event, returning null for records that should be skipped.
+     */
+    public interface RecordParser {
+        Event parse(String record, int userId);
+    }
+
+    /**
+     * Receives progress updates on the importing thread.
+     */
+    public interface ProgressListener {
+        void onProgress(long eventsImported, long bytesRead, long totalBytes);
+    }
+
+    /**
+     * Result of an import run.
+     */
+    public static final class Result {
+
+        public final long imported; // Events inserted
+        public final long skipped; // Records that could not be parsed
+        public final boolean cancelled; // Whether the run stopped early because of cancel()
+        public final long elapsedMillis; // Wall time of the run
+
+        Result(long imported, long skipped, boolean cancelled, long elapsedMillis) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.cancelled = cancelled;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * Constructor for EventImporter.
+     *
+     * @param database The database to import into.
+     * @param writeQueue The write queue of that database.
+     */
+    public EventImporter(EventAppDatabase database, EventWriteQueue writeQueue) {
+        this.eventDao = database.eventDao();
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Requests cancellation. The import stops after the chunk currently being inserted.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Imports all events from the stream. Blocks until done, so call it from a background thread.
+     *
+     * @param input The stream to read; it is closed when the import ends.
+     * @param totalBytes The stream length if known, or -1.
+     * @param format The format of the stream.
+     * @param userId The ID of the user the events belong to.
+     * @param listener Receives progress after each committed chunk, may be null.
+     * @return The result of the import.
+     * @throws IOException If reading the stream or inserting a chunk fails.
+     */
+    public Result importEvents(InputStream input, long totalBytes, EventFileFormat format, int userId,
+                               ProgressListener listener) throws IOException {
+        long startNanos = System.nanoTime();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int maxInFlight = threads * 2; // Bounds memory to a few chunks regardless of file size
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<List<Event>>> inFlight = new ArrayDeque<>();
+        RecordParser parser = format == EventFileFormat.ICALENDAR ? EventIcsFormat::parse : EventCsvFormat::parse;
+        AtomicLong skipped = new AtomicLong();
+        long imported = 0;
+
+        try (CountingInputStream counting = new CountingInputStream(input);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counting, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            RecordReader recordReader = format == EventFileFormat.ICALENDAR
+                    ? new EventIcsFormat.RecordReader(reader)
+                    : new EventCsvFormat.RecordReader(reader);
+
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String record;
+            while (!cancelled.get() && (record = recordReader.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == CHUNK_SIZE) {
+                    inFlight.add(submitChunk(parsers, parser, chunk, userId, skipped));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    if (inFlight.size() >= maxInFlight) {
+                        imported += insertChunk(inFlight.poll());
+                        report(listener, imported, counting.count, totalBytes);
+                    }
+                }
+            }
+            if (!chunk.isEmpty() && !cancelled.get()) {
+                inFlight.add(submitChunk(parsers, parser, chunk, userId, skipped));
+            }
+            while (!inFlight.isEmpty() && !cancelled.get()) {
+                imported += insertChunk(inFlight.poll());
+                report(listener, imported, counting.count, totalBytes);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return new Result(imported, skipped.get(), cancelled.get(), elapsedMillis);
+    }
+
+    private static Future<List<Event>> submitChunk(ExecutorService parsers, RecordParser parser,
+                                                   List<String> chunk, int userId, AtomicLong skipped) {
+        return parsers.submit(() -> {
+            List<Event> events = new ArrayList<>(chunk.size());
+            for (String record : chunk) {
+                Event event = parser.parse(record, userId);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+            skipped.addAndGet(chunk.size() - events.size());
+            return events;
+        });
+    }
+
+    /**
+     * Waits for a parsed chunk, inserts it through the write queue and waits for the commit,
+     * so chunks land in file order and at most one is queued at a time.
+     *
+     * @return The number of events inserted.
+     */
+    private int insertChunk(Future<List<Event>> parsed) throws IOException {
+        List<Event> events;
+        try {
+            events = parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse records", e.getCause());
+        }
+        if (!events.isEmpty()) {
+            try {
+                writeQueue.submit(() -> {
+                    eventDao.insertEvents(events);
+                    return null;
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to insert events", e.getCause());
+            }
+        }
+        return events.size();
+    }
+
+    private static void report(ProgressListener listener, long imported, long bytesRead, long totalBytes) {
+        if (listener != null) {
+            listener.onProgress(imported, bytesRead, totalBytes);
+        }
+    }
+
+    /**
+     * Input stream that counts the bytes read through it, for progress reporting.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        volatile long count; // Bytes read so far
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
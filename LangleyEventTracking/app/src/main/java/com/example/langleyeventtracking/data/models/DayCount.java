@@ -0,0 +1,59 @@
+package com.example.langleyeventtracking.data.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Day Count
+ * <p>
+ * The DayCount class is one row of a per-day aggregate over the events table. It includes:
+ * - The epoch day.
+ * - The number of events stored on that day.
+ * <p>
+ * This class is returned by EventDao.getOneOffCountsByDay and folded into a MonthSummary.
+ *
+ * @author Joseph Langley
+ */
+public class DayCount {
+
+    @ColumnInfo(name = "day")
+    private long day; // Epoch day of the group
+
+    @ColumnInfo(name = "count")
+    private int count; // Number of events on the day
+
+    /**
+     * Gets the epoch day of the group.
+     *
+     * @return The epoch day.
+     */
+    public long getDay() {
+        return day;
+    }
+
+    /**
+     * Sets the epoch day of the group.
+     *
+     * @param day The epoch day to set.
+     */
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    /**
+     * Gets the number of events on the day.
+     *
+     * @return The number of events.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of events on the day.
+     *
+     * @param count The number of events to set.
+     */
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
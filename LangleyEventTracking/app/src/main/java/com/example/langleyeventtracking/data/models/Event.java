@@ -2,6 +2,8 @@ package com.example.langleyeventtracking.data.models;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Objects;
@@ -12,15 +14,29 @@ import java.util.Objects;
  * The Event class represents an event in the database. It includes:
  * - An auto-generated primary key ID.
  * - A title for the event.
- * - A date for the event.
+ * - A date for the event, stored as an epoch day (days since 1970-01-01).
  * - A description of the event.
  * - The user ID associated with the event.
+ * - An optional RRULE-style recurrence rule, in which case the date is the first occurrence of the series.
+ * - Optional reminder offsets, in minutes before the event.
+ * - A row version, incremented by every update, so list diffs compare one number instead of every field.
+ * - A deletion time: a deleted event stays as a tombstone, so it can be restored, until compaction removes it.
  * <p>
- * This class is used by Room to create and manage the events table.
+ * This class is used by Room to create and manage the events table. The composite
+ * (user id, date) index lets per-user date ordering and range queries be answered
+ * from the index instead of a full scan and sort, and the (user id, recurrence) index
+ * finds a user's recurring series without touching one-off events. Both are partial indexes over
+ * live events only (see EventAppMigrations), and the deleted at index holds only tombstones.
+ * <p>
+ * Occurrences expanded by OccurrenceExpander are copies of their series row with the date
+ * of the occurrence; getSeriesStart() gives back the date stored in the database.
  *
  * @author Joseph Langley
  */
-@Entity(tableName = "events")
+@Entity(tableName = "events",
+        indices = {@Index(name = "index_events_user_id_date", value = {"user id", "date"}),
+                @Index(name = "index_events_user_id_recurrence", value = {"user id", "recurrence"}),
+                @Index(name = "index_events_deleted_at", value = {"deleted at"})})
 public class Event {
 
     @PrimaryKey(autoGenerate = true)
@@ -31,7 +47,7 @@ public class Event {
     private String title; // Title of the event
 
     @ColumnInfo(name = "date")
-    private String date; // Date of the event
+    private long date; // Date of the event as an epoch day
 
     @ColumnInfo(name = "description")
     private String description; // Description of the event
@@ -39,6 +55,21 @@ public class Event {
     @ColumnInfo(name = "user id")
     private int userId; // User ID associated with the event
 
+    @ColumnInfo(name = "recurrence")
+    private String recurrence; // RRULE of a recurring series, or null for a one-off event
+
+    @ColumnInfo(name = "reminders")
+    private String reminders; // Comma separated reminder offsets in minutes, "" for none, null for the default
+
+    @ColumnInfo(name = "version", defaultValue = "0")
+    private long version; // Incremented by EventDao.updateEvent, never decreases for a row
+
+    @ColumnInfo(name = "deleted at")
+    private Long deletedAt; // Epoch millis the event was deleted at, or null for a live event
+
+    @Ignore
+    private long seriesStart = Long.MIN_VALUE; // Stored date of the series when this is an expanded occurrence
+
     /**
      * Gets the event ID.
      *
@@ -78,18 +109,18 @@ public class Event {
     /**
      * Gets the date of the event.
      *
-     * @return The event date.
+     * @return The event date as an epoch day.
      */
-    public String getDate() {
+    public long getDate() {
         return date;
     }
 
     /**
      * Sets the date of the event.
      *
-     * @param date The event date to set.
+     * @param date The event date to set, as an epoch day.
      */
-    public void setDate(String date) {
+    public void setDate(long date) {
         this.date = date;
     }
 
@@ -129,6 +160,118 @@ public class Event {
         this.userId = userId;
     }
 
+    /**
+     * Gets the recurrence rule of the event.
+     *
+     * @return The RRULE value (for example "FREQ=YEARLY"), or null for a one-off event.
+     */
+    public String getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Sets the recurrence rule of the event.
+     *
+     * @param recurrence The RRULE value to set, or null for a one-off event.
+     */
+    public void setRecurrence(String recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Gets the reminder offsets of the event.
+     *
+     * @return Comma separated offsets in minutes before the event, "" for no reminder, or null for the default.
+     */
+    public String getReminders() {
+        return reminders;
+    }
+
+    /**
+     * Sets the reminder offsets of the event.
+     *
+     * @param reminders Comma separated offsets in minutes before the event, "" for no reminder, or null for the default.
+     */
+    public void setReminders(String reminders) {
+        this.reminders = reminders;
+    }
+
+    /**
+     * Gets the row version of the event.
+     *
+     * @return The number of updates the row has had.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the row version of the event. Only Room should call this; updates bump the stored version themselves.
+     *
+     * @param version The row version.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets when the event was deleted.
+     *
+     * @return The deletion time in epoch milliseconds, or null if the event is live.
+     */
+    public Long getDeletedAt() {
+        return deletedAt;
+    }
+
+    /**
+     * Sets when the event was deleted. Only Room should call this; EventDao.deleteEvent stamps the row itself.
+     *
+     * @param deletedAt The deletion time in epoch milliseconds, or null for a live event.
+     */
+    public void setDeletedAt(Long deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    /**
+     * Checks whether the event is a recurring series or one of its occurrences.
+     *
+     * @return True if the event has a recurrence rule.
+     */
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    /**
+     * Gets the date stored for the event's series. For an expanded occurrence this is the
+     * first occurrence of the series, otherwise it is the event date.
+     *
+     * @return The series start as an epoch day.
+     */
+    public long getSeriesStart() {
+        return seriesStart == Long.MIN_VALUE ? date : seriesStart;
+    }
+
+    /**
+     * Creates the occurrence of this series that falls on the given day.
+     *
+     * @param day The epoch day of the occurrence.
+     * @return A copy of this event dated on the occurrence day.
+     */
+    public Event occurrenceOn(long day) {
+        Event occurrence = new Event();
+        occurrence.id = id;
+        occurrence.title = title;
+        occurrence.date = day;
+        occurrence.description = description;
+        occurrence.userId = userId;
+        occurrence.recurrence = recurrence;
+        occurrence.reminders = reminders;
+        occurrence.version = version;
+        occurrence.deletedAt = deletedAt;
+        occurrence.seriesStart = getSeriesStart();
+        return occurrence;
+    }
+
     // Override equals and hashCode methods
     @Override
     public boolean equals(Object o) {
@@ -137,13 +280,17 @@ public class Event {
         Event event = (Event) o;
         return id == event.id &&
                 userId == event.userId &&
+                version == event.version &&
+                date == event.date &&
                 Objects.equals(title, event.title) &&
-                Objects.equals(date, event.date) &&
-                Objects.equals(description, event.description);
+                Objects.equals(description, event.description) &&
+                Objects.equals(recurrence, event.recurrence) &&
+                Objects.equals(reminders, event.reminders) &&
+                Objects.equals(deletedAt, event.deletedAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, date, description, userId);
+        return Objects.hash(id, title, date, description, userId, recurrence, reminders, version, deletedAt);
     }
 }
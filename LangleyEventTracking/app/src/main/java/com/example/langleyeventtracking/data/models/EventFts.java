@@ -0,0 +1,66 @@
+package com.example.langleyeventtracking.data.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Event Full-Text Search Entity
+ * <p>
+ * The EventFts class represents the full-text index over event titles and descriptions. It includes:
+ * - The title of the event.
+ * - The description of the event.
+ * <p>
+ * This class is used by Room to create the events_fts FTS4 table. It is an external content
+ * table over events: it stores only the index, its rowid is the event ID, and Room keeps it in
+ * sync with triggers on the events table.
+ *
+ * @author Joseph Langley
+ */
+@Fts4(contentEntity = Event.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "events_fts")
+public class EventFts {
+
+    @ColumnInfo(name = "title")
+    private String title; // Title of the event
+
+    @ColumnInfo(name = "description")
+    private String description; // Description of the event
+
+    /**
+     * Gets the event title.
+     *
+     * @return The event title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the event title.
+     *
+     * @param title The event title to set.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the event description.
+     *
+     * @return The event description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the event description.
+     *
+     * @param description The event description to set.
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
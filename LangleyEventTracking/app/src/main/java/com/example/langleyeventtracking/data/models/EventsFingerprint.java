@@ -0,0 +1,60 @@
+package com.example.langleyeventtracking.data.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Events Fingerprint
+ * <p>
+ * The EventsFingerprint class is one row of a per-user aggregate over the live events. It includes:
+ * - The ID of the user.
+ * - A fingerprint of the user's events, made of their count, the sum of their row versions and the highest ID.
+ * <p>
+ * This class is returned by EventDao.getEventsFingerprints, which EventCache uses to tell which users
+ * an invalidation of the events table actually changed.
+ *
+ * @author Joseph Langley
+ */
+public class EventsFingerprint {
+
+    @ColumnInfo(name = "userId")
+    private int userId; // ID of the user the events belong to
+
+    @ColumnInfo(name = "fingerprint")
+    private String fingerprint; // "count:version sum:highest id" of the user's live events
+
+    /**
+     * Gets the ID of the user.
+     *
+     * @return The user ID.
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Sets the ID of the user.
+     *
+     * @param userId The user ID to set.
+     */
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Gets the fingerprint of the user's live events.
+     *
+     * @return The fingerprint.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets the fingerprint of the user's live events.
+     *
+     * @param fingerprint The fingerprint to set.
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.langleyeventtracking.data.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Outbox Message Entity
+ * <p>
+ * The OutboxMessage class represents one SMS waiting in, or already sent from, the outbox. It includes:
+ * - An auto-generated primary key ID.
+ * - An idempotency key, unique, so the same reminder can be enqueued any number of times but is stored once.
+ * - The destination phone number and the message body.
+ * - The delivery status, the number of attempts and when the next attempt is allowed.
+ * - The creation time and the last error, for diagnostics.
+ * <p>
+ * This class is used by Room to create and manage the sms_outbox table. The (status, next attempt at)
+ * index lets the dispatcher pick the due messages without scanning sent ones.
+ *
+ * @author Joseph Langley
+ */
+@Entity(tableName = "sms_outbox",
+        indices = {@Index(name = "index_sms_outbox_idempotency_key", value = {"idempotency key"}, unique = true),
+                @Index(name = "index_sms_outbox_status_next_attempt_at", value = {"status", "next attempt at"})})
+public class OutboxMessage {
+
+    public static final int STATUS_PENDING = 0; // Waiting to be sent or retried
+    public static final int STATUS_SENT = 1; // Handed to the carrier
+    public static final int STATUS_FAILED = 2; // Given up on, see the last error
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id; // Primary key for the message
+
+    @ColumnInfo(name = "idempotency key")
+    private String idempotencyKey; // Identifies what the message is about, e.g. "reminder:12:20250:1440"
+
+    @ColumnInfo(name = "phone")
+    private String phone; // Destination phone number
+
+    @ColumnInfo(name = "body")
+    private String body; // Text of the message
+
+    @ColumnInfo(name = "status")
+    private int status; // One of the STATUS_ constants
+
+    @ColumnInfo(name = "attempts")
+    private int attempts; // Send attempts so far
+
+    @ColumnInfo(name = "next attempt at")
+    private long nextAttemptAt; // Epoch milliseconds before which the message is not sent; when it finished otherwise
+
+    @ColumnInfo(name = "created at")
+    private long createdAt; // Epoch milliseconds the message was enqueued
+
+    @ColumnInfo(name = "last error")
+    private String lastError; // Message of the last failed attempt, if any
+
+    /**
+     * Gets the message ID.
+     *
+     * @return The message ID.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the message ID.
+     *
+     * @param id The message ID to set.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the idempotency key of the message.
+     *
+     * @return The idempotency key.
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Sets the idempotency key of the message.
+     *
+     * @param idempotencyKey The idempotency key to set.
+     */
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * Gets the destination phone number.
+     *
+     * @return The phone number.
+     */
+    public String getPhone() {
+        return phone;
+    }
+
+    /**
+     * Sets the destination phone number.
+     *
+     * @param phone The phone number to set.
+     */
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    /**
+     * Gets the text of the message.
+     *
+     * @return The message body.
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Sets the text of the message.
+     *
+     * @param body The message body to set.
+     */
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    /**
+     * Gets the delivery status.
+     *
+     * @return One of the STATUS_ constants.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the delivery status.
+     *
+     * @param status One of the STATUS_ constants.
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the number of send attempts so far.
+     *
+     * @return The attempt count.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Sets the number of send attempts so far.
+     *
+     * @param attempts The attempt count to set.
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Gets the time before which the message is not sent.
+     *
+     * @return The time in epoch milliseconds.
+     */
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    /**
+     * Sets the time before which the message is not sent.
+     *
+     * @param nextAttemptAt The time in epoch milliseconds.
+     */
+    public void setNextAttemptAt(long nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * Gets the time the message was enqueued.
+     *
+     * @return The time in epoch milliseconds.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets the time the message was enqueued.
+     *
+     * @param createdAt The time in epoch milliseconds.
+     */
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets the error of the last failed attempt.
+     *
+     * @return The error message, or null.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Sets the error of the last failed attempt.
+     *
+     * @param lastError The error message to set.
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.langleyeventtracking.data.models;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
@@ -12,15 +13,19 @@ import androidx.room.PrimaryKey;
  * - The user's name.
  * - The user's birthday.
  * - The user's email.
- * - The user's password.
+ * - The user's salted password hash; rows created before hashing hold plaintext until the next login.
+ * - The time of day the user's daily digest is sent.
  * <p>
- * This class is used by Room to create and manage the users table.
+ * This class is used by Room to create and manage the users table. Email is backed by a
+ * unique index, so login and duplicate-account lookups do not scan the table.
  *
  * @author Joseph Langley
  */
-@Entity(tableName = "users")
+@Entity(tableName = "users",
+        indices = {@Index(name = "index_users_email", value = {"email"}, unique = true)})
 public class User {
 
+    public static final int DEFAULT_DIGEST_CUTOFF = 8 * 60; // 8:00 AM, in minutes after midnight
 
     @PrimaryKey(autoGenerate = true)
     @ColumnInfo(name = "id")
@@ -39,7 +44,10 @@ public class User {
     private String email; // User's email
 
     @ColumnInfo(name = "password")
-    private String password; // User's password
+    private String password; // User's password hash, see PasswordHasher
+
+    @ColumnInfo(name = "digest cutoff", defaultValue = "480")
+    private int digestCutoff = DEFAULT_DIGEST_CUTOFF; // Minutes after midnight the daily digest is sent, -1 for no digest
 
     /**
      * Gets the user ID.
@@ -139,4 +147,22 @@ public class User {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    /**
+     * Gets the time of day the user's daily digest is sent.
+     *
+     * @return Minutes after midnight, or -1 if the user gets no digest.
+     */
+    public int getDigestCutoff() {
+        return digestCutoff;
+    }
+
+    /**
+     * Sets the time of day the user's daily digest is sent.
+     *
+     * @param digestCutoff Minutes after midnight, or -1 for no digest.
+     */
+    public void setDigestCutoff(int digestCutoff) {
+        this.digestCutoff = digestCutoff;
+    }
 }
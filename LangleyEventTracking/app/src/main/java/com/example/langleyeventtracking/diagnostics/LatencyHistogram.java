@@ -0,0 +1,138 @@
+package com.example.langleyeventtracking.diagnostics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency Histogram
+ * <p>
+ * The LatencyHistogram class counts durations in exponentially sized buckets.
+ * It includes:
+ * - Lock-free recording from any thread.
+ * - Percentile estimates that overestimate by at most 10%, from 10 microseconds up to about 4 minutes.
+ * - A one-line summary for logs and diagnostics screens.
+ * <p>
+ * Memory is fixed at one counter per bucket, however many durations are recorded.
+ *
+ * @author Joseph Langley
+ */
+public class LatencyHistogram {
+
+    private static final double GROWTH = 1.1; // Ratio between consecutive bucket bounds
+    private static final long MIN_NANOS = 10_000; // Upper bound of the first bucket
+    private static final int BUCKETS = 180; // Covers up to MIN_NANOS * GROWTH^179, about 4 minutes
+    private static final long[] UPPER_BOUNDS = new long[BUCKETS]; // Upper bound of each bucket in nanoseconds
+
+    static {
+        double bound = MIN_NANOS;
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS[i] = (long) bound;
+            bound *= GROWTH;
+        }
+        UPPER_BOUNDS[BUCKETS - 1] = Long.MAX_VALUE;
+    }
+
+    private final String name; // Shown in the summary
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Recorded durations per bucket
+
+    /**
+     * Constructor for LatencyHistogram.
+     *
+     * @param name The name shown in the summary, e.g. "login".
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the histogram.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The count.
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in.
+     *
+     * @param percentile The percentile between 0 and 100, e.g. 99.
+     * @return The estimate in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)) {
+                return UPPER_BOUNDS[i];
+            }
+        }
+        return UPPER_BOUNDS[BUCKETS - 1];
+    }
+
+    /**
+     * Clears every recorded duration.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Summarizes the histogram, e.g. "login n=12 p50=210.0ms p90=260.1ms p99=301.7ms".
+     *
+     * @return The summary.
+     */
+    public String summary() {
+        return String.format(Locale.US, "%s n=%d p50=%.1fms p90=%.1fms p99=%.1fms", name, count(),
+                percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6);
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos <= MIN_NANOS) {
+            return 0;
+        }
+        int index = (int) Math.ceil(Math.log((double) nanos / MIN_NANOS) / Math.log(GROWTH));
+        // Correct for floating point error at the bucket edges
+        while (index > 0 && nanos <= UPPER_BOUNDS[index - 1]) {
+            index--;
+        }
+        while (index < BUCKETS - 1 && nanos > UPPER_BOUNDS[index]) {
+            index++;
+        }
+        return Math.min(index, BUCKETS - 1);
+    }
+}
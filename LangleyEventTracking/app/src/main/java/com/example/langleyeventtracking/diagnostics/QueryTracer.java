@@ -0,0 +1,305 @@
+package com.example.langleyeventtracking.diagnostics;
+
+import android.content.Context;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Query Tracer
+ * <p>
+ * The QueryTracer class measures every call made through the Room DAOs. It includes:
+ * - Wrapping each DAO interface so every call is timed, with its row count and calling thread.
+ * - Receiving each SQL statement from Room's query callback on the thread that runs it, and
+ *   charging a call's latency to its statement when the call ran exactly one.
+ * - Flagging any call or statement that runs on the main thread.
+ * - Appending slow and main-thread calls to the SlowQueryLog.
+ * - A text report of the per-call and per-statement histograms for the diagnostics screen.
+ * <p>
+ * Room's query callback only reports a statement before it runs, which is why the timing comes from
+ * the DAO wrappers. Calls returning LiveData are passed through untimed, since their queries run later
+ * on Room's own executor; their statements are still counted.
+ *
+ * @author Joseph Langley
+ */
+public class QueryTracer {
+
+    private static final String TAG = "QueryTracer";
+    public static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(50); // Calls at least this slow are logged
+    private static final int MAX_STATEMENTS = 200; // Distinct statements tracked; IN lists make one per list size
+    private static final String OTHER_STATEMENTS = "(other statements)"; // Key for statements past MAX_STATEMENTS
+    private static final int MAX_NAME_LENGTH = 120; // Statements are shortened to this in the report
+
+    private static QueryTracer instance; // Singleton instance, shared by the app's database
+
+    private final SlowQueryLog slowQueryLog; // Receives slow and main-thread calls
+    private final long slowQueryNanos; // Threshold for the slow query log
+    private final Map<String, Stats> calls = new ConcurrentHashMap<>(); // Keyed by "Dao.method"
+    private final Map<String, Stats> statements = new ConcurrentHashMap<>(); // Keyed by SQL
+    private final AtomicLong mainThreadCalls = new AtomicLong(); // DAO calls made on the main thread
+    private final ThreadLocal<Call> currentCall = new ThreadLocal<>(); // Innermost traced call on each thread
+
+    /**
+     * Gets the singleton instance of the QueryTracer, logging to the app's files directory.
+     *
+     * @param context Any context.
+     * @return The singleton instance of the QueryTracer.
+     */
+    public static synchronized QueryTracer getInstance(Context context) {
+        if (instance == null) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), "diagnostics");
+            instance = new QueryTracer(new SlowQueryLog(directory, SlowQueryLog.MAX_BYTES), SLOW_QUERY_NANOS);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for QueryTracer.
+     *
+     * @param slowQueryLog The log receiving slow and main-thread calls.
+     * @param slowQueryNanos Calls taking at least this long are logged.
+     */
+    public QueryTracer(SlowQueryLog slowQueryLog, long slowQueryNanos) {
+        this.slowQueryLog = slowQueryLog;
+        this.slowQueryNanos = slowQueryNanos;
+    }
+
+    /**
+     * Wraps a DAO so every call through it is traced.
+     *
+     * @param daoType The DAO interface.
+     * @param dao The DAO generated by Room.
+     * @return A DAO of the same interface that traces each call and forwards it to dao.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T wrap(Class<T> daoType, T dao) {
+        String prefix = daoType.getSimpleName() + ".";
+        return (T) Proxy.newProxyInstance(daoType.getClassLoader(), new Class<?>[]{daoType},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class
+                            || LiveData.class.isAssignableFrom(method.getReturnType())) {
+                        return invoke(dao, method, args);
+                    }
+                    return trace(prefix + method.getName(), dao, method, args);
+                });
+    }
+
+    /**
+     * Records a statement about to run. Installed as Room's query callback with a direct executor,
+     * so it runs on the thread that executes the statement.
+     *
+     * @param sql The SQL of the statement. Bind arguments are never recorded.
+     */
+    public void onStatement(String sql) {
+        boolean onMainThread = isMainThread();
+        statsFor(sql).executed(onMainThread);
+        Call call = currentCall.get();
+        if (call != null && !isTransactionControl(sql)) {
+            call.statementCount++;
+            call.sql = sql;
+        }
+    }
+
+    /**
+     * Formats every histogram, slowest 99th percentile first.
+     *
+     * @return The report.
+     */
+    public String report() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "DAO calls (%d on the main thread)", mainThreadCalls.get()));
+        appendSorted(text, calls);
+        text.append("\n\nStatements (latency of calls that ran only that statement)");
+        appendSorted(text, statements);
+        return text.toString();
+    }
+
+    /**
+     * Clears every histogram and the slow query log.
+     */
+    public void reset() {
+        calls.clear();
+        statements.clear();
+        mainThreadCalls.set(0);
+        slowQueryLog.clear();
+    }
+
+    /**
+     * Gets the slow query log.
+     *
+     * @return The log receiving slow and main-thread calls.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Counts the rows a DAO call returned or changed: the size of a list or array, the value of an int,
+     * which Room returns for UPDATE and DELETE, and one for any other single result.
+     *
+     * @param method The DAO method called.
+     * @param args Its arguments, used for methods that return nothing.
+     * @param result Its result.
+     * @return The number of rows.
+     */
+    static int rowCount(Method method, Object[] args, Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result != null && result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        if (method.getReturnType() == void.class) {
+            // An @Insert taking a list writes one row per element
+            return args != null && args.length == 1 && args[0] instanceof Collection
+                    ? ((Collection<?>) args[0]).size() : 0;
+        }
+        return result != null ? 1 : 0;
+    }
+
+    private Object trace(String name, Object dao, Method method, Object[] args) throws Throwable {
+        boolean onMainThread = isMainThread();
+        Call call = new Call(currentCall.get());
+        currentCall.set(call);
+        Object result = null;
+        long start = System.nanoTime();
+        try {
+            result = invoke(dao, method, args);
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            currentCall.set(call.outer);
+            int rows = rowCount(method, args, result);
+            Stats stats = calls.computeIfAbsent(name, Stats::new);
+            stats.executed(onMainThread);
+            stats.timed(nanos, rows);
+            if (call.statementCount == 1) {
+                statsFor(call.sql).timed(nanos, rows);
+            }
+            if (onMainThread) {
+                mainThreadCalls.incrementAndGet();
+                Log.w(TAG, name + " ran on the main thread");
+            }
+            if (onMainThread || nanos >= slowQueryNanos) {
+                slowQueryLog.append(formatLogLine(name, call, nanos, rows, onMainThread));
+            }
+        }
+    }
+
+    private static Object invoke(Object dao, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // Callers see Room's exception, not the reflection wrapper
+        }
+    }
+
+    private static String formatLogLine(String name, Call call, long nanos, int rows, boolean onMainThread) {
+        String sql = call.statementCount == 1 ? call.sql : "(" + call.statementCount + " statements)";
+        return String.format(Locale.US, "%s %.1fms rows=%d thread=%s%s %s: %s", Instant.now(), nanos / 1e6,
+                rows, Thread.currentThread().getName(), onMainThread ? " MAIN" : "", name, sql);
+    }
+
+    private Stats statsFor(String sql) {
+        Stats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        if (statements.size() >= MAX_STATEMENTS) {
+            return statements.computeIfAbsent(OTHER_STATEMENTS, Stats::new);
+        }
+        String name = sql.length() > MAX_NAME_LENGTH ? sql.substring(0, MAX_NAME_LENGTH) + "..." : sql;
+        return statements.computeIfAbsent(sql, key -> new Stats(name));
+    }
+
+    private static void appendSorted(StringBuilder text, Map<String, Stats> stats) {
+        List<Stats> sorted = new ArrayList<>(stats.values());
+        sorted.sort((a, b) -> Long.compare(b.latency.percentile(99), a.latency.percentile(99)));
+        for (Stats entry : sorted) {
+            text.append("\n  ").append(entry);
+        }
+    }
+
+    private static boolean isMainThread() {
+        return Looper.getMainLooper().isCurrentThread();
+    }
+
+    /**
+     * Checks whether a statement only begins or ends one of Room's transactions.
+     */
+    private static boolean isTransactionControl(String sql) {
+        return sql.startsWith("BEGIN") || sql.startsWith("END") || sql.startsWith("TRANSACTION");
+    }
+
+    /**
+     * A DAO call in progress on one thread.
+     */
+    private static final class Call {
+
+        final Call outer; // Call this one was made from, or null
+        int statementCount; // Statements run so far, not counting transaction control
+        String sql; // Last statement run
+
+        Call(Call outer) {
+            this.outer = outer;
+        }
+    }
+
+    /**
+     * Latency, rows and threads of one DAO method or statement.
+     */
+    private static final class Stats {
+
+        final LatencyHistogram latency; // Durations of the timed calls
+        final AtomicLong executions = new AtomicLong(); // Runs, timed or not
+        final AtomicLong rows = new AtomicLong(); // Rows over the timed runs
+        final AtomicLong onMainThread = new AtomicLong(); // Runs on the main thread
+        volatile String lastThread; // Thread of the latest run
+
+        Stats(String name) {
+            this.latency = new LatencyHistogram(name);
+        }
+
+        void executed(boolean mainThread) {
+            executions.incrementAndGet();
+            if (mainThread) {
+                onMainThread.incrementAndGet();
+            }
+            lastThread = Thread.currentThread().getName();
+        }
+
+        void timed(long nanos, int rowCount) {
+            latency.record(nanos);
+            rows.addAndGet(rowCount);
+        }
+
+        @Override
+        public String toString() {
+            long timed = latency.count();
+            return String.format(Locale.US, "%s runs=%d rows/call=%.1f main=%d thread=%s", latency.summary(),
+                    executions.get(), timed == 0 ? 0.0 : (double) rows.get() / timed, onMainThread.get(), lastThread);
+        }
+    }
+}
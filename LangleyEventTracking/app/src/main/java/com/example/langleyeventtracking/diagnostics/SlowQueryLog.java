@@ -0,0 +1,143 @@
+package com.example.langleyeventtracking.diagnostics;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Slow Query Log
+ * <p>
+ * The SlowQueryLog class appends one line per slow or main-thread database call to a file in the app's
+ * private storage. It includes:
+ * - Writing on its own thread, so logging a slow query never makes it slower.
+ * - Rotating the file once it reaches MAX_BYTES, keeping the previous file as the only older one.
+ * - Reading back the last lines for the diagnostics screen.
+ * <p>
+ * Lines never contain bind arguments, so event titles and passwords stay out of the log.
+ *
+ * @author Joseph Langley
+ */
+public class SlowQueryLog {
+
+    private static final String TAG = "SlowQueryLog";
+    public static final long MAX_BYTES = 256 * 1024; // Size at which the current file is rotated
+    static final String FILE_NAME = "slow-queries.log"; // Current file
+    static final String PREVIOUS_FILE_NAME = "slow-queries.1.log"; // File rotated out last
+
+    private final File file; // Lines are appended here
+    private final File previousFile; // The current file is moved here when full
+    private final long maxBytes; // Rotation threshold
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(); // Serializes file access
+
+    /**
+     * Constructor for SlowQueryLog.
+     *
+     * @param directory The directory holding the log files, created on the first write.
+     * @param maxBytes The size at which the current file is rotated.
+     */
+    public SlowQueryLog(File directory, long maxBytes) {
+        this.file = new File(directory, FILE_NAME);
+        this.previousFile = new File(directory, PREVIOUS_FILE_NAME);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Appends a line in the background.
+     *
+     * @param line The line, without a line break.
+     */
+    public void append(String line) {
+        writer.execute(() -> write(line));
+    }
+
+    /**
+     * Reads the last lines logged, older file first. Blocks until earlier appends are written.
+     *
+     * @param maxLines The most lines to return.
+     * @return The lines, separated by line breaks, or an empty string if nothing was logged.
+     */
+    public String tail(int maxLines) {
+        try {
+            return writer.submit(() -> readTail(maxLines)).get();
+        } catch (Exception e) {
+            Log.w(TAG, "Reading the slow query log failed", e);
+            return "";
+        }
+    }
+
+    /**
+     * Deletes both log files once earlier appends are written.
+     */
+    public void clear() {
+        writer.execute(() -> {
+            deleteIfExists(previousFile);
+            deleteIfExists(file);
+        });
+    }
+
+    /**
+     * Appends a line on the calling thread, rotating the file first if the line would overflow it.
+     */
+    void write(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create " + directory);
+            return;
+        }
+        if (file.length() > 0 && file.length() + bytes.length > maxBytes) {
+            deleteIfExists(previousFile);
+            if (!file.renameTo(previousFile)) {
+                Log.w(TAG, "Cannot rotate " + file + ", starting over");
+                deleteIfExists(file);
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Writing the slow query log failed", e);
+        }
+    }
+
+    /**
+     * Reads the last lines of both files on the calling thread.
+     */
+    String readTail(int maxLines) throws IOException {
+        Deque<String> lines = new ArrayDeque<>();
+        if (maxLines <= 0) {
+            return "";
+        }
+        for (File source : new File[]{previousFile, file}) {
+            if (!source.isFile()) {
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (lines.size() == maxLines) {
+                        lines.removeFirst();
+                    }
+                    lines.addLast(line);
+                }
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    private static void deleteIfExists(File target) {
+        if (target.exists() && !target.delete()) {
+            Log.w(TAG, "Cannot delete " + target);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.langleyeventtracking.diagnostics;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Startup Timeline
+ * <p>
+ * The StartupTimeline class records where cold start time goes. It includes:
+ * - Instant marks and timed sections, measured from process start.
+ * - The same sections as android.os.Trace sections, so they also show up in system traces.
+ * - Detecting the first frame drawn by the app and logging the timeline then.
+ * - A text dump for logs and diagnostics screens.
+ * <p>
+ * Only the first MAX_ENTRIES entries are kept, so calls made after startup cost next to nothing.
+ *
+ * @author Joseph Langley
+ */
+public final class StartupTimeline {
+
+    private static final String TAG = "StartupTimeline";
+    private static final int MAX_ENTRIES = 64; // Entries kept; startup needs a handful
+
+    private static final List<Entry> entries = new ArrayList<>(); // Recorded entries, guarded by itself
+    private static final AtomicBoolean firstFrameSeen = new AtomicBoolean(); // Set by the first frame drawn
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Records an instant, e.g. "application created".
+     *
+     * @param name The name of the mark.
+     */
+    public static void mark(String name) {
+        add(new Entry(name, Thread.currentThread().getName(), sinceProcessStart(), -1));
+    }
+
+    /**
+     * Starts a timed section, ended by closing it. Use with try-with-resources on one thread.
+     *
+     * @param name The name of the section, e.g. "db open".
+     * @return The open section.
+     */
+    public static Section begin(String name) {
+        Trace.beginSection(name);
+        return new Section(name, sinceProcessStart());
+    }
+
+    /**
+     * Marks the first frame the activity draws, if no frame has been drawn before, and logs the timeline.
+     *
+     * @param activity The activity, after setContentView.
+     */
+    public static void markFirstFrame(Activity activity) {
+        if (firstFrameSeen.get()) {
+            return;
+        }
+        View decorView = activity.getWindow().getDecorView();
+        String name = "first frame (" + activity.getClass().getSimpleName() + ")";
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                // Listeners cannot be removed while the tree is dispatching them
+                decorView.post(() -> decorView.getViewTreeObserver().removeOnDrawListener(this));
+                if (firstFrameSeen.compareAndSet(false, true)) {
+                    mark(name);
+                    Log.i(TAG, dump());
+                }
+            }
+        });
+    }
+
+    /**
+     * Formats the timeline, one entry per line in start order.
+     *
+     * @return The timeline, e.g. "  +312.4ms  db open (54.0ms) [startup]".
+     */
+    public static String dump() {
+        List<Entry> snapshot;
+        synchronized (entries) {
+            snapshot = new ArrayList<>(entries);
+        }
+        snapshot.sort((a, b) -> Double.compare(a.startMillis, b.startMillis));
+        StringBuilder text = new StringBuilder("Cold start timeline (ms since process start)");
+        for (Entry entry : snapshot) {
+            text.append(String.format(Locale.US, "%n  +%.1fms  %s", entry.startMillis, entry.name));
+            if (entry.durationMillis >= 0) {
+                text.append(String.format(Locale.US, " (%.1fms)", entry.durationMillis));
+            }
+            text.append(" [").append(entry.thread).append(']');
+        }
+        return text.toString();
+    }
+
+    private static double sinceProcessStart() {
+        return SystemClock.elapsedRealtimeNanos() / 1e6 - Process.getStartElapsedRealtime();
+    }
+
+    private static void add(Entry entry) {
+        synchronized (entries) {
+            if (entries.size() < MAX_ENTRIES) {
+                entries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * A timed section in progress.
+     */
+    public static final class Section implements AutoCloseable {
+
+        private final String name; // Name of the section
+        private final double startMillis; // Start in milliseconds since process start
+
+        private Section(String name, double startMillis) {
+            this.name = name;
+            this.startMillis = startMillis;
+        }
+
+        @Override
+        public void close() {
+            Trace.endSection();
+            add(new Entry(name, Thread.currentThread().getName(), startMillis, sinceProcessStart() - startMillis));
+        }
+    }
+
+    private static final class Entry {
+
+        final String name; // Name of the mark or section
+        final String thread; // Thread that recorded it
+        final double startMillis; // Milliseconds since process start
+        final double durationMillis; // Duration of a section, -1 for a mark
+
+        Entry(String name, String thread, double startMillis, double durationMillis) {
+            this.name = name;
+            this.thread = thread;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.langleyeventtracking.fragments;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.example.langleyeventtracking.AppUtility;
+import com.example.langleyeventtracking.EventDateCodec;
+import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.data.RecurrenceRule;
+import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.viewmodels.EventViewModel;
+
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Edit Event Fragment
+ * <p>
+ * The EditEventFragment class handles the creation and editing of events. It includes:
+ * - Loading the event being edited by its ID, as observable data from the database.
+ * - Choosing whether the event repeats daily, weekly, monthly or yearly.
+ * - Choosing when the SMS reminder for the event is sent.
+ * - Saving new events or updating existing ones.
+ * - Deleting events, which EventActivity then offers to undo.
+ * - Returning to the event list by popping itself off the back stack.
+ * <p>
+ * This class is shown by EventActivity over its event list and shares the activity's EventViewModel,
+ * so the list stays loaded while an event is edited.
+ *
+ * @author Joseph Langley
+ */
+public class EditEventFragment extends Fragment {
+
+    public static final String BACK_STACK_NAME = "edit event"; // Back stack entry of the editor
+    private static final String ARG_USER_ID = "user id"; // Argument: ID of the user creating or editing the event
+    private static final String ARG_EVENT_ID = "id"; // Argument: ID of the event being edited, absent for new events
+    private static final String STATE_LOADED = "loaded"; // Saved state: whether the fields hold the stored event
+
+    private EditText titleEditText, dateEditText, descEditText; // EditTexts for event details
+    private Spinner recurrenceSpinner; // "Does not repeat" followed by one entry per RecurrenceRule.Frequency
+    private String recurrence; // Stored rule of the event being edited, kept when its frequency is unchanged
+    private Spinner reminderSpinner; // Reminder choices, with their stored values in R.array.event_reminder_values
+    private String[] reminderValues; // Stored values of the reminder choices
+    private String reminders; // Stored reminder offsets of the event being edited
+    private int initialReminderSelection; // Spinner position matching the stored offsets
+    private EventViewModel eventViewModel; // ViewModel shared with EventActivity
+    private Event storedEvent; // Event being edited, as last loaded from the database
+    private boolean loaded; // Whether the fields were filled from the stored event
+    private int eventId = -1; // ID of the event being edited, -1 for new events
+    private int userId = -1; // ID of the user creating or editing the event
+
+    /**
+     * Creates an editor for a new or existing event.
+     *
+     * @param userId The ID of the user creating or editing the event.
+     * @param eventId The ID of the event to edit, or -1 for a new event.
+     * @return A new EditEventFragment.
+     */
+    public static EditEventFragment newInstance(int userId, int eventId) {
+        Bundle args = new Bundle();
+        args.putInt(ARG_USER_ID, userId);
+        if (eventId != -1) {
+            args.putInt(ARG_EVENT_ID, eventId);
+        }
+        EditEventFragment fragment = new EditEventFragment();
+        fragment.setArguments(args);
+        return fragment;
+    }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.event_detail, container, false); // Inflate the layout for this fragment
+
+        // Initialize EditTexts and Buttons
+        titleEditText = view.findViewById(R.id.event_title_input);
+        dateEditText = view.findViewById(R.id.event_date_input);
+        descEditText = view.findViewById(R.id.event_description_input);
+        recurrenceSpinner = view.findViewById(R.id.event_recurrence_input);
+        reminderSpinner = view.findViewById(R.id.event_reminder_input);
+        reminderValues = getResources().getStringArray(R.array.event_reminder_values);
+
+        // Buttons for saving and deleting events declared as local variables
+        Button saveButton = view.findViewById(R.id.save_event_button);
+        Button deleteButton = view.findViewById(R.id.delete_event_button);
+
+        // Share the activity's ViewModel, so no second copy of the events is loaded
+        eventViewModel = new ViewModelProvider(requireActivity()).get(EventViewModel.class);
+
+        Bundle args = requireArguments();
+        userId = args.getInt(ARG_USER_ID, -1);
+        eventId = args.getInt(ARG_EVENT_ID, -1);
+        // Fields restored from saved state already hold the user's edits
+        loaded = savedInstanceState != null && savedInstanceState.getBoolean(STATE_LOADED);
+
+        if (eventId != -1) {
+            // Editing an existing event
+            requireActivity().setTitle("Edit Event");
+            eventViewModel.getEvent(eventId).observe(getViewLifecycleOwner(), this::showEvent);
+        } else {
+            // Adding a new event
+            requireActivity().setTitle("Add Event");
+        }
+
+        // Set the date picker for date input
+        dateEditText.setOnClickListener(v -> AppUtility.showDatePickerDialog(requireContext(), dateEditText));
+
+        saveButton.setOnClickListener(v -> save());
+        deleteButton.setOnClickListener(v -> {
+            if (eventId != -1) {
+                if (storedEvent == null) {
+                    return; // Not loaded yet, so there is nothing to restore if the delete is undone
+                }
+                // Delete the stored row; its date tells the caches which day to recount.
+                // EventActivity offers to undo it once the editor is closed
+                eventViewModel.delete(storedEvent);
+            }
+            close();
+        });
+
+        return view; // Return the view for this fragment
+    }
+
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_LOADED, loaded);
+    }
+
+    /**
+     * Keeps the stored event and fills the fields from it the first time it arrives,
+     * so later emissions never overwrite what the user typed.
+     */
+    private void showEvent(Event event) {
+        if (event == null) {
+            // Deleted while open, there is nothing left to edit
+            close();
+            return;
+        }
+        storedEvent = event;
+        recurrence = event.getRecurrence();
+        reminders = event.getReminders();
+        initialReminderSelection = Math.max(0, Arrays.asList(reminderValues).indexOf(reminders));
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        titleEditText.setText(event.getTitle());
+        dateEditText.setText(EventDateCodec.getInstance().format(event.getDate()));
+        descEditText.setText(event.getDescription());
+        recurrenceSpinner.setSelection(recurrenceSelection(recurrence));
+        reminderSpinner.setSelection(initialReminderSelection);
+    }
+
+    /**
+     * Validates the fields, then inserts or updates the event and returns to the list.
+     */
+    private void save() {
+        // Get event details from EditTexts
+        String title = titleEditText.getText().toString().trim();
+        String date = dateEditText.getText().toString().trim();
+        String description = descEditText.getText().toString().trim();
+
+        // Validate inputs
+        if (title.isEmpty() || date.isEmpty()) {
+            Toast.makeText(requireContext(), "Event must have title and date", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        long epochDay;
+        try {
+            epochDay = EventDateCodec.getInstance().parse(date);
+        } catch (DateTimeParseException e) {
+            Toast.makeText(requireContext(), "Event date is not valid", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Create a new event object
+        Event event = new Event();
+        event.setTitle(title);
+        event.setDate(epochDay);
+        event.setDescription(description);
+        event.setUserId(userId);
+        event.setRecurrence(selectedRecurrence());
+        int reminderSelection = reminderSpinner.getSelectedItemPosition();
+        // Offsets the spinner cannot show (null default, imported values) survive an edit that leaves it alone
+        event.setReminders(reminderSelection == initialReminderSelection && eventId != -1
+                ? reminders : reminderValues[reminderSelection]);
+
+        // Save or update the event
+        if (eventId != -1) {
+            // Update existing event
+            event.setId(eventId);
+            eventViewModel.update(event);
+            Toast.makeText(requireContext(), "Event updated", Toast.LENGTH_SHORT).show();
+        } else {
+            // Insert new event
+            eventViewModel.insert(event);
+            Toast.makeText(requireContext(), "Event created", Toast.LENGTH_SHORT).show();
+        }
+        close();
+    }
+
+    /**
+     * Returns to the event list, which is still loaded underneath.
+     */
+    private void close() {
+        getParentFragmentManager().popBackStack(BACK_STACK_NAME, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+    }
+
+    /**
+     * Maps a stored rule to its spinner position.
+     *
+     * @param rule The RRULE value, or null.
+     * @return 0 for a one-off event, otherwise 1 + the frequency ordinal.
+     */
+    private static int recurrenceSelection(String rule) {
+        if (rule == null) {
+            return 0;
+        }
+        try {
+            return RecurrenceRule.parse(rule).getFrequency().ordinal() + 1;
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the rule to save for the spinner selection. An imported rule with an interval or end
+     * is kept as it is unless the user picks a different frequency.
+     *
+     * @return The RRULE value, or null for a one-off event.
+     */
+    private String selectedRecurrence() {
+        int selection = recurrenceSpinner.getSelectedItemPosition();
+        if (selection <= 0) {
+            return null;
+        }
+        if (recurrenceSelection(recurrence) == selection) {
+            return recurrence;
+        }
+        return RecurrenceRule.of(RecurrenceRule.Frequency.values()[selection - 1]);
+    }
+}
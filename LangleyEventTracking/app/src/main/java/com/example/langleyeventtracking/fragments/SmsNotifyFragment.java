@@ -1,5 +1,6 @@
 package com.example.langleyeventtracking.fragments;
 
+import android.Manifest;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Bundle;
@@ -8,6 +9,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
@@ -23,6 +26,7 @@ import com.example.langleyeventtracking.viewmodels.EventViewModel;
  * It includes:
  * - Two buttons: "Yes" and "No" for enabling/disabling SMS notifications.
  * - Interaction with EventViewModel to update the SMS notifications status.
+ * - Requesting the SEND_SMS permission the reminders need when the user says "Yes".
  * <p>
  * This class is used to manage the SMS notifications preference.
  *
@@ -31,6 +35,8 @@ import com.example.langleyeventtracking.viewmodels.EventViewModel;
 public class SmsNotifyFragment extends DialogFragment {
 
     private EventViewModel eventViewModel; // ViewModel for event operations
+    private final ActivityResultLauncher<String> smsPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> dismiss()); // Asks for SEND_SMS
 
     @Nullable
     @Override
@@ -52,7 +58,9 @@ public class SmsNotifyFragment extends DialogFragment {
 
             // Update the ViewModel
             eventViewModel.setSmsNotificationsEnabled(true);
-            dismiss(); // Close the dialog
+
+            // Reminders are sent as SMS, so ask for the permission before closing the dialog
+            smsPermissionLauncher.launch(Manifest.permission.SEND_SMS);
         });
 
         // Set the click listener for the "No" button
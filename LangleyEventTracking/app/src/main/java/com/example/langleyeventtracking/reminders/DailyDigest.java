@@ -0,0 +1,159 @@
+package com.example.langleyeventtracking.reminders;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.data.models.User;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Daily Digest
+ * <p>
+ * The DailyDigest class is one user's summary of a day's events, sent as a single SMS.
+ * It includes:
+ * - Building the digests of every user for a day from one grouped range query and one query for their users.
+ * - The user's digest cutoff, the time of day the digest is sent.
+ * - A compact template that fits one SMS segment, listing as many titles as fit and counting the rest.
+ * <p>
+ * The template is shared with ReminderScheduler, which folds reminders due together into one message.
+ *
+ * @author Joseph Langley
+ */
+public final class DailyDigest {
+
+    static final int MAX_LENGTH = 160; // One GSM-7 SMS segment
+    private static final int MAX_TITLE_LENGTH = 32; // Longer titles are shortened
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("MMM d", Locale.getDefault());
+
+    public final int userId; // ID of the user the digest is for
+    public final long day; // Epoch day the digest covers
+    public final String phone; // Destination phone number
+    public final long sendAt; // Epoch milliseconds of the user's cutoff on that day
+    public final String text; // Rendered message
+
+    private DailyDigest(int userId, long day, String phone, long sendAt, String text) {
+        this.userId = userId;
+        this.day = day;
+        this.phone = phone;
+        this.sendAt = sendAt;
+        this.text = text;
+    }
+
+    /**
+     * Gets the outbox key of the digest, so a day's digest is sent once however often it is built.
+     *
+     * @return The idempotency key.
+     */
+    public String idempotencyKey() {
+        return "digest:" + userId + ":" + day;
+    }
+
+    /**
+     * Builds the digests of every user with events on a day. Users with their digest turned off
+     * or without a phone number are skipped.
+     *
+     * @param database The database to read from.
+     * @param day The epoch day to summarize.
+     * @param zone The time zone of the cutoff.
+     * @return One digest per user with events that day.
+     */
+    public static List<DailyDigest> build(EventAppDatabase database, long day, ZoneId zone) {
+        Map<Integer, List<Event>> eventsByUser = database.eventDao().getEventsByUserBetween(day, day);
+        List<DailyDigest> digests = new ArrayList<>();
+        if (eventsByUser.isEmpty()) {
+            return digests;
+        }
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : database.userDao().getUsersByIds(new ArrayList<>(eventsByUser.keySet()))) {
+            users.put(user.getId(), user);
+        }
+        for (Map.Entry<Integer, List<Event>> entry : eventsByUser.entrySet()) {
+            User user = users.get(entry.getKey());
+            if (user == null || user.getDigestCutoff() < 0 || user.getPhone() == null || user.getPhone().isEmpty()) {
+                continue;
+            }
+            List<String> titles = new ArrayList<>(entry.getValue().size());
+            for (Event event : entry.getValue()) {
+                titles.add(event.getTitle());
+            }
+            SortedMap<Long, List<String>> titlesByDay = new TreeMap<>();
+            titlesByDay.put(day, titles);
+            long sendAt = LocalDate.ofEpochDay(day)
+                    .atTime(LocalTime.MIN.plusMinutes(Math.min(user.getDigestCutoff(), 24 * 60 - 1)))
+                    .atZone(zone).toInstant().toEpochMilli();
+            digests.add(new DailyDigest(user.getId(), day, user.getPhone(), sendAt, render("", day, titlesByDay)));
+        }
+        return digests;
+    }
+
+    /**
+     * Renders event titles into one compact message, e.g. "Today: Standup; Dentist +3 more".
+     * Titles are listed in order until the message would exceed MAX_LENGTH.
+     *
+     * @param prefix Text placed before the first day, may be empty.
+     * @param today The epoch day the message is read on, for "Today" and "Tomorrow" labels.
+     * @param titlesByDay The titles of each day, in day order.
+     * @return The message.
+     */
+    public static String render(String prefix, long today, SortedMap<Long, List<String>> titlesByDay) {
+        int total = 0;
+        for (List<String> titles : titlesByDay.values()) {
+            total += titles.size();
+        }
+        StringBuilder text = new StringBuilder(MAX_LENGTH).append(prefix);
+        int shown = 0;
+        outer:
+        for (Map.Entry<Long, List<String>> entry : titlesByDay.entrySet()) {
+            boolean firstOfDay = true;
+            for (String title : entry.getValue()) {
+                String piece = firstOfDay
+                        ? (shown > 0 ? " | " : "") + dayLabel(entry.getKey(), today) + ": " + shorten(title)
+                        : "; " + shorten(title);
+                int rest = total - shown - 1;
+                int reserve = rest > 0 ? more(rest).length() : 0;
+                if (shown > 0 && text.length() + piece.length() + reserve > MAX_LENGTH) {
+                    break outer;
+                }
+                text.append(piece);
+                firstOfDay = false;
+                shown++;
+            }
+        }
+        if (shown < total) {
+            text.append(more(total - shown));
+        }
+        return text.toString();
+    }
+
+    private static String dayLabel(long day, long today) {
+        if (day == today) {
+            return "Today";
+        }
+        if (day == today + 1) {
+            return "Tomorrow";
+        }
+        return SHORT_DATE.format(LocalDate.ofEpochDay(day));
+    }
+
+    private static String shorten(String title) {
+        if (title == null || title.isEmpty()) {
+            return "(untitled)";
+        }
+        String trimmed = title.trim().replaceAll("\\s+", " ");
+        return trimmed.length() <= MAX_TITLE_LENGTH ? trimmed : trimmed.substring(0, MAX_TITLE_LENGTH - 3) + "...";
+    }
+
+    private static String more(int count) {
+        return " +" + count + " more";
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.langleyeventtracking.reminders;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.sms.SmsOutbox;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily Digest Worker
+ * <p>
+ * The DailyDigestWorker class is the one background pass per day that sends the daily digests.
+ * It includes:
+ * - A periodic schedule starting shortly after midnight, registered once with WorkManager.
+ * - Building every user's digest for today with DailyDigest and queuing it in the SmsOutbox
+ *   for the user's cutoff time.
+ * <p>
+ * Digests are only sent while the "sms_notifications" preference is on. A pass that runs twice
+ * in a day is harmless: the outbox drops a digest whose key it already holds.
+ *
+ * @author Joseph Langley
+ */
+public class DailyDigestWorker extends Worker {
+
+    private static final String WORK_NAME = "daily_digest"; // Unique periodic work name
+    private static final String PREFERENCES = "com.example.langleyeventtracking"; // Shared preferences file
+    private static final String KEY_SMS_NOTIFICATIONS = "sms_notifications"; // Preference switching digests on
+    private static final LocalTime PASS_TIME = LocalTime.of(0, 15); // When the daily pass should run
+
+    /**
+     * Constructor for DailyDigestWorker, called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params Parameters of this run.
+     */
+    public DailyDigestWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Registers the daily pass, keeping the existing schedule if there is one.
+     *
+     * @param context Any context.
+     */
+    public static void schedule(Context context) {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = now.toLocalDate().atTime(PASS_TIME).atZone(now.getZone());
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DailyDigestWorker.class, 1, TimeUnit.DAYS)
+                .setInitialDelay(Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        if (!context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).getBoolean(KEY_SMS_NOTIFICATIONS, false)) {
+            return Result.success();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long today = LocalDate.now(zone).toEpochDay();
+        List<DailyDigest> digests = DailyDigest.build(EventAppDatabase.getInstance(context), today, zone);
+        for (DailyDigest digest : digests) {
+            SmsOutbox.enqueue(context, digest.idempotencyKey(), digest.phone, digest.text, digest.sendAt);
+        }
+        return Result.success();
+    }
+}
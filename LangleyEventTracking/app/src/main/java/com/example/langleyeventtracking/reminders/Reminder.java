@@ -0,0 +1,108 @@
+package com.example.langleyeventtracking.reminders;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reminder
+ * <p>
+ * The Reminder class is one pending notification for one occurrence of an event.
+ * It includes:
+ * - The event, occurrence day and offset that identify it; equality only looks at these.
+ * - The user and title needed to deliver it without another query.
+ * - Parsing of the per-event reminder offsets and the deadline arithmetic.
+ * <p>
+ * Events are all-day, so offsets are counted back from REMINDER_TIME on the event day.
+ *
+ * @author Joseph Langley
+ */
+public final class Reminder {
+
+    public static final LocalTime REMINDER_TIME = LocalTime.of(9, 0); // Time of day an event is considered to start
+    public static final int DEFAULT_OFFSET_MINUTES = 24 * 60; // Used when an event has no reminders value
+    public static final int MAX_OFFSET_MINUTES = 31 * 24 * 60; // Larger offsets are ignored
+    private static final int[] DEFAULT_OFFSETS = {DEFAULT_OFFSET_MINUTES};
+    private static final int[] NO_OFFSETS = new int[0];
+
+    public final int eventId; // ID of the event or series
+    public final long day; // Epoch day of the occurrence
+    public final int offsetMinutes; // Minutes before REMINDER_TIME on that day
+    public final int userId; // ID of the user to notify
+    public final String title; // Title of the event when the reminder was scheduled
+
+    /**
+     * Constructor for Reminder.
+     *
+     * @param event The event or expanded occurrence.
+     * @param offsetMinutes Minutes before REMINDER_TIME on the event day.
+     */
+    public Reminder(Event event, int offsetMinutes) {
+        this.eventId = event.getId();
+        this.day = event.getDate();
+        this.offsetMinutes = offsetMinutes;
+        this.userId = event.getUserId();
+        this.title = event.getTitle();
+    }
+
+    /**
+     * Gets the reminder offsets of an event.
+     *
+     * @param event The event.
+     * @return The offsets in minutes; the default offset when the event has none stored,
+     *         and no offsets when reminders are turned off for it. Invalid entries are skipped.
+     */
+    public static int[] offsetsOf(Event event) {
+        String reminders = event.getReminders();
+        if (reminders == null) {
+            return DEFAULT_OFFSETS;
+        }
+        if (reminders.isEmpty()) {
+            return NO_OFFSETS;
+        }
+        String[] parts = reminders.split(",");
+        int[] offsets = new int[parts.length];
+        int size = 0;
+        for (String part : parts) {
+            try {
+                int offset = Integer.parseInt(part.trim());
+                if (offset >= 0 && offset <= MAX_OFFSET_MINUTES) {
+                    offsets[size++] = offset;
+                }
+            } catch (NumberFormatException ignored) {
+                // Skip the entry, keep the others
+            }
+        }
+        return size == offsets.length ? offsets : Arrays.copyOf(offsets, size);
+    }
+
+    /**
+     * Computes when the reminder is due.
+     *
+     * @param zone The time zone of the device.
+     * @return The deadline in epoch milliseconds.
+     */
+    public long deadline(ZoneId zone) {
+        return LocalDate.ofEpochDay(day).atTime(REMINDER_TIME).atZone(zone).toInstant().toEpochMilli()
+                - offsetMinutes * 60_000L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Reminder reminder = (Reminder) o;
+        return eventId == reminder.eventId &&
+                day == reminder.day &&
+                offsetMinutes == reminder.offsetMinutes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId, day, offsetMinutes);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.langleyeventtracking.reminders;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Reminder Receiver
+ * <p>
+ * The ReminderReceiver class receives the single reminder alarm armed by ReminderScheduler.
+ * It includes:
+ * - Handing the alarm to the scheduler thread while keeping the broadcast alive with goAsync().
+ * - Re-arming after a reboot, since the system drops alarms when the device restarts.
+ * <p>
+ * This class is declared in the manifest and is not exported.
+ *
+ * @author Joseph Langley
+ */
+public class ReminderReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (ReminderScheduler.ACTION_REMINDER.equals(action) || Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            PendingResult result = goAsync();
+            ReminderScheduler.getInstance(context).onAlarm(result::finish);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.langleyeventtracking.reminders;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.dao.UserDao;
+import com.example.langleyeventtracking.data.models.Event;
+import com.example.langleyeventtracking.data.models.EventsFingerprint;
+import com.example.langleyeventtracking.data.models.User;
+import com.example.langleyeventtracking.sms.SmsOutbox;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reminder Scheduler
+ * <p>
+ * The ReminderScheduler class turns event reminder offsets into SMS reminders.
+ * It includes:
+ * - A TimingWheel holding every reminder due within the next few weeks, for all users.
+ * - A single AlarmManager alarm, armed for the nearest deadline only and moved only when that deadline changes.
+ * - Incremental re-arming when the events table changes: only the users whose events fingerprint
+ *   moved are queried again, and their reminders are diffed into the wheel, so only added, moved
+ *   or removed reminders touch it.
+ * - A persisted "fired through" watermark, so reminders due while the process was dead are sent once on the next alarm.
+ * - Folding the reminders due together into one message per user, handed to the SmsOutbox.
+ * - Registering the DailyDigestWorker, which sends each user one summary of the day.
+ * <p>
+ * Reminders are only armed while the "sms_notifications" preference is on. All state is
+ * confined to one background thread; ReminderReceiver hands alarms over to it.
+ *
+ * @author Joseph Langley
+ */
+public class ReminderScheduler {
+
+    private static final String TAG = "ReminderScheduler";
+    public static final String ACTION_REMINDER = "com.example.langleyeventtracking.action.REMINDER"; // Alarm intent action
+    private static final String PREFERENCES = "com.example.langleyeventtracking"; // Shared preferences file
+    private static final String KEY_SMS_NOTIFICATIONS = "sms_notifications"; // Preference switching reminders on
+    private static final String KEY_FIRED_THROUGH = "reminders_fired_through"; // Deadline up to which reminders were sent
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1); // Wheel resolution
+    private static final long HORIZON_MILLIS = TimeUnit.DAYS.toMillis(35); // How far ahead reminders are loaded
+    private static final long REFILL_MILLIS = TimeUnit.DAYS.toMillis(28); // Horizon is reloaded after this long
+    private static final long MAX_LATENESS_MILLIS = TimeUnit.DAYS.toMillis(1); // Older missed reminders are dropped
+
+    private static ReminderScheduler instance; // Singleton instance, one wheel per process
+
+    private final Context context; // Application context for alarms and the outbox
+    private final EventAppDatabase database; // Database for the invalidation tracker
+    private final EventDao eventDao; // Data Access Object for the horizon query
+    private final UserDao userDao; // Data Access Object for phone numbers
+    private final AlarmManager alarmManager; // System alarm service
+    private final SharedPreferences preferences; // App preferences
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(); // Owns the wheel and every field below
+    private final TimingWheel<Reminder, Reminder> wheel; // Pending reminders by identity
+    private final AtomicBoolean reloadPending = new AtomicBoolean(); // Coalesces bursts of full reloads
+    private final AtomicBoolean refreshPending = new AtomicBoolean(); // Coalesces bursts of invalidations
+    private final Map<Integer, String> fingerprints = new HashMap<>(); // Events fingerprint of each user as loaded into the wheel
+    private long refillAt; // When the horizon has to be reloaded, Long.MAX_VALUE before the first load
+    private long armedAt = Long.MAX_VALUE; // Trigger time of the armed system alarm, or Long.MAX_VALUE for none
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("events") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            requestRefresh();
+        }
+    };
+    private final SharedPreferences.OnSharedPreferenceChangeListener preferenceListener = (prefs, key) -> {
+        if (KEY_SMS_NOTIFICATIONS.equals(key)) {
+            requestReload();
+        }
+    };
+
+    /**
+     * Gets the process-wide scheduler, starting it on first use.
+     *
+     * @param context Any context; the application context is kept.
+     * @return The singleton instance of the ReminderScheduler.
+     */
+    public static synchronized ReminderScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReminderScheduler(context.getApplicationContext());
+            instance.start();
+        }
+        return instance;
+    }
+
+    private ReminderScheduler(Context context) {
+        this.context = context;
+        this.database = EventAppDatabase.getInstance(context);
+        this.eventDao = database.eventDao();
+        this.userDao = database.userDao();
+        this.alarmManager = context.getSystemService(AlarmManager.class);
+        this.preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        this.wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        this.refillAt = Long.MAX_VALUE;
+    }
+
+    private void start() {
+        preferences.registerOnSharedPreferenceChangeListener(preferenceListener);
+        executor.execute(() -> database.getInvalidationTracker().addObserver(observer));
+        requestReload();
+        DailyDigestWorker.schedule(context);
+    }
+
+    /**
+     * Handles the system alarm: sends every due reminder and arms the next deadline.
+     *
+     * @param done Called on the scheduler thread once the alarm has been handled.
+     */
+    public void onAlarm(Runnable done) {
+        executor.execute(() -> {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= refillAt) {
+                    reload(now);
+                }
+                fireDue(now);
+                arm();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to handle reminder alarm", e);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    /**
+     * Reloads the horizon after the current burst of changes, once.
+     */
+    private void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                reloadPending.set(false);
+                try {
+                    reload(System.currentTimeMillis());
+                    arm();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to reload reminders", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reloads the users whose events changed after the current burst of changes, once.
+     */
+    private void requestRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                refreshPending.set(false);
+                try {
+                    refresh(System.currentTimeMillis());
+                    arm();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to refresh reminders", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Diffs the reminders due within the horizon into the wheel, for every user.
+     */
+    private void reload(long now) {
+        fingerprints.clear();
+        if (!preferences.getBoolean(KEY_SMS_NOTIFICATIONS, false)) {
+            wheel.clear();
+            refillAt = Long.MAX_VALUE;
+            return;
+        }
+        Set<Integer> userIds = new HashSet<>(userDao.getUserIds());
+        for (Reminder reminder : wheel.keys()) {
+            if (!userIds.contains(reminder.userId)) {
+                wheel.cancel(reminder); // The user was removed
+            }
+        }
+        reloadUsers(userIds, now);
+        refillAt = now + REFILL_MILLIS;
+    }
+
+    /**
+     * Reloads only the users whose events fingerprint moved since they were loaded, and users that
+     * were removed. The InvalidationTracker does not say which rows changed, but one aggregate query does.
+     */
+    private void refresh(long now) {
+        if (refillAt == Long.MAX_VALUE) {
+            reload(now); // Nothing loaded yet, or reminders are off and the wheel stays empty
+            return;
+        }
+        Set<Integer> userIds = new HashSet<>(userDao.getUserIds());
+        Map<Integer, String> current = fingerprintsOf(userIds);
+        Set<Integer> removed = new HashSet<>(fingerprints.keySet());
+        removed.removeAll(userIds);
+        Set<Integer> changed = new HashSet<>(removed);
+        for (Map.Entry<Integer, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(fingerprints.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        if (!changed.isEmpty()) {
+            reloadUsers(changed, now);
+            fingerprints.keySet().removeAll(removed);
+        }
+    }
+
+    /**
+     * Diffs the reminders of some users due within the horizon into the wheel.
+     */
+    private void reloadUsers(Set<Integer> userIds, long now) {
+        // Fingerprinted first, so a write during the query is picked up by the next refresh
+        Map<Integer, String> loaded = fingerprintsOf(userIds);
+        ZoneId zone = ZoneId.systemDefault();
+        long from = Math.max(preferences.getLong(KEY_FIRED_THROUGH, now), now - MAX_LATENESS_MILLIS);
+        long to = now + HORIZON_MILLIS;
+        long firstDay = Instant.ofEpochMilli(from).atZone(zone).toLocalDate().toEpochDay();
+        long lastDay = Instant.ofEpochMilli(to).atZone(zone).toLocalDate().toEpochDay()
+                + TimeUnit.MINUTES.toDays(Reminder.MAX_OFFSET_MINUTES) + 1;
+
+        Map<Reminder, Long> wanted = new HashMap<>();
+        for (int userId : userIds) {
+            for (Event event : eventDao.getEventsBetween(userId, firstDay, lastDay)) {
+                for (int offset : Reminder.offsetsOf(event)) {
+                    Reminder reminder = new Reminder(event, offset);
+                    long deadline = reminder.deadline(zone);
+                    if (deadline > from && deadline <= to) {
+                        wanted.put(reminder, deadline);
+                    }
+                }
+            }
+        }
+
+        for (Reminder reminder : wheel.keys()) {
+            if (userIds.contains(reminder.userId) && !wanted.containsKey(reminder)) {
+                wheel.cancel(reminder);
+            }
+        }
+        for (Map.Entry<Reminder, Long> entry : wanted.entrySet()) {
+            wheel.schedule(entry.getKey(), entry.getKey(), entry.getValue());
+        }
+        fingerprints.putAll(loaded);
+    }
+
+    /**
+     * Fingerprints the live events of some users, with an empty fingerprint for users without any.
+     */
+    private Map<Integer, String> fingerprintsOf(Set<Integer> userIds) {
+        Map<Integer, String> fingerprintsByUser = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return fingerprintsByUser;
+        }
+        for (Integer userId : userIds) {
+            fingerprintsByUser.put(userId, "");
+        }
+        for (EventsFingerprint row : eventDao.getEventsFingerprints(new ArrayList<>(userIds))) {
+            fingerprintsByUser.put(row.getUserId(), row.getFingerprint());
+        }
+        return fingerprintsByUser;
+    }
+
+    private void fireDue(long now) {
+        List<Reminder> due = wheel.advance(now);
+        if (due.isEmpty()) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate().toEpochDay();
+        Map<Integer, SortedMap<Long, List<String>>> titlesByUser = new HashMap<>();
+        Map<Integer, Long> firstDeadlines = new HashMap<>();
+        for (Reminder reminder : due) {
+            titlesByUser.computeIfAbsent(reminder.userId, id -> new TreeMap<>())
+                    .computeIfAbsent(reminder.day, day -> new ArrayList<>())
+                    .add(reminder.title);
+            firstDeadlines.merge(reminder.userId, reminder.deadline(zone), Math::min);
+        }
+        for (Map.Entry<Integer, SortedMap<Long, List<String>>> entry : titlesByUser.entrySet()) {
+            User user = userDao.getUserById(entry.getKey());
+            if (user != null) {
+                // Keyed by the first deadline, so a pass repeated after a crash is not texted twice
+                String key = "reminder:" + user.getId() + ":" + firstDeadlines.get(entry.getKey());
+                SmsOutbox.enqueue(context, key, user.getPhone(),
+                        DailyDigest.render("Reminder - ", today, entry.getValue()));
+            }
+        }
+        preferences.edit().putLong(KEY_FIRED_THROUGH, now).apply();
+    }
+
+    /**
+     * Points the single system alarm at the nearest deadline, touching AlarmManager only when it moves.
+     */
+    private void arm() {
+        long next = Math.min(wheel.nextDeadline(), refillAt);
+        if (next == armedAt) {
+            return;
+        }
+        PendingIntent alarm = PendingIntent.getBroadcast(context, 0,
+                new Intent(context, ReminderReceiver.class).setAction(ACTION_REMINDER),
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        if (next == Long.MAX_VALUE) {
+            alarmManager.cancel(alarm);
+        } else {
+            // Inexact but allowed in Doze, which needs no exact alarm permission; a minute of slack is fine for reminders
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, next, alarm);
+        }
+        armedAt = next;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.langleyeventtracking.reminders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timing Wheel
+ * <p>
+ * The TimingWheel class is a hierarchical timing wheel holding keyed deadlines in memory.
+ * It includes:
+ * - Four levels of 64 slots over a fixed tick, covering about 31 years at one-minute ticks.
+ * - Constant time scheduling, rescheduling and cancellation, whatever the number of timers.
+ * - Advancing the clock, cascading far timers down a level as their slot comes around.
+ * - Finding the nearest deadline by looking at one slot per level.
+ * <p>
+ * This class is not thread safe; ReminderScheduler only touches it from its own executor.
+ *
+ * @param <K> The key identifying a timer.
+ * @param <V> The value delivered when the timer expires.
+ * @author Joseph Langley
+ */
+public final class TimingWheel<K, V> {
+
+    private static final int LEVELS = 4; // Wheel levels, each 64 times coarser than the one below
+    private static final int SLOT_BITS = 6; // log2 of the slots per level
+    private static final int SLOTS = 1 << SLOT_BITS; // Slots per level
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis; // Resolution of the wheel
+    private final Node<K, V>[][] slots; // Heads of the doubly linked timer lists, per level and slot
+    private final Map<K, Node<K, V>> timers = new HashMap<>(); // Every pending timer by key
+    private final List<Node<K, V>> overdue = new ArrayList<>(); // Timers scheduled at or before the current tick
+    private long currentTick; // Every timer up to this tick has been returned by advance()
+
+    /**
+     * A pending timer, linked into exactly one slot or the overdue list.
+     */
+    private static final class Node<K, V> {
+        final K key; // Key of the timer
+        V value; // Value returned when it expires
+        long tick; // Deadline tick
+        int level = -1; // Level of its slot, or -1 while overdue
+        int slot; // Slot index within the level
+        Node<K, V> previous; // Previous timer in the slot
+        Node<K, V> next; // Next timer in the slot
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructor for TimingWheel.
+     *
+     * @param tickMillis The resolution of the wheel in milliseconds.
+     * @param nowMillis The current time in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Node[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return The timer count.
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Checks whether a timer is pending for the key.
+     *
+     * @param key The key of the timer.
+     * @return True if the timer is pending.
+     */
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    /**
+     * Gets the keys of every pending timer.
+     *
+     * @return A snapshot of the pending keys.
+     */
+    public List<K> keys() {
+        return new ArrayList<>(timers.keySet());
+    }
+
+    /**
+     * Schedules a timer, replacing any timer with the same key. When the deadline is unchanged only the value is replaced.
+     *
+     * @param key The key of the timer.
+     * @param value The value to return when it expires.
+     * @param deadlineMillis The deadline in milliseconds; past deadlines expire on the next advance().
+     * @return True if the deadline of the timer changed.
+     */
+    public boolean schedule(K key, V value, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis, tickMillis);
+        Node<K, V> node = timers.get(key);
+        if (node != null && node.tick == tick) {
+            node.value = value;
+            return false;
+        }
+        if (node == null) {
+            node = new Node<>(key);
+            timers.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.value = value;
+        node.tick = tick;
+        place(node);
+        return true;
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param key The key of the timer.
+     * @return True if a timer was pending.
+     */
+    public boolean cancel(K key) {
+        Node<K, V> node = timers.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Cancels every timer.
+     */
+    public void clear() {
+        for (Node<K, V>[] level : slots) {
+            Arrays.fill(level, null);
+        }
+        overdue.clear();
+        timers.clear();
+    }
+
+    /**
+     * Moves the clock forward and removes every timer whose deadline has passed.
+     *
+     * @param nowMillis The current time in milliseconds.
+     * @return The values of the expired timers, in deadline order.
+     */
+    public List<V> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<V> expired = new ArrayList<>();
+        drainOverdue(expired);
+        while (currentTick < targetTick) {
+            if (timers.isEmpty()) {
+                currentTick = targetTick; // Nothing to cascade, jump straight there
+                break;
+            }
+            currentTick++;
+            cascade();
+            drainOverdue(expired); // Cascaded timers due exactly on this tick
+            Node<K, V> node = slots[0][(int) (currentTick & SLOT_MASK)];
+            while (node != null) {
+                Node<K, V> next = node.next;
+                unlink(node);
+                timers.remove(node.key);
+                expired.add(node.value);
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Finds the nearest deadline without moving the clock. Only the first occupied slot of each level is inspected.
+     *
+     * @return The nearest deadline in milliseconds, or Long.MAX_VALUE when no timer is pending.
+     */
+    public long nextDeadline() {
+        if (!overdue.isEmpty()) {
+            return currentTick * tickMillis;
+        }
+        long nearest = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            long position = currentTick >>> (SLOT_BITS * level);
+            for (int step = 1; step <= SLOTS; step++) {
+                Node<K, V> node = slots[level][(int) ((position + step) & SLOT_MASK)];
+                if (node != null) {
+                    for (; node != null; node = node.next) {
+                        nearest = Math.min(nearest, node.tick);
+                    }
+                    break;
+                }
+            }
+        }
+        return nearest == Long.MAX_VALUE ? Long.MAX_VALUE : nearest * tickMillis;
+    }
+
+    /**
+     * Re-places the timers of every higher level slot the clock has just entered, coarsest first.
+     */
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            Node<K, V> node = slots[level][slot];
+            slots[level][slot] = null;
+            while (node != null) {
+                Node<K, V> next = node.next;
+                node.previous = null;
+                node.next = null;
+                node.level = -1;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(Node<K, V> node) {
+        long delta = node.tick - currentTick;
+        if (delta <= 0) {
+            node.level = -1;
+            overdue.add(node);
+            return;
+        }
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the last level the timer waits in the farthest slot and is re-placed when it comes around
+        long tick = Math.min(node.tick, currentTick + (1L << (SLOT_BITS * LEVELS)) - 1);
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        node.level = level;
+        node.slot = slot;
+        node.previous = null;
+        node.next = slots[level][slot];
+        if (node.next != null) {
+            node.next.previous = node;
+        }
+        slots[level][slot] = node;
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.level < 0) {
+            overdue.remove(node);
+            return;
+        }
+        if (node.previous != null) {
+            node.previous.next = node.next;
+        } else {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.previous = node.previous;
+        }
+        node.previous = null;
+        node.next = null;
+    }
+
+    private void drainOverdue(List<V> expired) {
+        if (overdue.isEmpty()) {
+            return;
+        }
+        overdue.sort((a, b) -> Long.compare(a.tick, b.tick));
+        for (Node<K, V> node : overdue) {
+            timers.remove(node.key);
+            expired.add(node.value);
+        }
+        overdue.clear();
+    }
+}
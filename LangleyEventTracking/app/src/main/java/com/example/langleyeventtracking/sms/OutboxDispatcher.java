@@ -0,0 +1,173 @@
+package com.example.langleyeventtracking.sms;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.dao.OutboxDao;
+import com.example.langleyeventtracking.data.models.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Outbox Dispatcher
+ * <p>
+ * The OutboxDispatcher class drains the sms_outbox table through an SmsSender.
+ * It includes:
+ * - Batched dispatch: one query picks up to BATCH_SIZE due messages and one update claims them.
+ * - Rate limiting over a sliding window of SMS parts, rebuilt from the sent rows of the outbox on every
+ *   drain, so a new process does not start with a full budget; messages over the limit stay due.
+ * - Exponential backoff for retryable failures, giving up after MAX_ATTEMPTS.
+ * - Recording every outcome of a batch in a single transaction.
+ * <p>
+ * Claiming a message pushes its next attempt back by CLAIM_MILLIS before it is sent, so a process
+ * killed mid-batch sends it again later: delivery is at least once, never silently dropped.
+ * Drains are serialized process-wide.
+ *
+ * @author Joseph Langley
+ */
+public class OutboxDispatcher {
+
+    static final int BATCH_SIZE = 20; // Messages picked per query
+    static final int MAX_ATTEMPTS = 8; // Attempts before a message is marked failed
+    static final long BASE_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30); // Delay after the first failure
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(6); // Longest delay between attempts
+    static final long CLAIM_MILLIS = TimeUnit.MINUTES.toMillis(10); // How long a claimed message is hidden from other drains
+
+    private static final Object DRAIN_LOCK = new Object(); // One drain at a time per process
+
+    private final EventAppDatabase database; // Database for the outcome transaction
+    private final OutboxDao outboxDao; // Data Access Object for the outbox
+    private final SmsSender sender; // Delivers the messages
+    private final int maxParts; // SMS parts allowed within any rate limit window
+    private final long windowMillis; // Length of the rate limit window in milliseconds
+    private final LongSupplier clock; // Current time in epoch milliseconds
+
+    /**
+     * Constructor for OutboxDispatcher.
+     *
+     * @param database The database holding the outbox.
+     * @param sender The sender delivering the messages.
+     * @param maxParts The number of SMS parts allowed within any window.
+     * @param windowMillis The length of the rate limit window in milliseconds.
+     * @param clock The source of the current time in epoch milliseconds.
+     */
+    public OutboxDispatcher(EventAppDatabase database, SmsSender sender, int maxParts, long windowMillis,
+                            LongSupplier clock) {
+        this.database = database;
+        this.outboxDao = database.outboxDao();
+        this.sender = sender;
+        this.maxParts = maxParts;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Sends every due message the rate limit allows.
+     *
+     * @return The outcome counts and when the next drain is needed.
+     */
+    public Result drain() {
+        synchronized (DRAIN_LOCK) {
+            Result result = new Result();
+            SendWindow window = loadWindow(clock.getAsLong());
+            long throttledUntil = 0; // Nothing more can be sent before this
+            while (true) {
+                long now = clock.getAsLong();
+                List<OutboxMessage> due = outboxDao.getDueMessages(now, BATCH_SIZE);
+                if (due.isEmpty()) {
+                    break;
+                }
+                int allowed = 0;
+                int parts = 0;
+                while (allowed < due.size()) {
+                    parts = sender.partCount(due.get(allowed).getBody());
+                    if (!window.tryAcquire(parts, now)) {
+                        break;
+                    }
+                    allowed++;
+                }
+                if (allowed == 0) {
+                    throttledUntil = now + window.millisUntilAvailable(parts, now);
+                    break;
+                }
+                List<OutboxMessage> batch = due.subList(0, allowed);
+                List<Long> ids = new ArrayList<>(batch.size());
+                for (OutboxMessage message : batch) {
+                    ids.add(message.getId());
+                }
+                outboxDao.claim(ids, now + CLAIM_MILLIS);
+                sendBatch(batch, result);
+                if (allowed < due.size()) {
+                    throttledUntil = now + window.millisUntilAvailable(parts, now);
+                    break;
+                }
+            }
+            Long nextAttemptAt = outboxDao.getNextAttemptAt();
+            result.nextRunAt = nextAttemptAt != null ? Math.max(nextAttemptAt, throttledUntil) : Long.MAX_VALUE;
+            return result;
+        }
+    }
+
+    /**
+     * Rebuilds the rate limit window from the messages sent within it, charging each its parts.
+     */
+    private SendWindow loadWindow(long now) {
+        SendWindow window = new SendWindow(maxParts, windowMillis);
+        for (OutboxMessage message : outboxDao.getSentSince(window.start(now))) {
+            window.record(message.getNextAttemptAt(), sender.partCount(message.getBody()));
+        }
+        return window;
+    }
+
+    private void sendBatch(List<OutboxMessage> batch, Result result) {
+        List<Runnable> outcomes = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            long id = message.getId();
+            int attempts = message.getAttempts() + 1; // Counted by the claim
+            try {
+                sender.send(message.getPhone(), message.getBody());
+                long sentAt = clock.getAsLong();
+                outcomes.add(() -> outboxDao.markSent(id, sentAt));
+                result.sent++;
+            } catch (SmsSender.SendException e) {
+                long failedAt = clock.getAsLong();
+                String error = e.getMessage();
+                if (e.isPermanent() || attempts >= MAX_ATTEMPTS) {
+                    outcomes.add(() -> outboxDao.markFailed(id, failedAt, error));
+                    result.failed++;
+                } else {
+                    long retryAt = failedAt + backoff(attempts);
+                    outcomes.add(() -> outboxDao.markRetry(id, retryAt, error));
+                    result.retried++;
+                }
+            }
+        }
+        database.runInTransaction(() -> {
+            for (Runnable outcome : outcomes) {
+                outcome.run();
+            }
+        });
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param attempts The number of attempts made so far, at least 1.
+     * @return BASE_BACKOFF_MILLIS doubled for every attempt after the first, capped at MAX_BACKOFF_MILLIS.
+     */
+    static long backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << doublings);
+    }
+
+    /**
+     * Outcome of one drain.
+     */
+    public static class Result {
+        public int sent; // Messages handed to the sender
+        public int retried; // Messages that failed and will be retried
+        public int failed; // Messages given up on
+        public long nextRunAt = Long.MAX_VALUE; // When the next drain is needed, Long.MAX_VALUE if never
+    }
+}
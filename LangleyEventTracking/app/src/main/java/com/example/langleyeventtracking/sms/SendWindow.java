@@ -0,0 +1,107 @@
+package com.example.langleyeventtracking.sms;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Send Window
+ * <p>
+ * The SendWindow class is a sliding-window rate limit over SMS parts, the unit the platform counts.
+ * It includes:
+ * - A maximum number of parts sent within any window of the given length.
+ * - Recording earlier sends, so a new process starts from what was really sent rather than a full budget.
+ * - Taking parts for a message, and telling how long until a message of some size fits.
+ * <p>
+ * The window keeps no state across drains: OutboxDispatcher rebuilds it from the sent rows of the
+ * sms_outbox table each time. Time is passed in by the caller, so the window can be driven by a test clock.
+ *
+ * @author Joseph Langley
+ */
+public class SendWindow {
+
+    private final int maxParts; // Parts allowed within any window
+    private final long windowMillis; // Length of the window in milliseconds
+    private final Deque<long[]> sends = new ArrayDeque<>(); // {sent at, parts} of the sends in the window, oldest first
+    private int usedParts; // Parts of the sends in the window
+
+    /**
+     * Constructor for SendWindow. The window starts empty.
+     *
+     * @param maxParts The number of parts allowed within any window.
+     * @param windowMillis The length of the window in milliseconds.
+     */
+    public SendWindow(int maxParts, long windowMillis) {
+        if (maxParts < 1 || windowMillis < 1) {
+            throw new IllegalArgumentException("maxParts and windowMillis must be positive");
+        }
+        this.maxParts = maxParts;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Gets the start of the window ending now; sends at or before it no longer count.
+     *
+     * @param nowMillis The current time in epoch milliseconds.
+     * @return The start of the window in epoch milliseconds.
+     */
+    public long start(long nowMillis) {
+        return nowMillis - windowMillis;
+    }
+
+    /**
+     * Records a send made earlier. Sends must be recorded oldest first.
+     *
+     * @param sentAtMillis The time of the send in epoch milliseconds.
+     * @param parts The number of parts sent.
+     */
+    public void record(long sentAtMillis, int parts) {
+        sends.addLast(new long[]{sentAtMillis, parts});
+        usedParts += parts;
+    }
+
+    /**
+     * Takes the parts of a message if they fit in the window. A message longer than the whole
+     * budget is allowed once the window is empty, or it could never be sent.
+     *
+     * @param parts The number of parts of the message.
+     * @param nowMillis The current time in epoch milliseconds.
+     * @return True if the parts were taken.
+     */
+    public boolean tryAcquire(int parts, long nowMillis) {
+        expire(nowMillis);
+        if (usedParts + parts > maxParts && usedParts > 0) {
+            return false;
+        }
+        record(nowMillis, parts);
+        return true;
+    }
+
+    /**
+     * Computes how long until a message of some size fits in the window.
+     *
+     * @param parts The number of parts of the message.
+     * @param nowMillis The current time in epoch milliseconds.
+     * @return The wait in milliseconds, 0 if it fits now.
+     */
+    public long millisUntilAvailable(int parts, long nowMillis) {
+        expire(nowMillis);
+        int used = usedParts;
+        for (long[] send : sends) {
+            if (used + parts <= maxParts || used == 0) {
+                break;
+            }
+            used -= (int) send[1];
+            if (used + parts <= maxParts || used == 0) {
+                return send[0] + windowMillis - nowMillis;
+            }
+        }
+        return 0;
+    }
+
+    private void expire(long nowMillis) {
+        long start = start(nowMillis);
+        while (!sends.isEmpty() && sends.peekFirst()[0] <= start) {
+            usedParts -= (int) sends.pollFirst()[1];
+        }
+    }
+}
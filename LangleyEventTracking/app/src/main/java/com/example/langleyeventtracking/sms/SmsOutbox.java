@@ -0,0 +1,95 @@
+package com.example.langleyeventtracking.sms;
+
+import android.content.Context;
+
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.models.OutboxMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMS Outbox
+ * <p>
+ * The SmsOutbox class is the entry point for sending SMS from the app.
+ * It includes:
+ * - Enqueuing a message under an idempotency key, so the same message is never stored or sent twice.
+ * - Scheduling the SmsOutboxWorker that drains the outbox, immediately or after a delay.
+ * - The rate limit every drain applies to the messages sent from the outbox.
+ * <p>
+ * Messages survive process death in the sms_outbox table; WorkManager restarts the drain after a reboot.
+ *
+ * @author Joseph Langley
+ */
+public final class SmsOutbox {
+
+    static final String DRAIN_WORK = "sms_outbox_drain"; // Unique work name for immediate drains
+    static final String RETRY_WORK = "sms_outbox_retry"; // Unique work name for the delayed drain
+
+    // Android prompts the user above 30 messages in 30 minutes, counting every part; stay under it
+    static final int RATE_LIMIT_PARTS = 25; // SMS parts allowed within any rate limit window
+    static final long RATE_LIMIT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(30); // Length of the rate limit window
+
+    private SmsOutbox() {
+    }
+
+    /**
+     * Stores a message for immediate sending and schedules a drain. Blocks on the database,
+     * so call it off the main thread.
+     *
+     * @param context Any context.
+     * @param idempotencyKey Identifies what the message is about; a second message with the same key is dropped.
+     * @param phone The destination phone number.
+     * @param body The text of the message.
+     * @return True if the message was enqueued, false if its key was already in the outbox.
+     */
+    public static boolean enqueue(Context context, String idempotencyKey, String phone, String body) {
+        return enqueue(context, idempotencyKey, phone, body, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a message that is not sent before the given time and schedules a drain.
+     * Blocks on the database, so call it off the main thread.
+     *
+     * @param context Any context.
+     * @param idempotencyKey Identifies what the message is about; a second message with the same key is dropped.
+     * @param phone The destination phone number.
+     * @param body The text of the message.
+     * @param notBefore The earliest send time in epoch milliseconds.
+     * @return True if the message was enqueued, false if its key was already in the outbox.
+     */
+    public static boolean enqueue(Context context, String idempotencyKey, String phone, String body, long notBefore) {
+        long now = System.currentTimeMillis();
+        OutboxMessage message = new OutboxMessage();
+        message.setIdempotencyKey(idempotencyKey);
+        message.setPhone(phone);
+        message.setBody(body);
+        message.setStatus(OutboxMessage.STATUS_PENDING);
+        message.setNextAttemptAt(Math.max(now, notBefore));
+        message.setCreatedAt(now);
+        boolean added = EventAppDatabase.getInstance(context).outboxDao().enqueue(message) != -1;
+        if (added) {
+            // KEEP folds a burst of enqueues into the drain that is already waiting to run;
+            // the drain reschedules itself for messages that are not due yet
+            WorkManager.getInstance(context).enqueueUniqueWork(DRAIN_WORK, ExistingWorkPolicy.KEEP,
+                    OneTimeWorkRequest.from(SmsOutboxWorker.class));
+        }
+        return added;
+    }
+
+    /**
+     * Schedules the next drain, replacing any earlier schedule.
+     *
+     * @param context Any context.
+     * @param delayMillis The delay in milliseconds.
+     */
+    static void scheduleRetry(Context context, long delayMillis) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SmsOutboxWorker.class)
+                .setInitialDelay(Math.max(0, delayMillis), TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(RETRY_WORK, ExistingWorkPolicy.REPLACE, request);
+    }
+}
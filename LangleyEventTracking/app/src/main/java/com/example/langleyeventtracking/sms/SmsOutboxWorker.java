@@ -0,0 +1,54 @@
+package com.example.langleyeventtracking.sms;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMS Outbox Worker
+ * <p>
+ * The SmsOutboxWorker class runs one drain of the outbox in the background.
+ * It includes:
+ * - Dispatching the due messages through the SystemSmsSender under the shared rate limit.
+ * - Scheduling the next drain for the earliest retry or the moment the rate limit allows more.
+ * - Purging finished messages once they are older than RETENTION_MILLIS.
+ *
+ * @author Joseph Langley
+ */
+public class SmsOutboxWorker extends Worker {
+
+    // Longer than the reminder horizon, so a purged key cannot be enqueued again by the scheduler
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(60);
+
+    /**
+     * Constructor for SmsOutboxWorker, called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params Parameters of this run.
+     */
+    public SmsOutboxWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        EventAppDatabase database = EventAppDatabase.getInstance(context);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(database, new SystemSmsSender(context),
+                SmsOutbox.RATE_LIMIT_PARTS, SmsOutbox.RATE_LIMIT_WINDOW_MILLIS, System::currentTimeMillis);
+        OutboxDispatcher.Result result = dispatcher.drain();
+        long now = System.currentTimeMillis();
+        database.outboxDao().deleteFinishedBefore(now - RETENTION_MILLIS);
+        if (result.nextRunAt != Long.MAX_VALUE) {
+            SmsOutbox.scheduleRetry(context, result.nextRunAt - now);
+        }
+        return Result.success();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.langleyeventtracking.sms;
+
+/**
+ * SMS Sender
+ * <p>
+ * The SmsSender interface hands one text message to whatever delivers it.
+ * It includes:
+ * - A single blocking send call, made from the outbox dispatcher's background thread.
+ * - Counting the parts a message is sent as, which is what the platform rate limit counts.
+ * - A SendException telling the dispatcher whether retrying can help.
+ * <p>
+ * SystemSmsSender is the production implementation; tests plug in a fake.
+ *
+ * @author Joseph Langley
+ */
+public interface SmsSender {
+
+    /**
+     * Sends one message.
+     *
+     * @param phone The destination phone number.
+     * @param body The text of the message.
+     * @throws SendException If the message could not be sent.
+     */
+    void send(String phone, String body) throws SendException;
+
+    /**
+     * Counts the SMS parts a message is split into when sent.
+     *
+     * @param body The text of the message.
+     * @return The number of parts, at least 1.
+     */
+    int partCount(String body);
+
+    /**
+     * Thrown when a message could not be sent.
+     */
+    class SendException extends Exception {
+
+        private final boolean permanent; // Whether retrying the same message is pointless
+
+        /**
+         * Constructor for SendException.
+         *
+         * @param message The reason the send failed.
+         * @param permanent True if the message can never be sent, false if a later attempt may work.
+         */
+        public SendException(String message, boolean permanent) {
+            super(message);
+            this.permanent = permanent;
+        }
+
+        /**
+         * Checks whether retrying the same message is pointless.
+         *
+         * @return True for permanent failures.
+         */
+        public boolean isPermanent() {
+            return permanent;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.langleyeventtracking.sms;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.telephony.SmsManager;
+
+/**
+ * System SMS Sender
+ * <p>
+ * The SystemSmsSender class sends messages through the platform SmsManager.
+ * It includes:
+ * - Splitting long messages into a multipart SMS, and counting the parts for the rate limit.
+ * - Treating a missing SEND_SMS permission or an unusable number as permanent failures.
+ * - Treating any other platform error as retryable.
+ * <p>
+ * A message counts as sent once SmsManager has accepted it for the carrier.
+ *
+ * @author Joseph Langley
+ */
+public class SystemSmsSender implements SmsSender {
+
+    private final Context context; // Application context for the permission check and the SmsManager
+
+    /**
+     * Constructor for SystemSmsSender.
+     *
+     * @param context Any context; the application context is kept.
+     */
+    public SystemSmsSender(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void send(String phone, String body) throws SendException {
+        if (context.checkSelfPermission(Manifest.permission.SEND_SMS) != PackageManager.PERMISSION_GRANTED) {
+            throw new SendException("SEND_SMS permission not granted", true);
+        }
+        if (phone == null || phone.trim().isEmpty()) {
+            throw new SendException("No phone number", true);
+        }
+        SmsManager smsManager = context.getSystemService(SmsManager.class);
+        try {
+            smsManager.sendMultipartTextMessage(phone, null, smsManager.divideMessage(body), null, null);
+        } catch (IllegalArgumentException e) {
+            throw new SendException("Invalid message: " + e.getMessage(), true);
+        } catch (RuntimeException e) {
+            throw new SendException(String.valueOf(e.getMessage()), false);
+        }
+    }
+
+    @Override
+    public int partCount(String body) {
+        SmsManager smsManager = context.getSystemService(SmsManager.class);
+        return Math.max(1, smsManager.divideMessage(body == null ? "" : body).size());
+    }
+}
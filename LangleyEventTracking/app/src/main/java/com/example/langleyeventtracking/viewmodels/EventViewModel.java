@@ -1,18 +1,40 @@
 package com.example.langleyeventtracking.viewmodels;
 
 import android.app.Application;
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.example.langleyeventtracking.data.io.EventExporter;
+import com.example.langleyeventtracking.data.io.EventFileFormat;
+import com.example.langleyeventtracking.data.io.EventImporter;
 import com.example.langleyeventtracking.data.models.Event;
 import com.example.langleyeventtracking.data.EventAppRepository;
+import com.example.langleyeventtracking.data.MonthSummary;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Event ViewModel
@@ -21,6 +43,12 @@ import java.util.List;
  * It includes:
  * - Methods for interacting with event data.
  * - A MutableLiveData object for managing SMS notifications.
+ * - The time of day the user's daily digest is sent.
+ * - Bulk import of events from CSV or iCalendar documents, with progress and cancellation.
+ * - Full-text search over the user's events, keeping only the results of the latest query.
+ * - Streaming export of events to CSV or iCalendar documents, with progress and throughput.
+ * - The month shown in the month grid and its per-day event counts.
+ * - The last deleted event, so its delete can be undone.
  * <p>
  * This class is used to manage UI-related data in a lifecycle-conscious way.
  *
@@ -28,8 +56,22 @@ import java.util.List;
  */
 public class EventViewModel extends AndroidViewModel {
 
+    private static final String TAG = "EventViewModel";
     private final EventAppRepository repository; // Repository for data operations
     private final MutableLiveData<Boolean> smsNotificationsEnabled = new MutableLiveData<>(); // LiveData for SMS notifications
+    private LiveData<PagingData<Event>> pagedEvents; // Paged events, cached across configuration changes
+    private int pagedUserId = -1; // ID of the user the paged events belong to
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor(); // Runs imports and exports off the main thread
+    private final MutableLiveData<ImportStatus> importStatus = new MutableLiveData<>(); // Progress of the current import
+    private EventImporter importer; // Importer of the current import, kept for cancellation
+    private final MutableLiveData<ExportStatus> exportStatus = new MutableLiveData<>(); // Progress of the current export
+    private EventExporter exporter; // Exporter of the current export, kept for cancellation
+    private final MutableLiveData<Event> deletedEvent = new MutableLiveData<>(); // Last deleted event, while it can be undone
+    private final MutableLiveData<List<Event>> searchResults = new MutableLiveData<>(); // Results of the latest search
+    private final AtomicInteger searchGeneration = new AtomicInteger(); // Incremented per search so stale results are dropped
+    private final MutableLiveData<YearMonth> shownMonth = new MutableLiveData<>(YearMonth.now()); // Month shown in the month grid
+    private LiveData<MonthSummary> monthSummary; // Counts of the shown month, cached across configuration changes
+    private int monthSummaryUserId = -1; // ID of the user the month counts belong to
 
     /**
      * Constructor for EventViewModel.
@@ -51,31 +93,328 @@ public class EventViewModel extends AndroidViewModel {
         return repository.getEventsForUser(userId);
     }
 
+    /**
+     * Gets the events for a specific user as pages, cached in the ViewModel scope so
+     * configuration changes reuse the pages already loaded.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData stream of paged events.
+     */
+    public LiveData<PagingData<Event>> getPagedEventsForUser(int userId) {
+        if (pagedEvents == null || pagedUserId != userId) {
+            pagedEvents = PagingLiveData.cachedIn(repository.getPagedEventsForUser(userId),
+                    ViewModelKt.getViewModelScope(this));
+            pagedUserId = userId;
+        }
+        return pagedEvents;
+    }
+
+    /**
+     * Gets a single event by its ID, for the edit screen.
+     *
+     * @param id The ID of the event.
+     * @return A LiveData object containing the event, or null once it is deleted.
+     */
+    public LiveData<Event> getEvent(int id) {
+        return repository.getEventById(id);
+    }
+
+    /**
+     * Counts the events of a specific user.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData object containing the number of events.
+     */
+    public LiveData<Integer> getEventCount(int userId) {
+        return repository.countEventsForUser(userId);
+    }
+
+    /**
+     * Gets the month shown in the month grid.
+     *
+     * @return A LiveData object containing the month.
+     */
+    public LiveData<YearMonth> getShownMonth() {
+        return shownMonth;
+    }
+
+    /**
+     * Moves the month grid forward or back.
+     *
+     * @param months The number of months to move, negative to go back.
+     */
+    public void moveShownMonth(int months) {
+        YearMonth month = shownMonth.getValue();
+        shownMonth.setValue((month != null ? month : YearMonth.now()).plusMonths(months));
+    }
+
+    /**
+     * Gets the per-day event counts of the shown month, following the month as it moves.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData summary of the shown month.
+     */
+    public LiveData<MonthSummary> getMonthSummary(int userId) {
+        if (monthSummary == null || monthSummaryUserId != userId) {
+            monthSummary = Transformations.switchMap(shownMonth, month -> repository.getMonthSummary(userId, month));
+            monthSummaryUserId = userId;
+        }
+        return monthSummary;
+    }
+
     /**
      * Inserts a new event.
      *
      * @param event The event to insert.
+     * @return A future completed with the new event's ID once the insert is committed.
      */
-    public void insert(Event event) {
-        repository.insertEvent(event);
+    public CompletableFuture<Long> insert(Event event) {
+        return repository.insertEvent(event);
     }
 
     /**
      * Updates an existing event.
      *
      * @param event The event to update.
+     * @return A future completed once the update is committed.
      */
-    public void update(Event event) {
-        repository.updateEvent(event);
+    public CompletableFuture<Integer> update(Event event) {
+        return repository.updateEvent(event);
     }
 
     /**
-     * Deletes an event.
+     * Deletes an event and offers to undo it, through getDeletedEvent. Call it from the main thread.
      *
-     * @param event The event to delete.
+     * @param event The event to delete, as it was loaded.
+     * @return A future completed once the delete is committed.
+     */
+    public CompletableFuture<Integer> delete(Event event) {
+        deletedEvent.setValue(event);
+        return repository.deleteEvent(event);
+    }
+
+    /**
+     * Gets the last deleted event while its delete can still be undone.
+     *
+     * @return A LiveData object containing the event, or null when there is nothing to undo.
+     */
+    public LiveData<Event> getDeletedEvent() {
+        return deletedEvent;
+    }
+
+    /**
+     * Restores the last deleted event. Call it from the main thread.
+     */
+    public void undoDelete() {
+        Event event = deletedEvent.getValue();
+        if (event != null) {
+            deletedEvent.setValue(null);
+            repository.restoreEvent(event);
+        }
+    }
+
+    /**
+     * Stops offering to undo a delete, once the user has let it go.
+     *
+     * @param event The deleted event the offer was made for; a newer delete keeps its own offer.
+     */
+    public void dismissDeletedEvent(Event event) {
+        if (deletedEvent.getValue() == event) {
+            deletedEvent.setValue(null);
+        }
+    }
+
+    /**
+     * Gets the results of the latest search.
+     *
+     * @return A LiveData list of matching events, best first.
+     */
+    public LiveData<List<Event>> getSearchResults() {
+        return searchResults;
+    }
+
+    /**
+     * Searches the user's events. Results of earlier searches that finish later are ignored.
+     *
+     * @param userId The ID of the user.
+     * @param query The text typed by the user.
+     */
+    public void search(int userId, String query) {
+        int generation = searchGeneration.incrementAndGet();
+        repository.searchEvents(userId, query).thenAccept(events -> {
+            if (generation == searchGeneration.get()) {
+                searchResults.postValue(events);
+            }
+        });
+    }
+
+    /**
+     * Gets the progress of the current import, or the result of the last one until it is cleared.
+     *
+     * @return A LiveData object containing the import status, null when there is nothing to show.
+     */
+    public LiveData<ImportStatus> getImportStatus() {
+        return importStatus;
+    }
+
+    /**
+     * Imports events from a document picked through the Storage Access Framework.
+     * The format is detected from the document's MIME type and name.
+     *
+     * @param uri The document to import.
+     * @param userId The ID of the user the events belong to.
+     */
+    public void importEvents(Uri uri, int userId) {
+        ContentResolver resolver = getApplication().getContentResolver();
+        EventImporter current = repository.createImporter();
+        importer = current;
+        importStatus.setValue(ImportStatus.running(0, 0, -1));
+        fileExecutor.execute(() -> {
+            try {
+                // Document metadata comes from a provider query, so it is read off the main thread too,
+                // and a revoked grant or a stale URI fails it like the import itself
+                String fileName = null;
+                long totalBytes = -1;
+                try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE}, null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst()) {
+                        fileName = cursor.getString(0);
+                        totalBytes = cursor.isNull(1) ? -1 : cursor.getLong(1);
+                    }
+                }
+                EventFileFormat format = EventFileFormat.detect(resolver.getType(uri), fileName);
+
+                try (InputStream input = resolver.openInputStream(uri)) {
+                    if (input == null) {
+                        throw new FileNotFoundException(uri.toString());
+                    }
+                    EventImporter.Result result = current.importEvents(input, totalBytes, format, userId,
+                            (imported, bytesRead, total) -> importStatus.postValue(ImportStatus.running(imported, bytesRead, total)));
+                    importStatus.postValue(ImportStatus.finished(result));
+                }
+            } catch (IOException | RuntimeException e) {
+                importStatus.postValue(ImportStatus.failed(e));
+            } finally {
+                // The importer writes in chunks of its own, so any committed chunk changes the counts
+                repository.invalidateMonthSummaries(userId);
+            }
+        });
+    }
+
+    /**
+     * Forgets the result of the last import once it has been shown, so it is not shown again
+     * when the activity is recreated. Call it from the main thread.
+     */
+    public void clearImportStatus() {
+        ImportStatus status = importStatus.getValue();
+        if (status != null && !status.running) {
+            importStatus.setValue(null);
+        }
+    }
+
+    /**
+     * Cancels the current import, if any. Chunks already committed stay imported.
+     */
+    public void cancelImport() {
+        if (importer != null) {
+            importer.cancel();
+        }
+    }
+
+    /**
+     * Gets the progress of the current export, or the result of the last one until it is cleared.
+     *
+     * @return A LiveData object containing the export status, null when there is nothing to show.
+     */
+    public LiveData<ExportStatus> getExportStatus() {
+        return exportStatus;
+    }
+
+    /**
+     * Exports a user's events to a document created through the Storage Access Framework.
+     *
+     * @param uri The document to write; any existing content is replaced.
+     * @param format The format to write.
+     * @param userId The ID of the user whose events are exported.
+     */
+    public void exportEvents(Uri uri, EventFileFormat format, int userId) {
+        ContentResolver resolver = getApplication().getContentResolver();
+        EventExporter current = repository.createExporter();
+        exporter = current;
+        exportStatus.setValue(ExportStatus.running(0, 0));
+        fileExecutor.execute(() -> {
+            try (OutputStream output = resolver.openOutputStream(uri, "wt")) {
+                if (output == null) {
+                    throw new FileNotFoundException(uri.toString());
+                }
+                EventExporter.Result result = current.exportEvents(output, format, userId,
+                        (exported, bytesWritten) -> exportStatus.postValue(ExportStatus.running(exported, bytesWritten)));
+                Log.i(TAG, "Exported " + result.exported + " events, " + result.bytesWritten + " bytes in "
+                        + result.elapsedMillis + " ms (" + result.bytesPerSecond() + " B/s, "
+                        + result.eventsPerSecond() + " events/s)");
+                exportStatus.postValue(ExportStatus.finished(result));
+            } catch (IOException | RuntimeException e) {
+                exportStatus.postValue(ExportStatus.failed(e));
+            }
+        });
+    }
+
+    /**
+     * Forgets the result of the last export once it has been shown, so it is not shown again
+     * when the activity is recreated. Call it from the main thread.
+     */
+    public void clearExportStatus() {
+        ExportStatus status = exportStatus.getValue();
+        if (status != null && !status.running) {
+            exportStatus.setValue(null);
+        }
+    }
+
+    /**
+     * Cancels the current export, if any. The document keeps the events written so far.
+     */
+    public void cancelExport() {
+        if (exporter != null) {
+            exporter.cancel();
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelImport();
+        cancelExport();
+        fileExecutor.shutdown();
+    }
+
+    /**
+     * Checks off the main thread whether a user still exists.
+     *
+     * @param userId The ID of the user.
+     * @return A future completed with true if the user exists.
+     */
+    public CompletableFuture<Boolean> userExists(int userId) {
+        return repository.userExists(userId);
+    }
+
+    /**
+     * Gets the time of day a user's daily digest is sent.
+     *
+     * @param userId The ID of the user.
+     * @return A LiveData object containing minutes after midnight, or -1 for no digest.
+     */
+    public LiveData<Integer> getDigestCutoff(int userId) {
+        return repository.getDigestCutoff(userId);
+    }
+
+    /**
+     * Sets the time of day a user's daily digest is sent.
+     *
+     * @param userId The ID of the user.
+     * @param minutes Minutes after midnight, or -1 for no digest.
+     * @return A future completed once the update is committed.
      */
-    public void delete(Event event) {
-        repository.deleteEvent(event);
+    public CompletableFuture<Integer> setDigestCutoff(int userId, int minutes) {
+        return repository.setDigestCutoff(userId, minutes);
     }
 
     /**
@@ -0,0 +1,44 @@
+package com.example.langleyeventtracking.viewmodels;
+
+import com.example.langleyeventtracking.data.io.EventExporter;
+
+/**
+ * Export Status
+ * <p>
+ * The ExportStatus class is an immutable snapshot of a running or finished event export.
+ * It includes:
+ * - The number of events and bytes written so far.
+ * - The final result with its throughput, or the error that stopped the export.
+ * <p>
+ * This class is emitted by EventViewModel so the UI can show progress and the outcome.
+ *
+ * @author Joseph Langley
+ */
+public final class ExportStatus {
+
+    public final boolean running; // Whether the export is still in progress
+    public final long exported; // Events written so far
+    public final long bytesWritten; // Bytes written so far
+    public final EventExporter.Result result; // Final result, null while running or after an error
+    public final Exception error; // Error that stopped the export, null otherwise
+
+    private ExportStatus(boolean running, long exported, long bytesWritten, EventExporter.Result result, Exception error) {
+        this.running = running;
+        this.exported = exported;
+        this.bytesWritten = bytesWritten;
+        this.result = result;
+        this.error = error;
+    }
+
+    static ExportStatus running(long exported, long bytesWritten) {
+        return new ExportStatus(true, exported, bytesWritten, null, null);
+    }
+
+    static ExportStatus finished(EventExporter.Result result) {
+        return new ExportStatus(false, result.exported, result.bytesWritten, result, null);
+    }
+
+    static ExportStatus failed(Exception error) {
+        return new ExportStatus(false, 0, 0, null, error);
+    }
+}
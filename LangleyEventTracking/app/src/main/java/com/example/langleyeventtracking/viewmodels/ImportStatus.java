@@ -0,0 +1,45 @@
+package com.example.langleyeventtracking.viewmodels;
+
+import com.example.langleyeventtracking.data.io.EventImporter;
+
+/**
+ * Import Status
+ * <p>
+ * The ImportStatus class is an immutable snapshot of a running or finished event import.
+ * It includes:
+ * - The number of events imported so far and the percentage of the file read.
+ * - The final result, or the error that stopped the import.
+ * <p>
+ * This class is emitted by EventViewModel so the UI can show progress and the outcome.
+ *
+ * @author Joseph Langley
+ */
+public final class ImportStatus {
+
+    public final boolean running; // Whether the import is still in progress
+    public final long imported; // Events imported so far
+    public final int percent; // Percentage of the file read, or -1 when the size is unknown
+    public final EventImporter.Result result; // Final result, null while running or after an error
+    public final Exception error; // Error that stopped the import, null otherwise
+
+    private ImportStatus(boolean running, long imported, int percent, EventImporter.Result result, Exception error) {
+        this.running = running;
+        this.imported = imported;
+        this.percent = percent;
+        this.result = result;
+        this.error = error;
+    }
+
+    static ImportStatus running(long imported, long bytesRead, long totalBytes) {
+        int percent = totalBytes > 0 ? (int) Math.min(100, bytesRead * 100 / totalBytes) : -1;
+        return new ImportStatus(true, imported, percent, null, null);
+    }
+
+    static ImportStatus finished(EventImporter.Result result) {
+        return new ImportStatus(false, result.imported, 100, result, null);
+    }
+
+    static ImportStatus failed(Exception error) {
+        return new ImportStatus(false, 0, -1, null, error);
+    }
+}
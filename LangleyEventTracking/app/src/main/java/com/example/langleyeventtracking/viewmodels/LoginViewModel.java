@@ -0,0 +1,85 @@
+package com.example.langleyeventtracking.viewmodels;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.langleyeventtracking.data.EventAppRepository;
+import com.example.langleyeventtracking.data.models.User;
+
+/**
+ * Login View Model
+ * <p>
+ * The LoginViewModel class runs credential checks for the LoginActivity. It includes:
+ * - Starting a login on the Authenticator thread, at most one at a time.
+ * - A single LiveData with the state of the current attempt, observed once by the activity.
+ * <p>
+ * Keeping the attempt here lets a login in flight survive a configuration change.
+ *
+ * @author Joseph Langley
+ */
+public class LoginViewModel extends AndroidViewModel {
+
+    private final EventAppRepository repository; // Repository for data operations
+    private final MutableLiveData<LoginStatus> loginStatus = new MutableLiveData<>(); // State of the current attempt
+
+    /**
+     * Constructor for LoginViewModel.
+     *
+     * @param application The application context.
+     */
+    public LoginViewModel(@NonNull Application application) {
+        super(application);
+        repository = new EventAppRepository(application);
+    }
+
+    /**
+     * Gets the state of the current or last login attempt.
+     *
+     * @return A LiveData object containing the login status.
+     */
+    public LiveData<LoginStatus> getLoginStatus() {
+        return loginStatus;
+    }
+
+    /**
+     * Checks an email and password. Ignored while another attempt is running.
+     *
+     * @param email The email typed by the user.
+     * @param password The password typed by the user.
+     */
+    public void login(String email, String password) {
+        LoginStatus current = loginStatus.getValue();
+        if (current != null && current.running) {
+            return;
+        }
+        loginStatus.setValue(LoginStatus.RUNNING);
+        repository.login(email, password).whenComplete((user, error) ->
+                loginStatus.postValue(error == null ? LoginStatus.finished(user) : LoginStatus.finished(null)));
+    }
+
+    /**
+     * Login Status
+     * <p>
+     * Immutable state of a login attempt.
+     */
+    public static final class LoginStatus {
+
+        static final LoginStatus RUNNING = new LoginStatus(true, null);
+
+        public final boolean running; // Whether the credentials are still being checked
+        public final User user; // The logged in user, null while running or if the credentials did not match
+
+        private LoginStatus(boolean running, User user) {
+            this.running = running;
+            this.user = user;
+        }
+
+        static LoginStatus finished(User user) {
+            return new LoginStatus(false, user);
+        }
+    }
+}
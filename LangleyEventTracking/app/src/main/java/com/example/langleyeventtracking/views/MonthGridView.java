@@ -0,0 +1,239 @@
+package com.example.langleyeventtracking.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.langleyeventtracking.R;
+import com.example.langleyeventtracking.data.MonthSummary;
+import com.google.android.material.color.MaterialColors;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
+/**
+ * Month Grid View
+ * <p>
+ * The MonthGridView class draws one month as a calendar grid with the number of events on each day.
+ * It includes:
+ * - A single view drawing every cell itself, so a month costs no child views or layout passes.
+ * - Weekday labels starting on the locale's first day of the week.
+ * - A badge with the event count on busy days, and a ring around today.
+ * - Horizontal swipes reported as moves to the next or previous month.
+ * <p>
+ * This class is used by EventActivity next to the event list.
+ *
+ * @author Joseph Langley
+ */
+public class MonthGridView extends View {
+
+    private static final int COLUMNS = 7; // Days in a week
+    private static final int ROWS = 6; // Weeks a month can touch
+    private static final float CELL_HEIGHT_DP = 40; // Height of a week row
+    private static final float WEEKDAY_HEIGHT_DP = 24; // Height of the weekday label row
+    private static final float BADGE_RADIUS_DP = 7; // Radius of the event count badge
+    private static final String[] NUMBERS = new String[32]; // Day and count labels, built once so drawing allocates nothing
+    private static final String MANY = "9+"; // Badge label for more than nine events
+
+    static {
+        for (int i = 1; i < NUMBERS.length; i++) {
+            NUMBERS[i] = Integer.toString(i);
+        }
+    }
+
+    private final Paint dayPaint = new Paint(Paint.ANTI_ALIAS_FLAG); // Day numbers
+    private final Paint weekdayPaint = new Paint(Paint.ANTI_ALIAS_FLAG); // Weekday labels
+    private final Paint badgePaint = new Paint(Paint.ANTI_ALIAS_FLAG); // Event count badges
+    private final Paint badgeTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG); // Event counts
+    private final Paint todayPaint = new Paint(Paint.ANTI_ALIAS_FLAG); // Ring around today
+    private final float cellHeight; // Height of a week row in pixels
+    private final float weekdayHeight; // Height of the weekday label row in pixels
+    private final float badgeRadius; // Radius of the event count badge in pixels
+    private final DayOfWeek firstDayOfWeek; // Day shown in the first column
+    private final String[] weekdayLabels = new String[COLUMNS]; // Narrow weekday names, in column order
+    private final GestureDetector gestures; // Detects month swipes
+    private YearMonth month = YearMonth.now(); // Month drawn
+    private MonthSummary summary; // Counts of the month drawn, null while they load
+    private OnMonthSwipeListener listener; // Listener for month swipes
+
+    /**
+     * Constructor for MonthGridView, used when created from code.
+     *
+     * @param context The context of the view.
+     */
+    public MonthGridView(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor for MonthGridView, used when inflated from a layout.
+     *
+     * @param context The context of the view.
+     * @param attrs The layout attributes.
+     */
+    public MonthGridView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        float density = metrics.density;
+        cellHeight = CELL_HEIGHT_DP * density;
+        weekdayHeight = WEEKDAY_HEIGHT_DP * density;
+        badgeRadius = BADGE_RADIUS_DP * density;
+
+        int textColor = MaterialColors.getColor(this, android.R.attr.textColorPrimary);
+        dayPaint.setColor(textColor);
+        dayPaint.setTextAlign(Paint.Align.CENTER);
+        dayPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, metrics));
+        weekdayPaint.setColor(MaterialColors.getColor(this, android.R.attr.textColorSecondary));
+        weekdayPaint.setTextAlign(Paint.Align.CENTER);
+        weekdayPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, metrics));
+        badgePaint.setColor(ContextCompat.getColor(context, R.color.sage));
+        badgeTextPaint.setColor(ContextCompat.getColor(context, R.color.softBlack));
+        badgeTextPaint.setTextAlign(Paint.Align.CENTER);
+        badgeTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10, metrics));
+        todayPaint.setColor(ContextCompat.getColor(context, R.color.darkSage));
+        todayPaint.setStyle(Paint.Style.STROKE);
+        todayPaint.setStrokeWidth(2 * density);
+
+        Locale locale = Locale.getDefault();
+        firstDayOfWeek = WeekFields.of(locale).getFirstDayOfWeek();
+        for (int i = 0; i < COLUMNS; i++) {
+            weekdayLabels[i] = firstDayOfWeek.plus(i).getDisplayName(TextStyle.NARROW, locale);
+        }
+
+        gestures = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float velocityX, float velocityY) {
+                if (listener == null || Math.abs(velocityX) <= Math.abs(velocityY)) {
+                    return false;
+                }
+                listener.onMonthSwipe(velocityX < 0 ? 1 : -1);
+                return true;
+            }
+        });
+        updateContentDescription();
+    }
+
+    /**
+     * Shows a month, without counts until its summary arrives.
+     *
+     * @param month The month to draw.
+     */
+    public void setMonth(YearMonth month) {
+        if (month.equals(this.month)) {
+            return;
+        }
+        this.month = month;
+        if (summary != null && !summary.getMonth().equals(month)) {
+            summary = null;
+        }
+        updateContentDescription();
+        invalidate();
+    }
+
+    /**
+     * Shows the counts of a month, moving to that month if needed.
+     *
+     * @param summary The per-day counts to draw.
+     */
+    public void setSummary(MonthSummary summary) {
+        this.summary = summary;
+        this.month = summary.getMonth();
+        updateContentDescription();
+        invalidate();
+    }
+
+    /**
+     * Sets the listener for month swipes.
+     *
+     * @param listener The listener to set.
+     */
+    public void setOnMonthSwipeListener(OnMonthSwipeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Interface for handling month swipes.
+     */
+    public interface OnMonthSwipeListener {
+        /**
+         * @param months 1 to move to the next month, -1 to move to the previous one.
+         */
+        void onMonthSwipe(int months);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int height = (int) Math.ceil(weekdayHeight + ROWS * cellHeight) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float columnWidth = (getWidth() - left - getPaddingRight()) / COLUMNS;
+
+        float weekdayBaseline = top + (weekdayHeight - weekdayPaint.ascent() - weekdayPaint.descent()) / 2;
+        for (int column = 0; column < COLUMNS; column++) {
+            canvas.drawText(weekdayLabels[column], left + (column + 0.5f) * columnWidth, weekdayBaseline, weekdayPaint);
+        }
+
+        LocalDate today = LocalDate.now();
+        int todayOfMonth = YearMonth.from(today).equals(month) ? today.getDayOfMonth() : 0;
+        int offset = (month.atDay(1).getDayOfWeek().getValue() - firstDayOfWeek.getValue() + COLUMNS) % COLUMNS;
+        int length = month.lengthOfMonth();
+        for (int day = 1; day <= length; day++) {
+            int cell = offset + day - 1;
+            float centerX = left + (cell % COLUMNS + 0.5f) * columnWidth;
+            float rowTop = top + weekdayHeight + (cell / COLUMNS) * cellHeight;
+            float dayBaseline = rowTop + cellHeight * 0.45f;
+            canvas.drawText(NUMBERS[day], centerX, dayBaseline, dayPaint);
+            if (day == todayOfMonth) {
+                canvas.drawCircle(centerX, dayBaseline - (dayPaint.ascent() + dayPaint.descent()) / 2,
+                        cellHeight * 0.3f, todayPaint);
+            }
+
+            int count = summary != null ? summary.getCount(day) : 0;
+            if (count > 0) {
+                float badgeY = rowTop + cellHeight - badgeRadius - 1;
+                canvas.drawCircle(centerX, badgeY, badgeRadius, badgePaint);
+                canvas.drawText(count > 9 ? MANY : NUMBERS[count], centerX,
+                        badgeY - (badgeTextPaint.ascent() + badgeTextPaint.descent()) / 2, badgeTextPaint);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestures.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    /**
+     * Describes the month and its total for accessibility services, which cannot read a drawn grid.
+     */
+    private void updateContentDescription() {
+        String name = month.getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault()) + " " + month.getYear();
+        setContentDescription(summary != null ? name + ", " + summary.getTotal() + " events" : name);
+    }
+}
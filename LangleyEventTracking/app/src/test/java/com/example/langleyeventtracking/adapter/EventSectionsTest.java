@@ -0,0 +1,117 @@
+package com.example.langleyeventtracking.adapter;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks month grouping, and that regrouping after an edit gives the same items as grouping from scratch
+ * while only grouping the events between the edit's old and new place.
+ */
+public class EventSectionsTest {
+
+    @Test
+    public void regroup_insertsAHeaderBeforeEachMonth() {
+        EventSections sections = new EventSections(true);
+
+        List<EventSections.Item> items = sections.regroup(Arrays.asList(
+                event(1, "2024-06-02"), event(2, "2024-06-20"), event(3, "2024-07-01"), event(4, "2024-09-30")));
+
+        assertEquals("[2024-06, 1, 2, 2024-07, 3, 2024-09, 4]", describe(items));
+    }
+
+    @Test
+    public void regroup_withoutGroupingKeepsTheOrderAndAddsNoHeaders() {
+        EventSections sections = new EventSections(false);
+
+        List<EventSections.Item> items = sections.regroup(Arrays.asList(event(2, "2024-07-01"), event(1, "2024-06-02")));
+
+        assertEquals("[2, 1]", describe(items));
+    }
+
+    @Test
+    public void regroup_ofAnEqualListReturnsThePreviousItems() {
+        EventSections sections = new EventSections(true);
+        List<EventSections.Item> first = sections.regroup(Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01")));
+
+        List<EventSections.Item> second = sections.regroup(Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01")));
+
+        assertSame(first, second);
+        assertEquals(0, sections.getLastRegrouped());
+    }
+
+    @Test
+    public void regroup_afterAnEditOnlyGroupsTheChangedRange() {
+        List<Event> before = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            before.add(event(i + 1, LocalDate.of(2024, 1, 1).plusDays(i * 3L).toString()));
+        }
+        EventSections sections = new EventSections(true);
+        sections.regroup(before);
+
+        // Move event 41 from the middle of April into the next month
+        List<Event> after = new ArrayList<>(before);
+        Event moved = event(41, "2024-05-05");
+        moved.setVersion(1);
+        after.remove(40);
+        int insertAt = 0;
+        while (insertAt < after.size() && after.get(insertAt).getDate() <= moved.getDate()) {
+            insertAt++;
+        }
+        after.add(insertAt, moved);
+        List<EventSections.Item> items = sections.regroup(after);
+
+        assertEquals(describe(new EventSections(true).regroup(after)), describe(items));
+        assertTrue(sections.getLastRegrouped() < 10);
+    }
+
+    @Test
+    public void regroup_dropsTheHeaderOfAMonthThatBecameEmpty() {
+        EventSections sections = new EventSections(true);
+        sections.regroup(Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"), event(3, "2024-08-01")));
+
+        List<EventSections.Item> items = sections.regroup(Arrays.asList(event(1, "2024-06-02"), event(3, "2024-08-01")));
+
+        assertEquals("[2024-06, 1, 2024-08, 3]", describe(items));
+    }
+
+    @Test
+    public void regroup_addsAHeaderWhenAnEventStartsANewMonthBeforeTheUnchangedEnd() {
+        EventSections sections = new EventSections(true);
+        sections.regroup(Arrays.asList(event(1, "2024-06-02"), event(3, "2024-06-20")));
+
+        List<EventSections.Item> items = sections.regroup(Arrays.asList(
+                event(1, "2024-06-02"), event(2, "2024-06-10"), event(3, "2024-06-20"), event(4, "2024-07-01")));
+
+        assertEquals("[2024-06, 1, 2, 3, 2024-07, 4]", describe(items));
+    }
+
+    private static Event event(int id, String date) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle("Event " + id);
+        event.setDate(LocalDate.parse(date).toEpochDay());
+        return event;
+    }
+
+    private static String describe(List<EventSections.Item> items) {
+        List<String> parts = new ArrayList<>();
+        for (EventSections.Item item : items) {
+            parts.add(item.isHeader() ? item.month.toString() : String.valueOf(item.event.getId()));
+            if (!item.isHeader()) {
+                assertEquals(YearMonth.from(LocalDate.ofEpochDay(item.event.getDate())), item.month);
+            }
+        }
+        return parts.toString();
+    }
+}
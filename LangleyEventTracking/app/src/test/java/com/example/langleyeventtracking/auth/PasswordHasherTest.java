@@ -0,0 +1,60 @@
+package com.example.langleyeventtracking.auth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the stored hash format, verification of hashed and legacy plaintext passwords, and rehash decisions.
+ */
+public class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000); // Low work factor keeps the test fast
+
+    @Test
+    public void hash_verifiesOnlyTheSamePassword() {
+        String stored = hasher.hash("correct horse");
+
+        assertTrue(stored.startsWith("pbkdf2_sha256$1000$"));
+        assertEquals(4, stored.split("\\$").length);
+        assertTrue(hasher.verify("correct horse", stored));
+        assertFalse(hasher.verify("correct horsE", stored));
+        assertFalse(hasher.verify("", stored));
+    }
+
+    @Test
+    public void hash_usesAFreshSaltEachTime() {
+        assertNotEquals(hasher.hash("secret"), hasher.hash("secret"));
+    }
+
+    @Test
+    public void verify_acceptsLegacyPlaintextAndRejectsMalformedHashes() {
+        assertTrue(hasher.verify("secret", "secret"));
+        assertFalse(hasher.verify("secret", "other"));
+        assertFalse(hasher.verify("secret", "pbkdf2_sha256$x$y"));
+        assertFalse(hasher.verify("secret", "pbkdf2_sha256$abc$AAAA$AAAA"));
+        assertFalse(hasher.verify("secret", null));
+    }
+
+    @Test
+    public void needsRehash_forPlaintextAndWeakerHashes() {
+        PasswordHasher stronger = new PasswordHasher(2_000);
+        String weak = hasher.hash("secret");
+
+        assertTrue(hasher.needsRehash("secret"));
+        assertFalse(hasher.needsRehash(weak));
+        assertTrue(stronger.needsRehash(weak));
+        assertFalse(hasher.needsRehash(stronger.hash("secret")));
+        assertTrue(stronger.verify("secret", weak));
+    }
+
+    @Test
+    public void calibrate_staysWithinBounds() {
+        int iterations = PasswordHasher.calibrate(1);
+
+        assertEquals(PasswordHasher.MIN_ITERATIONS, iterations);
+    }
+}
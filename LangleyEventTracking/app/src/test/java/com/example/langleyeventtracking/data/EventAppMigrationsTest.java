@@ -0,0 +1,135 @@
+package com.example.langleyeventtracking.data;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs migrations against databases created with the schema of the version they start from,
+ * and checks the rows they leave behind.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class EventAppMigrationsTest {
+
+    private static final String EVENTS_9 = "CREATE TABLE `events` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`title` TEXT, `date` INTEGER NOT NULL, `description` TEXT, `user id` INTEGER NOT NULL, "
+            + "`recurrence` TEXT, `reminders` TEXT, `version` INTEGER NOT NULL DEFAULT 0)";
+
+    private SupportSQLiteOpenHelper helper;
+
+    @After
+    public void tearDown() {
+        if (helper != null) {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void migrate2To3_movesEventsOfDuplicateAccountsToTheKeptOne() {
+        SupportSQLiteDatabase db = open(2, "CREATE TABLE `users` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                        + "`name` TEXT, `birthday` TEXT, `phone` TEXT, `email` TEXT, `password` TEXT)",
+                "CREATE TABLE `events` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                        + "`title` TEXT, `date` INTEGER NOT NULL, `description` TEXT, `user id` INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO `users` (`id`, `email`) VALUES (1, 'a@example.com'), (2, 'b@example.com'), "
+                + "(3, 'a@example.com'), (4, NULL), (5, NULL)");
+        db.execSQL("INSERT INTO `events` (`id`, `date`, `user id`) VALUES (1, 0, 1), (2, 0, 2), (3, 0, 3), "
+                + "(4, 0, 5), (5, 0, 9)");
+
+        EventAppMigrations.MIGRATION_2_3.migrate(db);
+
+        assertEquals("[1, 2, 4]", column(db, "SELECT `id` FROM `users` ORDER BY `id`"));
+        // An event of an account that never existed is left alone
+        assertEquals("[1, 2, 1, 4, 9]", column(db, "SELECT `user id` FROM `events` ORDER BY `id`"));
+    }
+
+    @Test
+    public void migrate9To10_addsTheDeletedAtColumnAndPartialIndexes() {
+        SupportSQLiteDatabase db = open(9, EVENTS_9,
+                "CREATE INDEX `index_events_user_id_date` ON `events` (`user id`, `date`)",
+                "CREATE INDEX `index_events_user_id_recurrence` ON `events` (`user id`, `recurrence`)");
+        db.execSQL("INSERT INTO `events` (`id`, `title`, `date`, `user id`, `version`) VALUES (1, 'a', 10, 1, 3), "
+                + "(2, 'b', 20, 1, 0)");
+        assertFalse(EventAppMigrations.hasPartialEventIndices(db));
+
+        EventAppMigrations.MIGRATION_9_10.migrate(db);
+
+        assertTrue(EventAppMigrations.hasPartialEventIndices(db));
+        // Every existing event stays live, with its version untouched
+        assertEquals("[3, 0]", column(db, "SELECT `version` FROM `events` WHERE `deleted at` IS NULL ORDER BY `id`"));
+        assertEquals("[index_events_deleted_at, index_events_user_id_date, index_events_user_id_recurrence]",
+                column(db, "SELECT `name` FROM sqlite_master WHERE type = 'index' AND tbl_name = 'events' ORDER BY `name`"));
+    }
+
+    @Test
+    public void hasPartialEventIndices_isFalseUntilEveryIndexHasItsWhereClause() {
+        // The indexes as Room creates them for a new database, without WHERE clauses
+        SupportSQLiteDatabase db = open(10, EVENTS_9,
+                "ALTER TABLE `events` ADD COLUMN `deleted at` INTEGER",
+                "CREATE INDEX `index_events_user_id_date` ON `events` (`user id`, `date`)",
+                "CREATE INDEX `index_events_user_id_recurrence` ON `events` (`user id`, `recurrence`)",
+                "CREATE INDEX `index_events_deleted_at` ON `events` (`deleted at`)");
+        assertFalse(EventAppMigrations.hasPartialEventIndices(db));
+
+        EventAppMigrations.createPartialEventIndices(db);
+        assertTrue(EventAppMigrations.hasPartialEventIndices(db));
+
+        db.execSQL("DROP INDEX `index_events_deleted_at`");
+        db.execSQL("CREATE INDEX `index_events_deleted_at` ON `events` (`deleted at`)");
+        assertFalse(EventAppMigrations.hasPartialEventIndices(db));
+    }
+
+    /**
+     * Opens an in-memory database at a schema version, created with the given statements.
+     */
+    private SupportSQLiteDatabase open(int version, String... schema) {
+        Context context = ApplicationProvider.getApplicationContext();
+        SupportSQLiteOpenHelper.Configuration configuration = SupportSQLiteOpenHelper.Configuration.builder(context)
+                .name(null)
+                .callback(new SupportSQLiteOpenHelper.Callback(version) {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        for (String statement : schema) {
+                            db.execSQL(statement);
+                        }
+                    }
+
+                    @Override
+                    public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    }
+                })
+                .build();
+        helper = new FrameworkSQLiteOpenHelperFactory().create(configuration);
+        return helper.getWritableDatabase();
+    }
+
+    private static String column(SupportSQLiteDatabase db, String query) {
+        List<String> values = new ArrayList<>();
+        try (Cursor cursor = db.query(query)) {
+            while (cursor.moveToNext()) {
+                values.add(cursor.getString(0));
+            }
+        }
+        return values.toString();
+    }
+}
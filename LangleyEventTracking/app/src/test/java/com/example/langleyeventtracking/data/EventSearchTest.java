@@ -0,0 +1,107 @@
+package com.example.langleyeventtracking.data;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the search query ranks in SQL the way its documentation says: title hits and rows
+ * with more hits first, ties by date, only the user's live events, and no more than the limit.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class EventSearchTest {
+
+    private static final int USER = 1;
+
+    private EventAppDatabase database;
+    private EventDao eventDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, EventAppDatabase.class)
+                .addCallback(EventAppDatabase.PARTIAL_INDEXES)
+                .allowMainThreadQueries()
+                .build();
+        eventDao = database.eventDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void searchEvents_ranksTitleHitsAboveDescriptionHits() {
+        insert(USER, "Errands", "Pick up the dentist bill", 10);
+        insert(USER, "Dentist", "Checkup", 20);
+
+        assertEquals("[Dentist, Errands]", titles(eventDao.searchEvents(USER, "dent", 10)));
+    }
+
+    @Test
+    public void searchEvents_ranksMoreHitsFirstWhateverTheDate() {
+        insert(USER, "Dentist", "Checkup", 10);
+        insert(USER, "Dentist visit", "Dentist at noon", 20);
+
+        assertEquals("[Dentist visit, Dentist]", titles(eventDao.searchEvents(USER, "dentist", 10)));
+    }
+
+    @Test
+    public void searchEvents_breaksTiesByDateAndStopsAtTheLimit() {
+        insert(USER, "Yoga third", null, 30);
+        insert(USER, "Yoga first", null, 10);
+        insert(USER, "Yoga second", null, 20);
+
+        assertEquals("[Yoga first, Yoga second]", titles(eventDao.searchEvents(USER, "yoga", 2)));
+    }
+
+    @Test
+    public void searchEvents_skipsOtherUsersAndDeletedEvents() {
+        insert(USER + 1, "Concert", null, 10);
+        int deleted = insert(USER, "Concert tickets", null, 20);
+        insert(USER, "Concert", null, 30);
+        eventDao.markEventDeleted(deleted, 1);
+
+        List<Event> results = eventDao.searchEvents(USER, "concert", 10);
+        assertEquals(1, results.size());
+        assertEquals(USER, results.get(0).getUserId());
+        assertEquals(30, results.get(0).getDate());
+    }
+
+    private int insert(int userId, String title, String description, long date) {
+        Event event = new Event();
+        event.setUserId(userId);
+        event.setTitle(title);
+        event.setDescription(description);
+        event.setDate(date);
+        return (int) eventDao.insertEvent(event);
+    }
+
+    private static String titles(List<Event> events) {
+        List<String> titles = new ArrayList<>();
+        for (Event event : events) {
+            titles.add(event.getTitle());
+        }
+        return titles.toString();
+    }
+}
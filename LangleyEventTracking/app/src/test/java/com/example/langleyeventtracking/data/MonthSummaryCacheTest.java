@@ -0,0 +1,218 @@
+package com.example.langleyeventtracking.data;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a write marks only the days it touched, that the next read recounts just the span of
+ * those days and keeps the rest, and that a count which raced with a write is returned but not cached.
+ */
+public class MonthSummaryCacheTest {
+
+    private static final int USER = 1;
+    private static final YearMonth JUNE = YearMonth.of(2024, 6);
+    private static final YearMonth JULY = YearMonth.of(2024, 7);
+
+    private final Map<Long, Integer> counts = new HashMap<>(); // Events on each day, as the database has them
+    private final List<String> queries = new ArrayList<>(); // Ranges counted, in order
+    private Runnable duringCount; // Run inside the next count, to race a write with it
+    private final MonthSummaryCache cache = new MonthSummaryCache(fakeDao(), 3);
+
+    @Test
+    public void get_countsAMonthOnceThenAnswersFromMemory() {
+        setCount("2024-06-05", 2);
+
+        MonthSummary first = cache.get(USER, JUNE);
+
+        assertSame(first, cache.get(USER, JUNE));
+        assertSame(first, cache.peek(USER, JUNE));
+        assertEquals(2, first.getCount(5));
+        assertEquals("[2024-06-01..2024-06-30]", queries.toString());
+    }
+
+    @Test
+    public void invalidateEvent_recountsOnlyTheDirtyDays() {
+        setCount("2024-07-05", 1);
+        setCount("2024-07-10", 4);
+        cache.get(USER, JULY);
+
+        // A new event on the 5th and another on the 31st; the 10th changes behind the cache's back
+        setCount("2024-07-05", 2);
+        setCount("2024-07-31", 1);
+        setCount("2024-07-10", 9);
+        cache.invalidateEvent(null, event("2024-07-05", null));
+        cache.invalidateEvent(null, event("2024-07-31", null));
+        assertNull(cache.peek(USER, JULY));
+        MonthSummary summary = cache.get(USER, JULY);
+
+        // One query spans the first to the last dirty day, and only the dirty days take its counts
+        assertEquals("[2024-07-01..2024-07-31, 2024-07-05..2024-07-31]", queries.toString());
+        assertEquals(2, summary.getCount(5));
+        assertEquals(1, summary.getCount(31));
+        assertEquals(4, summary.getCount(10));
+        assertSame(summary, cache.peek(USER, JULY));
+    }
+
+    @Test
+    public void invalidateEvent_forAMoveRecountsBothDays() {
+        setCount("2024-06-03", 1);
+        cache.get(USER, JUNE);
+
+        setCount("2024-06-03", 0);
+        setCount("2024-06-04", 1);
+        cache.invalidateEvent(event("2024-06-03", null), event("2024-06-04", null));
+        MonthSummary summary = cache.get(USER, JUNE);
+
+        assertEquals(0, summary.getCount(3));
+        assertEquals(1, summary.getCount(4));
+        assertEquals(1, summary.getTotal());
+        assertEquals("2024-06-03..2024-06-04", queries.get(1));
+    }
+
+    @Test
+    public void invalidateEvent_acrossMonthsMarksADayInEach() {
+        setCount("2024-06-30", 1);
+        cache.get(USER, JUNE);
+        cache.get(USER, JULY);
+
+        setCount("2024-06-30", 0);
+        setCount("2024-07-01", 1);
+        cache.invalidateEvent(event("2024-06-30", null), event("2024-07-01", null));
+
+        assertEquals(0, cache.get(USER, JUNE).getCount(30));
+        assertEquals(1, cache.get(USER, JULY).getCount(1));
+        assertEquals("[2024-06-30..2024-06-30, 2024-07-01..2024-07-01]", queries.subList(2, 4).toString());
+    }
+
+    @Test
+    public void invalidateEvent_ofASeriesDropsOnlyThatUsersMonths() {
+        cache.get(USER, JUNE);
+        cache.get(USER + 1, JUNE);
+
+        cache.invalidateEvent(null, event("2024-06-01", "FREQ=DAILY"));
+
+        assertNull(cache.peek(USER, JUNE));
+        assertNotNull(cache.peek(USER + 1, JUNE));
+        cache.get(USER, JUNE);
+        assertEquals("2024-06-01..2024-06-30", queries.get(2));
+    }
+
+    @Test
+    public void get_doesNotCacheACountThatRacedWithAWrite() {
+        duringCount = () -> {
+            setCount("2024-06-12", 1);
+            cache.invalidateEvent(null, event("2024-06-12", null));
+        };
+
+        MonthSummary raced = cache.get(USER, JUNE);
+
+        // The count ran before the write, so it is returned but the next read counts again
+        assertEquals(0, raced.getCount(12));
+        assertNull(cache.peek(USER, JUNE));
+        assertEquals(1, cache.get(USER, JUNE).getCount(12));
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    public void get_keepsDaysDirtyWhenARecountRacedWithAWrite() {
+        cache.get(USER, JUNE);
+        setCount("2024-06-02", 1);
+        cache.invalidateEvent(null, event("2024-06-02", null));
+        duringCount = () -> {
+            setCount("2024-06-20", 1);
+            cache.invalidateEvent(null, event("2024-06-20", null));
+        };
+
+        MonthSummary raced = cache.get(USER, JUNE);
+
+        assertEquals(1, raced.getCount(2));
+        assertNull(cache.peek(USER, JUNE));
+        MonthSummary summary = cache.get(USER, JUNE);
+        assertEquals(1, summary.getCount(2));
+        assertEquals(1, summary.getCount(20));
+        assertEquals("[2024-06-01..2024-06-30, 2024-06-02..2024-06-02, 2024-06-02..2024-06-20]", queries.toString());
+        assertSame(summary, cache.peek(USER, JUNE));
+    }
+
+    @Test
+    public void get_evictsTheLeastRecentlyUsedMonth() {
+        cache.get(USER, YearMonth.of(2024, 5));
+        cache.get(USER, JUNE);
+        cache.get(USER, JULY);
+        cache.get(USER, YearMonth.of(2024, 5));
+
+        cache.get(USER, YearMonth.of(2024, 8));
+
+        assertNull(cache.peek(USER, JUNE));
+        assertNotNull(cache.peek(USER, YearMonth.of(2024, 5)));
+        assertNotNull(cache.peek(USER, JULY));
+    }
+
+    @Test
+    public void withCounts_replacesOnlyTheMarkedDays() {
+        int[] days = new int[30];
+        days[4] = 7;
+        days[6] = 7;
+        MonthSummary summary = new MonthSummary(USER, JUNE, days);
+
+        MonthSummary updated = summary.withCounts(5, new int[]{1, 2, 3}, 1 << 4 | 1 << 6);
+
+        assertEquals(1, updated.getCount(5));
+        assertEquals(0, updated.getCount(6));
+        assertEquals(3, updated.getCount(7));
+        assertEquals(7, summary.getCount(5));
+    }
+
+    /**
+     * An EventDao that only answers countEventsByDay, from the counts map, and logs each range counted.
+     */
+    private EventDao fakeDao() {
+        return (EventDao) Proxy.newProxyInstance(EventDao.class.getClassLoader(), new Class<?>[]{EventDao.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("countEventsByDay")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long from = (long) args[1];
+                    long to = (long) args[2];
+                    int[] result = new int[(int) (to - from + 1)];
+                    for (long day = from; day <= to; day++) {
+                        result[(int) (day - from)] = counts.getOrDefault(day, 0);
+                    }
+                    queries.add(LocalDate.ofEpochDay(from) + ".." + LocalDate.ofEpochDay(to));
+                    if (duringCount != null) {
+                        Runnable race = duringCount;
+                        duringCount = null;
+                        race.run();
+                    }
+                    return result;
+                });
+    }
+
+    private void setCount(String date, int count) {
+        counts.put(LocalDate.parse(date).toEpochDay(), count);
+    }
+
+    private static Event event(String date, String recurrence) {
+        Event event = new Event();
+        event.setUserId(USER);
+        event.setTitle("Event");
+        event.setDate(LocalDate.parse(date).toEpochDay());
+        event.setRecurrence(recurrence);
+        return event;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.langleyeventtracking.data;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that series are expanded into occurrences within a window and merged with one-off events in
+ * (date, id) order, and that lazily pulled upcoming occurrences agree with the expanded windows.
+ */
+public class OccurrenceExpanderTest {
+
+    private final OccurrenceExpander expander = new OccurrenceExpander(16);
+
+    @Test
+    public void occurrences_skipsMonthsWithoutThe31st() {
+        Event series = event(1, "2024-01-31", "FREQ=MONTHLY");
+
+        assertEquals("[2024-03-31, 2024-05-31]", days(expander.occurrences(series, day("2024-02-01"), day("2024-06-30"))));
+    }
+
+    @Test
+    public void occurrences_ofFebruary29thFallOnLeapYearsOnly() {
+        Event series = event(1, "2020-02-29", "FREQ=YEARLY;COUNT=3");
+
+        assertEquals("[2024-02-29, 2028-02-29]", days(expander.occurrences(series, day("2021-01-01"), day("2040-12-31"))));
+    }
+
+    @Test
+    public void merge_interleavesOccurrencesWithOneOffs() {
+        List<Event> oneOffs = Arrays.asList(event(2, "2024-01-08", null), event(3, "2024-01-16", null));
+        List<Event> series = Collections.singletonList(event(1, "2024-01-01", "FREQ=WEEKLY;INTERVAL=2"));
+
+        List<Event> merged = expander.merge(oneOffs, series, day("2024-01-01"), day("2024-01-31"));
+
+        assertEquals("[1@2024-01-01, 2@2024-01-08, 1@2024-01-15, 3@2024-01-16, 1@2024-01-29]", describe(merged));
+        assertEquals(day("2024-01-01"), merged.get(2).getSeriesStart());
+    }
+
+    @Test
+    public void expandForList_keepsASeriesWithoutOccurrencesInTheWindow() {
+        List<Event> events = Arrays.asList(event(1, "2020-01-01", "FREQ=DAILY;UNTIL=20200105"),
+                event(2, "2024-01-02", null), event(3, "2024-01-01", "FREQ=DAILY;COUNT=2"));
+
+        List<Event> expanded = expander.expandForList(events, day("2024-01-01"), day("2024-12-31"));
+
+        assertEquals("[1@2020-01-01, 3@2024-01-01, 2@2024-01-02, 3@2024-01-02]", describe(expanded));
+    }
+
+    @Test
+    public void upcoming_agreesWithTheExpandedWindow() {
+        List<Event> series = Arrays.asList(event(1, "2024-01-31", "FREQ=MONTHLY"),
+                event(2, "2023-02-28", "FREQ=YEARLY;INTERVAL=1"));
+        List<Event> oneOffs = Collections.singletonList(event(3, "2024-03-31", null));
+
+        List<Event> upcoming = expander.upcoming(oneOffs, series, day("2024-02-01"), 4);
+
+        assertEquals("[2@2024-02-28, 1@2024-03-31, 3@2024-03-31, 1@2024-05-31]", describe(upcoming));
+        assertEquals(describe(upcoming),
+                describe(expander.merge(oneOffs, series, day("2024-02-01"), day("2024-05-31"))));
+    }
+
+    private static Event event(int id, String date, String recurrence) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle("Event " + id);
+        event.setDate(day(date));
+        event.setRecurrence(recurrence);
+        return event;
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    private static String days(long[] days) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (long day : days) {
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return dates.toString();
+    }
+
+    private static String describe(List<Event> events) {
+        List<String> items = new ArrayList<>();
+        for (Event event : events) {
+            items.add(event.getId() + "@" + LocalDate.ofEpochDay(event.getDate()));
+        }
+        return items.toString();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.langleyeventtracking.data;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that pending writes are merged into a user's snapshot at once, stay merged until a
+ * snapshot shows them or a later write to the same row, and disappear when rolled back or timed out.
+ */
+public class PendingEventWritesTest {
+
+    private static final int USER = 7;
+
+    @Test
+    public void apply_withNothingPendingReturnsTheSnapshotItself() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"));
+
+        assertSame(rows, writes.apply(USER, rows));
+    }
+
+    @Test
+    public void insert_showsAtOnceUnderAPlaceholderThenUnderItsRowId() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"));
+
+        PendingEventWrites.Write insert = writes.insert(event(0, "2024-06-20"));
+        List<Event> merged = writes.apply(USER, rows);
+        assertEquals(3, merged.size());
+        assertTrue(PendingEventWrites.isUnsaved(merged.get(1)));
+
+        writes.commit(insert, 3);
+        assertEquals("[1, 3, 2]", ids(writes.apply(USER, rows)));
+
+        // The reloaded snapshot has the row, so the overlay lets go of it
+        List<Event> reloaded = Arrays.asList(event(1, "2024-06-02"), event(3, "2024-06-20"), event(2, "2024-07-01"));
+        assertSame(reloaded, writes.apply(USER, reloaded));
+        assertEquals(0, writes.size());
+    }
+
+    @Test
+    public void update_bumpsTheVersionAndIsDroppedOnceStored() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"));
+        Event moved = event(1, "2024-08-15");
+
+        PendingEventWrites.Write update = writes.update(moved);
+        List<Event> merged = writes.apply(USER, rows);
+        assertEquals("[2, 1]", ids(merged));
+        assertEquals(1, merged.get(1).getVersion());
+
+        writes.commit(update, 0);
+        // A snapshot loaded before the commit does not show it yet
+        assertEquals("[2, 1]", ids(writes.apply(USER, rows)));
+
+        Event stored = event(1, "2024-08-15");
+        stored.setVersion(1);
+        List<Event> reloaded = Arrays.asList(event(2, "2024-07-01"), stored);
+        assertSame(reloaded, writes.apply(USER, reloaded));
+        assertEquals(0, writes.size());
+    }
+
+    @Test
+    public void update_shownByASnapshotDropsTheEarlierUpdatesToTheRow() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"));
+        Event first = event(1, "2024-06-10");
+        first.setTitle("First edit");
+        Event second = event(1, "2024-06-10");
+        second.setTitle("Second edit");
+
+        writes.commit(writes.update(first), 0);
+        writes.commit(writes.update(second), 0);
+        // Only the second edit is in the database, which the first edit cannot match
+        Event stored = event(1, "2024-06-10");
+        stored.setTitle("Second edit");
+        stored.setVersion(2);
+        List<Event> reloaded = Arrays.asList(stored, event(2, "2024-07-01"));
+
+        assertSame(reloaded, writes.apply(USER, reloaded));
+        assertEquals(0, writes.size());
+        assertSame(rows, writes.apply(USER, rows));
+    }
+
+    @Test
+    public void update_stillPendingAfterAnEarlierUpdateIsShownKeepsBeingMerged() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        Event first = event(1, "2024-06-10");
+        first.setTitle("First edit");
+        Event second = event(1, "2024-06-10");
+        second.setTitle("Second edit");
+        writes.commit(writes.update(first), 0);
+        writes.update(second);
+
+        Event stored = event(1, "2024-06-10");
+        stored.setTitle("First edit");
+        stored.setVersion(1);
+        List<Event> merged = writes.apply(USER, Arrays.asList(stored));
+
+        assertEquals("Second edit", merged.get(0).getTitle());
+        assertEquals(2, merged.get(0).getVersion());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void delete_hidesTheRowUntilRolledBack() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"), event(2, "2024-07-01"));
+        List<Long> revisions = new ArrayList<>();
+        writes.addChangeListener(() -> revisions.add(writes.getRevision()));
+
+        PendingEventWrites.Write delete = writes.delete(event(1, "2024-06-02"));
+        assertEquals("[2]", ids(writes.apply(USER, rows)));
+
+        writes.rollBack(delete);
+        assertSame(rows, writes.apply(USER, rows));
+        assertEquals(2, revisions.size());
+    }
+
+    @Test
+    public void restore_bringsADeletedRowBackWithTheVersionItWillBeStoredWith() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        Event deleted = event(1, "2024-06-02");
+        List<Event> rows = Arrays.asList(event(2, "2024-07-01"));
+
+        PendingEventWrites.Write restore = writes.restore(deleted);
+        List<Event> merged = writes.apply(USER, rows);
+        assertEquals("[1, 2]", ids(merged));
+        assertEquals(2, merged.get(0).getVersion());
+
+        writes.commit(restore, 0);
+        List<Event> reloaded = Arrays.asList(merged.get(0), event(2, "2024-07-01"));
+        assertSame(reloaded, writes.apply(USER, reloaded));
+    }
+
+    @Test
+    public void restore_shownByASnapshotDropsTheDeleteItUndid() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        Event event = event(1, "2024-06-02");
+
+        writes.commit(writes.delete(event), 0);
+        writes.commit(writes.restore(event), 0);
+
+        // The reload has the row back, which the delete alone would never match
+        Event stored = event(1, "2024-06-02");
+        stored.setVersion(2);
+        List<Event> reloaded = Arrays.asList(stored, event(2, "2024-07-01"));
+        assertSame(reloaded, writes.apply(USER, reloaded));
+        assertEquals(0, writes.size());
+    }
+
+    @Test
+    public void apply_leavesOtherUsersAlone() {
+        PendingEventWrites writes = new PendingEventWrites(PendingEventWrites.DEFAULT_RECONCILE_TIMEOUT_MILLIS);
+        writes.delete(event(1, "2024-06-02"));
+        List<Event> rows = new ArrayList<>();
+        Event other = event(1, "2024-06-02");
+        other.setUserId(USER + 1);
+        rows.add(other);
+
+        assertSame(rows, writes.apply(USER + 1, rows));
+    }
+
+    @Test
+    public void apply_dropsACommittedWriteNoSnapshotShowsAfterTheTimeout() throws InterruptedException {
+        PendingEventWrites writes = new PendingEventWrites(0);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"));
+        PendingEventWrites.Write update = writes.update(event(1, "2024-06-03"));
+        writes.commit(update, 0);
+        Thread.sleep(2);
+
+        assertSame(rows, writes.apply(USER, rows));
+        assertEquals(0, writes.size());
+    }
+
+    @Test
+    public void commit_notifiesTheListenersOnceTheReconcileTimeoutExpires() throws InterruptedException {
+        PendingEventWrites writes = new PendingEventWrites(20);
+        List<Event> rows = Arrays.asList(event(1, "2024-06-02"));
+        PendingEventWrites.Write update = writes.update(event(1, "2024-06-03"));
+        CountDownLatch reloaded = new CountDownLatch(1);
+        writes.addChangeListener(reloaded::countDown);
+
+        writes.commit(update, 0);
+
+        assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+        assertSame(rows, writes.apply(USER, rows));
+        assertEquals(0, writes.size());
+    }
+
+    private static Event event(int id, String date) {
+        Event event = new Event();
+        event.setId(id);
+        event.setUserId(USER);
+        event.setTitle("Event " + id);
+        event.setDate(LocalDate.parse(date).toEpochDay());
+        return event;
+    }
+
+    private static String ids(List<Event> events) {
+        List<Integer> ids = new ArrayList<>();
+        for (Event event : events) {
+            ids.add(event.getId());
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.langleyeventtracking.data;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every @Query declared in the DAO sources, and for the ranked search
+ * query, against the real Room schema and fails if any of them falls back to a full table scan.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class QueryPlanTest {
+
+    // Unit tests run with the module directory as the working directory
+    private static final File DAO_SOURCES = new File("src/main/java/com/example/langleyeventtracking/data/dao");
+    private static final Pattern QUERY_ANNOTATION = Pattern.compile("@Query\\(((?:\\s*\"(?:[^\"\\\\]|\\\\.)*\"\\s*\\+?)+)\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":\\w+");
+
+    private EventAppDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        // The same partial event indexes as the app's database, so plans are checked against them
+        database = Room.inMemoryDatabaseBuilder(context, EventAppDatabase.class)
+                .addCallback(EventAppDatabase.PARTIAL_INDEXES)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void daoQueries_doNotScanTables() throws IOException {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        List<String> queries = readDaoQueries();
+        assertFalse("No @Query annotations found in " + DAO_SOURCES.getAbsolutePath(), queries.isEmpty());
+
+        List<String> failures = new ArrayList<>();
+        for (String query : queries) {
+            // Bind every parameter as NULL, only the plan matters here
+            Matcher parameter = NAMED_PARAMETER.matcher(query);
+            int parameterCount = 0;
+            while (parameter.find()) {
+                parameterCount++;
+            }
+            String sql = parameter.replaceAll("?");
+            try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, new Object[parameterCount])) {
+                int detailColumn = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    String detail = cursor.getString(detailColumn);
+                    if (isTableScan(detail)) {
+                        failures.add(query + "\n    -> " + detail);
+                    }
+                }
+            }
+        }
+        assertTrue("Queries falling back to a table scan:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    @Test
+    public void rankedSearch_doesNotScanTables() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        String match = EventSearch.toMatchExpression("budget review");
+        List<String> failures = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + EventSearch.rankedQuery(match),
+                EventSearch.bindArgs(match, 1, 20))) {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                String detail = cursor.getString(detailColumn);
+                // Reading back the materialized matches is the one scan the query is meant to do
+                if (isTableScan(detail) && !detail.equals("SCAN matches")) {
+                    failures.add(detail);
+                }
+            }
+        }
+        assertTrue("Ranked search falling back to a table scan: " + failures, failures.isEmpty());
+    }
+
+    /**
+     * A plan step is a table scan when SQLite walks a table without any index
+     * (e.g. "SCAN events" or, on older versions, "SCAN TABLE events").
+     * Virtual tables report their own strategy: FTS index 0 is a full scan, any other index is a lookup.
+     */
+    private static boolean isTableScan(String detail) {
+        if (detail.contains(" VIRTUAL TABLE INDEX ")) {
+            return detail.contains(" VIRTUAL TABLE INDEX 0:");
+        }
+        return detail.startsWith("SCAN") && !detail.contains(" USING ");
+    }
+
+    private static List<String> readDaoQueries() throws IOException {
+        List<String> queries = new ArrayList<>();
+        File[] sources = DAO_SOURCES.listFiles((dir, name) -> name.endsWith(".java"));
+        if (sources == null) {
+            return queries;
+        }
+        for (File source : sources) {
+            String text = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+            Matcher annotation = QUERY_ANNOTATION.matcher(text);
+            while (annotation.find()) {
+                // Join concatenated literals into a single statement
+                StringBuilder sql = new StringBuilder();
+                Matcher literal = STRING_LITERAL.matcher(annotation.group(1));
+                while (literal.find()) {
+                    sql.append(literal.group(1).replace("\\\"", "\""));
+                }
+                queries.add(sql.toString());
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.langleyeventtracking.data;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that occurrences that do not exist are skipped rather than moved and do not count towards COUNT,
+ * that INTERVAL, COUNT and UNTIL bound a series, and that seeking into a series gives the same days as
+ * walking it from the start.
+ */
+public class RecurrenceRuleTest {
+
+    @Test
+    public void monthlyOnThe31st_skipsShorterMonths() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY");
+
+        assertEquals("[2024-01-31, 2024-03-31, 2024-05-31, 2024-07-31, 2024-08-31, 2024-10-31, 2024-12-31]",
+                occurrences(rule, "2024-01-31", "2024-01-01", "2024-12-31"));
+    }
+
+    @Test
+    public void monthlyOnThe31st_doesNotCountSkippedMonths() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;COUNT=4");
+
+        assertEquals("[2024-01-31, 2024-03-31, 2024-05-31, 2024-07-31]",
+                occurrences(rule, "2024-01-31", "2024-01-01", "2025-12-31"));
+        // Seeking past the start still counts the occurrences before it
+        assertEquals("[2024-05-31, 2024-07-31]", occurrences(rule, "2024-01-31", "2024-04-01", "2025-12-31"));
+    }
+
+    @Test
+    public void monthlyOnThe30th_skipsOnlyFebruary() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;INTERVAL=1");
+
+        assertEquals("[2024-01-30, 2024-03-30]", occurrences(rule, "2024-01-30", "2024-01-01", "2024-03-31"));
+    }
+
+    @Test
+    public void yearlyOnFebruary29th_occursInLeapYearsOnly() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY");
+
+        assertEquals("[2024-02-29, 2028-02-29, 2032-02-29]",
+                occurrences(rule, "2024-02-29", "2024-01-01", "2035-12-31"));
+        assertEquals("[2028-02-29]", occurrences(rule, "2024-02-29", "2024-03-01", "2031-12-31"));
+    }
+
+    @Test
+    public void yearlyOnFebruary29th_honorsCountAndInterval() {
+        assertEquals("[2028-02-29]",
+                occurrences(RecurrenceRule.parse("FREQ=YEARLY;COUNT=2"), "2024-02-29", "2025-01-01", "2040-12-31"));
+        // Every third year only lands on a leap year every twelve years
+        assertEquals("[2024-02-29, 2036-02-29]",
+                occurrences(RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=3"), "2024-02-29", "2024-01-01", "2040-12-31"));
+    }
+
+    @Test
+    public void yearlyOnFebruary28th_occursEveryYear() {
+        assertEquals("[2023-02-28, 2024-02-28, 2025-02-28]", occurrences(RecurrenceRule.parse("FREQ=YEARLY"),
+                "2023-02-28", "2023-01-01", "2025-12-31"));
+    }
+
+    @Test
+    public void interval_seeksStraightIntoTheSeries() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2");
+
+        assertEquals("[2024-03-11, 2024-03-25]", occurrences(rule, "2024-01-01", "2024-03-01", "2024-03-31"));
+        assertEquals("[2024-01-01, 2024-01-04, 2024-01-07]",
+                occurrences(RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3"), "2024-01-01", "2024-01-01", "2024-01-09"));
+        assertEquals("[2024-01-15, 2024-04-15]",
+                occurrences(RecurrenceRule.parse("FREQ=MONTHLY;INTERVAL=3"), "2024-01-15", "2023-12-01", "2024-06-30"));
+    }
+
+    @Test
+    public void count_endsTheSeriesWhereverTheWindowStarts() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;COUNT=5");
+
+        assertEquals("[2024-01-01, 2024-01-02, 2024-01-03, 2024-01-04, 2024-01-05]",
+                occurrences(rule, "2024-01-01", "2023-12-01", "2024-12-31"));
+        assertEquals("[2024-01-04, 2024-01-05]", occurrences(rule, "2024-01-01", "2024-01-04", "2024-12-31"));
+        assertEquals("[]", occurrences(rule, "2024-01-01", "2024-01-06", "2024-12-31"));
+    }
+
+    @Test
+    public void until_isInclusiveForDatesAndDateTimes() {
+        assertEquals("[2024-01-01, 2024-01-08, 2024-01-15]", occurrences(
+                RecurrenceRule.parse("FREQ=WEEKLY;UNTIL=20240115"), "2024-01-01", "2024-01-01", "2024-12-31"));
+        assertEquals("[2024-01-01, 2024-01-08, 2024-01-15]", occurrences(
+                RecurrenceRule.parse("RRULE:FREQ=WEEKLY;UNTIL=20240115T235959Z"), "2024-01-01", "2024-01-01", "2024-12-31"));
+        assertEquals("[2024-01-31, 2024-03-31]", occurrences(
+                RecurrenceRule.parse("FREQ=MONTHLY;UNTIL=20240430"), "2024-01-31", "2024-01-01", "2024-12-31"));
+    }
+
+    @Test
+    public void parse_rejectsMalformedAndUnsupportedRules() {
+        String[] rules = {"INTERVAL=2", "FREQ=HOURLY", "FREQ=DAILY;INTERVAL=0", "FREQ=DAILY;COUNT=-1",
+                "FREQ=DAILY;BYDAY=MO", "FREQ=DAILY;UNTIL=2024", "FREQ=DAILY;;COUNT=2", null};
+        for (String rule : rules) {
+            try {
+                RecurrenceRule.parse(rule);
+                fail("Expected " + rule + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+                // Rejected as it should be
+            }
+        }
+    }
+
+    @Test
+    public void of_buildsARuleThatParsesBack() {
+        assertEquals(RecurrenceRule.Frequency.YEARLY,
+                RecurrenceRule.parse(RecurrenceRule.of(RecurrenceRule.Frequency.YEARLY)).getFrequency());
+    }
+
+    /**
+     * Lists the occurrences of a series between two days as ISO dates.
+     */
+    private static String occurrences(RecurrenceRule rule, String start, String from, String to) {
+        long last = LocalDate.parse(to).toEpochDay();
+        PrimitiveIterator.OfLong days = rule.occurrencesFrom(LocalDate.parse(start).toEpochDay(),
+                LocalDate.parse(from).toEpochDay());
+        List<LocalDate> dates = new ArrayList<>();
+        while (days.hasNext()) {
+            long day = days.nextLong();
+            if (day > last) {
+                break;
+            }
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return dates.toString();
+    }
+}
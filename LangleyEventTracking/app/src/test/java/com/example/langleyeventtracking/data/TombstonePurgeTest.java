@@ -0,0 +1,116 @@
+package com.example.langleyeventtracking.data;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.langleyeventtracking.data.dao.EventDao;
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that tombstones are purged in bounded batches, oldest first, and that live events and
+ * tombstones newer than the cutoff are left alone.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class TombstonePurgeTest {
+
+    private static final int USER = 1;
+
+    private EventAppDatabase database;
+    private EventDao eventDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, EventAppDatabase.class)
+                .addCallback(EventAppDatabase.PARTIAL_INDEXES)
+                .allowMainThreadQueries()
+                .build();
+        eventDao = database.eventDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void purgeDeletedEvents_removesAtMostOneBatchOldestFirst() {
+        insert("Live");
+        int[] deleted = {insert("Deleted third"), insert("Deleted first"), insert("Deleted second")};
+        eventDao.markEventDeleted(deleted[0], 300);
+        eventDao.markEventDeleted(deleted[1], 100);
+        eventDao.markEventDeleted(deleted[2], 200);
+        int recent = insert("Deleted after the cutoff");
+        eventDao.markEventDeleted(recent, 1000);
+
+        assertEquals(2, eventDao.purgeDeletedEvents(500, 2));
+        assertEquals("[Live, Deleted third, Deleted after the cutoff]", titles());
+
+        assertEquals(1, eventDao.purgeDeletedEvents(500, 2));
+        assertEquals(0, eventDao.purgeDeletedEvents(500, 2));
+        assertEquals("[Live, Deleted after the cutoff]", titles());
+        // A purged event is gone for good, while a tombstone inside the retention can still come back
+        assertEquals(0, eventDao.restoreEvent(deleted[0]));
+        assertEquals(1, eventDao.restoreEvent(recent));
+        assertEquals(2, eventDao.getEventsForUser(USER).size());
+    }
+
+    @Test
+    public void purgeDeletedEvents_inBatchesOfTheWorkerSizeClearsEveryTombstone() {
+        int batchSize = TombstoneCompactionWorker.BATCH_SIZE;
+        int total = batchSize * 2 + 1;
+        for (int i = 0; i < total; i++) {
+            eventDao.markEventDeleted(insert("Deleted " + i), i);
+        }
+
+        List<Integer> batches = new ArrayList<>();
+        int removed;
+        do {
+            removed = eventDao.purgeDeletedEvents(total, batchSize);
+            batches.add(removed);
+        } while (removed == batchSize);
+
+        assertEquals(Arrays.asList(batchSize, batchSize, 1), batches);
+        assertEquals("[]", titles());
+    }
+
+    private int insert(String title) {
+        Event event = new Event();
+        event.setUserId(USER);
+        event.setTitle(title);
+        event.setDate(10);
+        return (int) eventDao.insertEvent(event);
+    }
+
+    /**
+     * Lists the titles of every row left, tombstones included, in ID order.
+     */
+    private String titles() {
+        List<String> titles = new ArrayList<>();
+        try (Cursor cursor = database.query("SELECT title FROM events ORDER BY id", null)) {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(0));
+            }
+        }
+        return titles.toString();
+    }
+}
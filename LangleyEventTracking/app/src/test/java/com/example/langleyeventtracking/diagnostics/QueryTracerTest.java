@@ -0,0 +1,153 @@
+package com.example.langleyeventtracking.diagnostics;
+
+import androidx.lifecycle.LiveData;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that traced DAO calls are timed with their rows and statement, that main-thread calls are
+ * flagged and logged, and that the slow query log rotates instead of growing.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class QueryTracerTest {
+
+    interface SampleDao {
+        List<String> findAll();
+
+        int deleteAll();
+
+        LiveData<Integer> count();
+    }
+
+    @Test
+    public void wrap_timesEachCallWithItsRowsAndStatement() throws Exception {
+        QueryTracer tracer = new QueryTracer(new SlowQueryLog(newDirectory(), SlowQueryLog.MAX_BYTES), Long.MAX_VALUE);
+        SampleDao dao = tracer.wrap(SampleDao.class, new FakeDao(tracer));
+
+        // Off the main thread, as the app's DAO calls are
+        Thread worker = new Thread(dao::findAll, "db-worker");
+        worker.start();
+        worker.join();
+
+        String report = tracer.report();
+        assertTrue(report, report.startsWith("DAO calls (0 on the main thread)"));
+        assertTrue(report, report.contains("SampleDao.findAll n=1"));
+        assertTrue(report, report.contains("rows/call=3.0 main=0 thread=db-worker"));
+        assertTrue(report, report.contains("SELECT * FROM sample n=1"));
+        assertEquals("", tracer.getSlowQueryLog().tail(10));
+    }
+
+    @Test
+    public void wrap_flagsAndLogsMainThreadCalls() throws IOException {
+        QueryTracer tracer = new QueryTracer(new SlowQueryLog(newDirectory(), SlowQueryLog.MAX_BYTES), Long.MAX_VALUE);
+        SampleDao dao = tracer.wrap(SampleDao.class, new FakeDao(tracer));
+
+        assertEquals(2, dao.deleteAll());
+
+        assertTrue(tracer.report().startsWith("DAO calls (1 on the main thread)"));
+        String log = tracer.getSlowQueryLog().tail(10);
+        assertTrue(log, log.contains(" rows=2 thread="));
+        assertTrue(log, log.contains(" MAIN SampleDao.deleteAll: DELETE FROM sample"));
+    }
+
+    @Test
+    public void wrap_rethrowsTheDaoExceptionAndStillCountsTheCall() throws IOException {
+        QueryTracer tracer = new QueryTracer(new SlowQueryLog(newDirectory(), SlowQueryLog.MAX_BYTES), Long.MAX_VALUE);
+        FakeDao fake = new FakeDao(tracer);
+        fake.failure = new IllegalStateException("Cannot access database on the main thread");
+        SampleDao dao = tracer.wrap(SampleDao.class, fake);
+
+        try {
+            dao.deleteAll();
+            fail("Expected the DAO's exception");
+        } catch (IllegalStateException e) {
+            assertEquals(fake.failure, e);
+        }
+        assertTrue(tracer.report().contains("SampleDao.deleteAll n=1"));
+    }
+
+    @Test
+    public void wrap_passesLiveDataThroughUntimed() throws IOException {
+        QueryTracer tracer = new QueryTracer(new SlowQueryLog(newDirectory(), SlowQueryLog.MAX_BYTES), 0);
+        SampleDao dao = tracer.wrap(SampleDao.class, new FakeDao(tracer));
+
+        dao.count();
+
+        assertFalse(tracer.report().contains("SampleDao.count"));
+        assertEquals("", tracer.getSlowQueryLog().tail(10));
+    }
+
+    @Test
+    public void slowQueryLog_rotatesIntoOnePreviousFile() throws IOException {
+        File directory = newDirectory();
+        SlowQueryLog log = new SlowQueryLog(directory, 64);
+
+        for (int i = 0; i < 10; i++) {
+            log.write("line " + i + " 0123456789"); // 18 bytes with the line break
+        }
+
+        assertTrue(new File(directory, SlowQueryLog.FILE_NAME).length() <= 64);
+        assertTrue(new File(directory, SlowQueryLog.PREVIOUS_FILE_NAME).isFile());
+        assertEquals(2, directory.list().length);
+        assertEquals("line 8 0123456789\nline 9 0123456789", log.readTail(2));
+        assertFalse(log.readTail(100).contains("line 0 "));
+    }
+
+    private static File newDirectory() throws IOException {
+        File directory = Files.createTempDirectory("slow-queries").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    /**
+     * Stands in for a Room DAO, reporting its statement to the tracer as Room's query callback would.
+     */
+    private static final class FakeDao implements SampleDao {
+
+        private final QueryTracer tracer;
+        RuntimeException failure; // Thrown by deleteAll when set
+
+        FakeDao(QueryTracer tracer) {
+            this.tracer = tracer;
+        }
+
+        @Override
+        public List<String> findAll() {
+            tracer.onStatement("SELECT * FROM sample");
+            return Arrays.asList("a", "b", "c");
+        }
+
+        @Override
+        public int deleteAll() {
+            tracer.onStatement("BEGIN EXCLUSIVE TRANSACTION");
+            tracer.onStatement("DELETE FROM sample");
+            if (failure != null) {
+                throw failure;
+            }
+            tracer.onStatement("TRANSACTION SUCCESSFUL");
+            tracer.onStatement("END TRANSACTION");
+            return 2;
+        }
+
+        @Override
+        public LiveData<Integer> count() {
+            tracer.onStatement("SELECT COUNT(*) FROM sample");
+            return null;
+        }
+    }
+}
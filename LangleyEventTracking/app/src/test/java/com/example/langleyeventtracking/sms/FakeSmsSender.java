@@ -0,0 +1,42 @@
+package com.example.langleyeventtracking.sms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * SmsSender for local tests: records every message it accepts, fails on demand and splits long texts into parts.
+ */
+public class FakeSmsSender implements SmsSender {
+
+    public final List<String> sent = new ArrayList<>(); // "phone: body" of every accepted message, in order
+    private final Deque<SendException> failures = new ArrayDeque<>(); // Failures thrown by the next sends
+    public int calls; // Number of send calls, including failed ones
+
+    /**
+     * Makes the next send fail with the given exception. Failures queue up in order.
+     */
+    public FakeSmsSender failNext(String message, boolean permanent) {
+        failures.add(new SendException(message, permanent));
+        return this;
+    }
+
+    @Override
+    public void send(String phone, String body) throws SendException {
+        calls++;
+        SendException failure = failures.poll();
+        if (failure != null) {
+            throw failure;
+        }
+        sent.add(phone + ": " + body);
+    }
+
+    /**
+     * Counts parts as GSM-7 text does: 160 characters fit one SMS, longer texts go in parts of 153.
+     */
+    @Override
+    public int partCount(String body) {
+        return body.length() <= 160 ? 1 : (body.length() + 152) / 153;
+    }
+}
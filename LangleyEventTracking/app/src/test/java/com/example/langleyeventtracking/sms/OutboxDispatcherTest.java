@@ -0,0 +1,193 @@
+package com.example.langleyeventtracking.sms;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.langleyeventtracking.data.EventAppDatabase;
+import com.example.langleyeventtracking.data.dao.OutboxDao;
+import com.example.langleyeventtracking.data.models.OutboxMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Drives the OutboxDispatcher against an in-memory database with a fake sender and a manual clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class OutboxDispatcherTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private EventAppDatabase database;
+    private OutboxDao outboxDao;
+    private FakeSmsSender sender;
+    private long now;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, EventAppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        outboxDao = database.outboxDao();
+        sender = new FakeSmsSender();
+        now = START;
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void enqueue_ignoresDuplicateKeys() {
+        assertEquals(1, enqueue("reminder:1:20000:1440", "first"));
+        assertEquals(-1, enqueue("reminder:1:20000:1440", "second"));
+
+        dispatcher(10, 60_000).drain();
+
+        assertEquals(1, sender.sent.size());
+        assertEquals("555: first", sender.sent.get(0));
+    }
+
+    @Test
+    public void drain_stopsAtRateLimitAndResumesWhenTheWindowMoves() {
+        for (int i = 0; i < 5; i++) {
+            enqueue("key" + i, "message " + i);
+        }
+
+        OutboxDispatcher.Result result = dispatcher(2, 60_000).drain();
+        assertEquals(2, result.sent);
+        assertEquals(START + 60_000, result.nextRunAt);
+
+        now += 60_000;
+        assertEquals(2, dispatcher(2, 60_000).drain().sent);
+        assertEquals(4, sender.sent.size());
+        assertEquals("555: message 2", sender.sent.get(2));
+    }
+
+    @Test
+    public void drain_countsWhatEarlierProcessesSent() {
+        for (int i = 0; i < 3; i++) {
+            enqueue("key" + i, "message " + i);
+        }
+        assertEquals(2, dispatcher(2, 60_000).drain().sent);
+
+        // A new process, as WorkManager often starts, must not get a fresh budget
+        now += 30_000;
+        OutboxDispatcher.Result result = dispatcher(2, 60_000).drain();
+        assertEquals(0, result.sent);
+        assertEquals(START + 60_000, result.nextRunAt);
+    }
+
+    @Test
+    public void drain_chargesEveryPartOfALongMessage() {
+        enqueue("long", repeat('x', 400)); // Three parts
+        enqueue("short", "body");
+
+        OutboxDispatcher.Result result = dispatcher(3, 60_000).drain();
+        assertEquals(1, result.sent);
+        assertEquals(START + 60_000, result.nextRunAt);
+
+        // A message longer than the whole budget still goes out once the window is empty
+        enqueue("longer", repeat('y', 800));
+        now += 60_000;
+        assertEquals(1, dispatcher(3, 60_000).drain().sent);
+        assertEquals("555: body", sender.sent.get(1));
+        now += 60_000;
+        assertEquals(1, dispatcher(3, 60_000).drain().sent);
+        assertEquals(3, sender.sent.size());
+    }
+
+    @Test
+    public void drain_backsOffExponentiallyThenFails() {
+        enqueue("key", "body");
+        for (int i = 0; i < OutboxDispatcher.MAX_ATTEMPTS; i++) {
+            sender.failNext("radio off", false);
+        }
+        long expectedDelay = OutboxDispatcher.BASE_BACKOFF_MILLIS;
+        for (int attempt = 1; attempt < OutboxDispatcher.MAX_ATTEMPTS; attempt++) {
+            OutboxDispatcher.Result result = dispatcher(100, 1).drain();
+            assertEquals(1, result.retried);
+            assertEquals(now + Math.min(expectedDelay, OutboxDispatcher.MAX_BACKOFF_MILLIS), result.nextRunAt);
+            // Not due before the backoff elapses
+            now = result.nextRunAt - 1;
+            assertEquals(0, dispatcher(100, 1).drain().retried);
+            now = result.nextRunAt;
+            expectedDelay *= 2;
+        }
+
+        OutboxDispatcher.Result last = dispatcher(100, 1).drain();
+        assertEquals(1, last.failed);
+        assertEquals(Long.MAX_VALUE, last.nextRunAt);
+        assertEquals(OutboxDispatcher.MAX_ATTEMPTS, sender.calls);
+        assertNull(outboxDao.getNextAttemptAt());
+    }
+
+    @Test
+    public void drain_failsPermanentErrorsWithoutRetry() {
+        enqueue("bad", "body");
+        enqueue("good", "body");
+        sender.failNext("no permission", true);
+
+        OutboxDispatcher.Result result = dispatcher(10, 60_000).drain();
+
+        assertEquals(1, result.failed);
+        assertEquals(1, result.sent);
+        assertEquals(2, sender.calls);
+        assertNull(outboxDao.getNextAttemptAt());
+    }
+
+    @Test
+    public void drain_retriesClaimedMessagesAfterACrash() {
+        long id = enqueue("key", "body");
+        // A dispatcher that died after claiming leaves the message pending with the claim deadline
+        outboxDao.claim(Collections.singletonList(id), now + OutboxDispatcher.CLAIM_MILLIS);
+        assertEquals(0, dispatcher(10, 60_000).drain().sent);
+        now += OutboxDispatcher.CLAIM_MILLIS;
+        assertEquals(1, dispatcher(10, 60_000).drain().sent);
+    }
+
+    @Test
+    public void backoff_isCapped() {
+        assertEquals(OutboxDispatcher.BASE_BACKOFF_MILLIS, OutboxDispatcher.backoff(1));
+        assertEquals(OutboxDispatcher.BASE_BACKOFF_MILLIS * 4, OutboxDispatcher.backoff(3));
+        assertEquals(TimeUnit.HOURS.toMillis(6), OutboxDispatcher.backoff(40));
+    }
+
+    private long enqueue(String key, String body) {
+        OutboxMessage message = new OutboxMessage();
+        message.setIdempotencyKey(key);
+        message.setPhone("555");
+        message.setBody(body);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        return outboxDao.enqueue(message);
+    }
+
+    private OutboxDispatcher dispatcher(int maxParts, long windowMillis) {
+        return new OutboxDispatcher(database, sender, maxParts, windowMillis, () -> now);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.langleyeventtracking.benchmark;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class Benchmarks {
+
+    static final int FIRST_DAY = 19000; // Epoch day of the first generated event
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Creates an event with realistic title and description lengths.
+     */
+    static Event event(int id, int userId, long date) {
+        Event event = new Event();
+        event.setId(id);
+        event.setUserId(userId);
+        event.setDate(date);
+        event.setTitle("Event " + id + " planning meeting");
+        event.setDescription("Agenda for event " + id + ": budget review, venue options and the guest list.");
+        return event;
+    }
+
+    /**
+     * Creates a user's events in (date, id) order, about three per day.
+     */
+    static List<Event> events(int count, int userId) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            events.add(event(i, userId, FIRST_DAY + i / 3));
+        }
+        return events;
+    }
+}
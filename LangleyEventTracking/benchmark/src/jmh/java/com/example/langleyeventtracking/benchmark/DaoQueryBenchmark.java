@@ -0,0 +1,218 @@
+package com.example.langleyeventtracking.benchmark;
+
+import com.example.langleyeventtracking.data.EventSearch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DAO Query Benchmark
+ * <p>
+ * Runs the EventDao queries against an in-memory SQLite database through the JDBC driver.
+ * The SQL is read from the @Query annotations in the DAO sources, so the benchmark always
+ * measures the statements the app ships; the ranked search query comes from EventSearch itself.
+ * The schema mirrors EventAppDatabase at its current version.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DaoQueryBenchmark {
+
+    private static final int USERS = 10; // Users the rows are spread across
+    private static final Pattern QUERY_METHOD = Pattern.compile(
+            "@Query\\(((?:\\s*\"(?:[^\"\\\\]|\\\\.)*\"\\s*\\+?)+)\\)\\s*[\\w<>,\\s]+?\\s(\\w+)\\(");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    private static final String[] SCHEMA = {
+            "CREATE TABLE `events` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `title` TEXT, "
+                    + "`date` INTEGER NOT NULL, `description` TEXT, `user id` INTEGER NOT NULL, `recurrence` TEXT, `reminders` TEXT, "
+                    + "`version` INTEGER NOT NULL DEFAULT 0, `deleted at` INTEGER)",
+            "CREATE INDEX `index_events_user_id_date` ON `events` (`user id`, `date`) WHERE `deleted at` IS NULL",
+            "CREATE INDEX `index_events_user_id_recurrence` ON `events` (`user id`, `recurrence`) WHERE `deleted at` IS NULL",
+            "CREATE INDEX `index_events_deleted_at` ON `events` (`deleted at`) WHERE `deleted at` IS NOT NULL",
+            "CREATE VIRTUAL TABLE `events_fts` USING FTS4(`title` TEXT, `description` TEXT, tokenize=unicode61, content=`events`)",
+    };
+
+    @Param({"100000"})
+    public int rows;
+
+    private Connection connection; // In-memory database
+    private final Map<String, String> queries = new HashMap<>(); // DAO method name to SQL
+    private final Map<String, List<String>> parameters = new HashMap<>(); // DAO method name to parameter names, in bind order
+    private int userId; // User whose events are queried
+    private long middleDay; // Epoch day in the middle of the user's events
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        readDaoQueries(new File(System.getProperty("benchmark.daoSources", "../app/src/main/java/com/example/langleyeventtracking/data/dao")));
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO events (title, date, description, `user id`) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setString(1, "Event " + i + " planning meeting");
+                insert.setLong(2, Benchmarks.FIRST_DAY + i / (3 * USERS));
+                insert.setString(3, "Agenda for event " + i + ": budget review, venue options and the guest list.");
+                insert.setInt(4, i % USERS);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO events_fts(events_fts) VALUES('rebuild')");
+            statement.execute("ANALYZE");
+        }
+        connection.commit();
+        userId = 3;
+        middleDay = Benchmarks.FIRST_DAY + rows / (6 * USERS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void getEventsForUser(Blackhole blackhole) throws SQLException {
+        run("getEventsForUser", blackhole, param("userId", userId));
+    }
+
+    @Benchmark
+    public void countEventsForUser(Blackhole blackhole) throws SQLException {
+        run("countEventsForUser", blackhole, param("userId", userId));
+    }
+
+    @Benchmark
+    public void getFirstEvents(Blackhole blackhole) throws SQLException {
+        run("getFirstEvents", blackhole, param("userId", userId, "limit", 50));
+    }
+
+    @Benchmark
+    public void getEventsAfter(Blackhole blackhole) throws SQLException {
+        run("getEventsAfter", blackhole, param("userId", userId, "date", middleDay, "id", 0, "limit", 50));
+    }
+
+    @Benchmark
+    public void getUpcomingOneOffs(Blackhole blackhole) throws SQLException {
+        run("getUpcomingOneOffs", blackhole, param("userId", userId, "fromDay", middleDay, "limit", 20));
+    }
+
+    @Benchmark
+    public void getOneOffEventsBetween(Blackhole blackhole) throws SQLException {
+        run("getOneOffEventsBetween", blackhole, param("userId", userId, "from", middleDay, "to", middleDay + 30));
+    }
+
+    @Benchmark
+    public void getRecurringEvents(Blackhole blackhole) throws SQLException {
+        run("getRecurringEvents", blackhole, param("userId", userId));
+    }
+
+    @Benchmark
+    public void searchEvents(Blackhole blackhole) throws SQLException {
+        String match = EventSearch.toMatchExpression("4242 plan");
+        try (PreparedStatement statement = connection.prepareStatement(EventSearch.rankedQuery(match))) {
+            Object[] args = EventSearch.bindArgs(match, userId, 20);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            consume(statement, blackhole);
+        }
+    }
+
+    /**
+     * Runs a DAO query with the given parameter values and consumes every column of every row.
+     */
+    private void run(String method, Blackhole blackhole, Map<String, Object> values) throws SQLException {
+        String sql = queries.get(method);
+        if (sql == null) {
+            throw new IllegalStateException("No @Query for EventDao." + method);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            List<String> names = parameters.get(method);
+            for (int i = 0; i < names.size(); i++) {
+                statement.setObject(i + 1, values.get(names.get(i)));
+            }
+            consume(statement, blackhole);
+        }
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                for (int column = 1; column <= columns; column++) {
+                    blackhole.consume(resultSet.getObject(column));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> param(Object... namesAndValues) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Reads every @Query of EventDao, rewriting named parameters to positional ones.
+     */
+    private void readDaoQueries(File daoSources) throws IOException {
+        File source = new File(daoSources, "EventDao.java");
+        String text = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+        Matcher method = QUERY_METHOD.matcher(text);
+        while (method.find()) {
+            StringBuilder sql = new StringBuilder();
+            Matcher literal = STRING_LITERAL.matcher(method.group(1));
+            while (literal.find()) {
+                sql.append(literal.group(1).replace("\\\"", "\""));
+            }
+            List<String> names = new ArrayList<>();
+            Matcher parameter = NAMED_PARAMETER.matcher(sql);
+            StringBuffer positional = new StringBuffer();
+            while (parameter.find()) {
+                names.add(parameter.group(1));
+                parameter.appendReplacement(positional, "?");
+            }
+            parameter.appendTail(positional);
+            queries.put(method.group(2), positional.toString());
+            parameters.put(method.group(2), names);
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalStateException("No @Query annotations found in " + source.getAbsolutePath());
+        }
+    }
+}
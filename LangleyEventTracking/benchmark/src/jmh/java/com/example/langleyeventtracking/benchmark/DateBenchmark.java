@@ -0,0 +1,82 @@
+package com.example.langleyeventtracking.benchmark;
+
+import com.example.langleyeventtracking.EventDateCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date Benchmark
+ * <p>
+ * Measures date formatting and parsing the way the app does it for every list row, edit and
+ * first login, through EventDateCodec. The per-call variants build a formatter every time, as
+ * the app did before the codec, and are kept as a reference point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateBenchmark {
+
+    private static final int SCROLL_DAYS = 4096; // Days walked by the scrolling benchmark, more than the label cache holds
+
+    private final EventDateCodec codec = EventDateCodec.forLocale(Locale.getDefault());
+    private long epochDay; // Date of a typical event
+    private String dateText; // The same date as display text
+    private LocalDate today; // Fixed "today" for the birthday benchmark
+    private long scrollDay; // Next day formatted by the scrolling benchmark
+
+    @Setup
+    public void setUp() {
+        epochDay = LocalDate.of(2024, 6, 16).toEpochDay();
+        dateText = codec.format(epochDay);
+        today = LocalDate.of(2024, 9, 1);
+        scrollDay = epochDay;
+    }
+
+    @Benchmark
+    public String formatDatePerCall() {
+        return LocalDate.ofEpochDay(epochDay).format(DateTimeFormatter.ofPattern(EventDateCodec.DISPLAY_PATTERN, Locale.getDefault()));
+    }
+
+    @Benchmark
+    public String formatDateCodec() {
+        return codec.format(epochDay);
+    }
+
+    /**
+     * Formats a different day on every call, cycling through more days than the label cache holds.
+     */
+    @Benchmark
+    public String formatDateCodecScrolling() {
+        scrollDay = epochDay + (scrollDay - epochDay + 1) % SCROLL_DAYS;
+        return codec.format(scrollDay);
+    }
+
+    @Benchmark
+    public long parseDatePerCall() {
+        return LocalDate.parse(dateText, DateTimeFormatter.ofPattern(EventDateCodec.DISPLAY_PATTERN, Locale.getDefault())).toEpochDay();
+    }
+
+    @Benchmark
+    public long parseDateCodec() {
+        return codec.parse(dateText);
+    }
+
+    /**
+     * Mirrors EventActivity.createBirthday: parse the stored birthday and move it to its next occurrence.
+     */
+    @Benchmark
+    public long createBirthday() {
+        return EventDateCodec.nextAnniversary(codec.parse(dateText), today);
+    }
+}
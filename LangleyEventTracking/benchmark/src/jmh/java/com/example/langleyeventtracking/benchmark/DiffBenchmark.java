@@ -0,0 +1,76 @@
+package com.example.langleyeventtracking.benchmark;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diff Benchmark
+ * <p>
+ * Measures DiffUtil over event lists after a typical save: the list is reloaded as new
+ * instances with one event added, one deleted and one edited. Items are compared the way
+ * EventAdapter.DIFF_CALLBACK compares them, by ID and row version, and moves are detected as
+ * ListAdapter does. EventAdapter itself needs the Android framework, so its checks are mirrored here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Event> oldList; // List currently displayed
+    private List<Event> newList; // List after the reload
+
+    @Setup
+    public void setUp() {
+        oldList = Benchmarks.events(size, 1);
+        newList = Benchmarks.events(size, 1); // Fresh instances, as Room returns after every change
+        newList.remove(size / 4);
+        Event edited = newList.get(size / 2);
+        edited.setTitle("Edited title");
+        edited.setVersion(edited.getVersion() + 1); // As EventDao.updateEvent bumps it
+        newList.add(3 * size / 4, Benchmarks.event(size + 1, 1, newList.get(3 * size / 4).getDate()));
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult diff() {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                Event oldItem = oldList.get(oldItemPosition);
+                Event newItem = newList.get(newItemPosition);
+                return oldItem.getId() == newItem.getId()
+                        && (!oldItem.isRecurring() && !newItem.isRecurring() || oldItem.getDate() == newItem.getDate());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldList.get(oldItemPosition).getVersion() == newList.get(newItemPosition).getVersion();
+            }
+        }, true);
+    }
+}
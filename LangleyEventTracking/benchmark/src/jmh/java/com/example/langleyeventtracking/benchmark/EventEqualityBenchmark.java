@@ -0,0 +1,52 @@
+package com.example.langleyeventtracking.benchmark;
+
+import com.example.langleyeventtracking.data.models.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event Equality Benchmark
+ * <p>
+ * Measures Event.equals and Event.hashCode, which EventAdapter.DIFF_CALLBACK calls for every
+ * row of every list update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEqualityBenchmark {
+
+    private Event event; // Event as currently displayed
+    private Event sameContent; // Separate instance with the same content, as after a reload
+    private Event editedDescription; // Same event with only the last compared field changed
+
+    @Setup
+    public void setUp() {
+        event = Benchmarks.event(42, 7, 19890);
+        sameContent = Benchmarks.event(42, 7, 19890);
+        editedDescription = Benchmarks.event(42, 7, 19890);
+        editedDescription.setDescription(event.getDescription() + " (moved)");
+    }
+
+    @Benchmark
+    public boolean equalsSameContent() {
+        return event.equals(sameContent);
+    }
+
+    @Benchmark
+    public boolean equalsEditedDescription() {
+        return event.equals(editedDescription);
+    }
+
+    @Benchmark
+    public int hashCodeEvent() {
+        return event.hashCode();
+    }
+}